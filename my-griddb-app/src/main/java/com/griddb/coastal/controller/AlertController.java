@@ -0,0 +1,51 @@
+package com.griddb.coastal.controller;
+
+import com.griddb.coastal.service.LiveUpdateService;
+import com.griddb.coastal.service.SurgeDetector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class AlertController {
+
+    @Autowired
+    private SurgeDetector surgeDetector;
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    /**
+     * Recent surge alerts, newest first, and the stations currently in a surge, e.g.
+     * GET /api/alerts?stations=8518750&limit=50
+     */
+    @GetMapping("/api/alerts")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getAlerts(@RequestParam(required = false) List<String> stations,
+                                                         @RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("active", surgeDetector.activeStations());
+        body.put("alerts", surgeDetector.recentAlerts(stations, limit));
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Server-sent "surge" events, one per alert raised or cleared; the same as
+     * /api/stream?topics=surge
+     */
+    @GetMapping("/api/alerts/stream")
+    public ResponseEntity<SseEmitter> streamAlerts(@RequestParam(required = false) List<String> stations) {
+        try {
+            return ResponseEntity.ok(liveUpdateService.subscribe(stations, List.of(LiveUpdateService.SURGE)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
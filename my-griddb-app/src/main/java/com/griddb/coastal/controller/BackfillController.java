@@ -0,0 +1,83 @@
+package com.griddb.coastal.controller;
+
+import com.griddb.coastal.model.BackfillProgress;
+import com.griddb.coastal.service.BackfillService;
+import com.griddb.coastal.service.WaterLevelRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class BackfillController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillController.class);
+
+    @Autowired
+    private BackfillService backfillService;
+
+    @Autowired
+    private WaterLevelRollupService rollupService;
+
+    /**
+     * Start or resume a backfill, e.g.
+     * POST /api/backfill?stations=8518750,8724580&product=water_level&from=2005-01-01&to=2025-01-01
+     */
+    @PostMapping("/api/backfill")
+    @ResponseBody
+    public ResponseEntity<?> startBackfill(@RequestParam List<String> stations,
+                                           @RequestParam(defaultValue = "water_level") String product,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.accepted().body(backfillService.start(stations, product, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
+        } catch (Exception e) {
+            logger.error("Error starting backfill: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
+    @GetMapping("/api/backfill")
+    @ResponseBody
+    public ResponseEntity<List<BackfillProgress>> listBackfills() {
+        return ResponseEntity.ok(backfillService.listJobs());
+    }
+
+    @GetMapping("/api/backfill/{jobId}")
+    @ResponseBody
+    public ResponseEntity<BackfillProgress> getBackfill(@PathVariable String jobId) {
+        BackfillProgress progress = backfillService.getJob(jobId);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Recompute hourly and daily rollups from the raw readings, e.g.
+     * POST /api/rollups/rebuild?stations=8518750&from=2005-01-01&to=2025-01-01
+     */
+    @PostMapping("/api/rollups/rebuild")
+    @ResponseBody
+    public ResponseEntity<?> rebuildRollups(@RequestParam List<String> stations,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            Map<String, Integer> hourlyBuckets = new LinkedHashMap<>();
+            for (String station : stations) {
+                hourlyBuckets.put(station, rollupService.rebuild(station, from, to));
+            }
+            return ResponseEntity.ok(hourlyBuckets);
+        } catch (Exception e) {
+            logger.error("Error rebuilding rollups: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+}
@@ -1,19 +1,36 @@
 package com.griddb.coastal.controller;
 
-import com.griddb.coastal.service.NOAADataService;
-import com.griddb.coastal.service.GridDBService;
+import com.griddb.coastal.service.StorageService;
 import com.griddb.coastal.service.DataSchedulerService;
+import com.griddb.coastal.service.DashboardSnapshotService;
+import com.griddb.coastal.service.ColumnarCodec;
+import com.griddb.coastal.service.Downsampler;
+import com.griddb.coastal.service.GridDBRowCodec;
+import com.griddb.coastal.service.StationRegistry;
+import com.griddb.coastal.model.MonthlyMeanSeries;
 import com.griddb.coastal.model.StationMetadata;
-import org.json.JSONArray;
+import com.griddb.coastal.model.WaterLevelAggregateSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Controller
@@ -21,21 +38,26 @@ public class DashboardController {
     
     private static final Logger logger = LoggerFactory.getLogger(DashboardController.class);
     
+    private static final MediaType COLUMNAR = MediaType.parseMediaType(ColumnarCodec.MEDIA_TYPE);
+    
     @Autowired
-    private NOAADataService noaaDataService;
+    private StationRegistry stationRegistry;
     
     @Autowired
-    private GridDBService gridDBService;
+    private StorageService storageService;
     
     @Autowired
     private DataSchedulerService schedulerService;
     
+    @Autowired
+    private DashboardSnapshotService dashboardSnapshotService;
+    
 
     @GetMapping("/")
     public String dashboard(Model model) {
         logger.info("Rendering main dashboard");
         
-        List<StationMetadata> stations = noaaDataService.getConfiguredStations();
+        List<StationMetadata> stations = stationRegistry.monitoredStations();
         model.addAttribute("stations", stations);
         model.addAttribute("title", "Watching Coastlines Vanish");
         model.addAttribute("subtitle", "Real-time Coastal Monitoring with GridDB Time-Series");
@@ -44,39 +66,105 @@ public class DashboardController {
     }
     
 
+    /**
+     * Readings of the last {@code hours}, or with {@code resolution=hourly}, {@code daily}
+     * or {@code auto} means from the rollups; with {@code points=N} the series is
+     * downsampled to about N points ({@code downsample=lttb} or {@code minmax}). Sent in
+     * the columnar encoding when the client accepts {@value ColumnarCodec#MEDIA_TYPE}.
+     */
     @GetMapping("/api/water-levels/{stationId}")
     @ResponseBody
-    public ResponseEntity<String> getWaterLevels(@PathVariable String stationId, 
-                                               @RequestParam(defaultValue = "24") int hours) {
+    public ResponseEntity<StreamingResponseBody> getWaterLevels(@PathVariable String stationId, 
+                                               @RequestParam(defaultValue = "24") int hours,
+                                               @RequestParam(defaultValue = StorageService.RESOLUTION_RAW) String resolution,
+                                               @RequestParam(defaultValue = "0") int points,
+                                               @RequestParam(defaultValue = Downsampler.LTTB) String downsample,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            String data = gridDBService.queryLatestWaterLevels(stationId, hours);
-            return ResponseEntity.ok(data);
+            WaterLevelSeries series = Downsampler.downsample(
+                storageService.queryWaterLevelSeries(stationId, hours, resolution), points, downsample);
+            if (acceptsColumnar(accept)) {
+                return columnarBody(out -> ColumnarCodec.write(series, out));
+            }
+            return jsonBody(gen -> GridDBRowCodec.writeWaterLevelResults(series, gen));
+        } catch (IllegalArgumentException e) {
+            return errorBody(HttpStatus.BAD_REQUEST, e);
         } catch (Exception e) {
             logger.error("Error fetching water levels for station {}: {}", stationId, e.getMessage());
-            return ResponseEntity.internalServerError().body("{\"error\": \"" + e.getMessage() + "\"}");
+            return errorBody(e);
+        }
+    }
+    
+    
+    /**
+     * Time-bucketed aggregates computed by GridDB, e.g.
+     * GET /api/water-levels/8518750/aggregate?from=2025-01-01T00:00&to=2025-02-01T00:00&bucket=15m&fn=avg,max
+     * (times in UTC)
+     */
+    @GetMapping("/api/water-levels/{stationId}/aggregate")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> getWaterLevelAggregates(@PathVariable String stationId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                               @RequestParam(defaultValue = "1h") String bucket,
+                                               @RequestParam(defaultValue = "avg") List<String> fn) {
+        try {
+            WaterLevelAggregateSeries series = storageService.aggregateWaterLevels(stationId, from, to, bucket, fn);
+            return jsonBody(gen -> GridDBRowCodec.writeAggregateResults(series, gen));
+        } catch (IllegalArgumentException e) {
+            return errorBody(HttpStatus.BAD_REQUEST, e);
+        } catch (Exception e) {
+            logger.error("Error aggregating water levels for station {}: {}", stationId, e.getMessage());
+            return errorBody(e);
         }
     }
     
 
     @GetMapping("/api/monthly-trends/{stationId}")
     @ResponseBody
-    public ResponseEntity<String> getMonthlyTrends(@PathVariable String stationId,
-                                                  @RequestParam(defaultValue = "10") int years) {
+    public ResponseEntity<StreamingResponseBody> getMonthlyTrends(@PathVariable String stationId,
+                                                  @RequestParam(defaultValue = "10") int years,
+                                                  @RequestParam(defaultValue = "0") int points,
+                                                  @RequestParam(defaultValue = Downsampler.LTTB) String downsample,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            String data = gridDBService.queryMonthlyTrends(stationId, years);
-            return ResponseEntity.ok(data);
+            MonthlyMeanSeries series = Downsampler.downsample(
+                storageService.queryMonthlyMeanSeries(stationId, years), points, downsample);
+            if (acceptsColumnar(accept)) {
+                return columnarBody(out -> ColumnarCodec.write(series, out));
+            }
+            return jsonBody(gen -> GridDBRowCodec.writeMonthlyMeanResults(series, gen));
+        } catch (IllegalArgumentException e) {
+            return errorBody(HttpStatus.BAD_REQUEST, e);
         } catch (Exception e) {
             logger.error("Error fetching monthly trends for station {}: {}", stationId, e.getMessage());
-            return ResponseEntity.internalServerError().body("{\"error\": \"" + e.getMessage() + "\"}");
+            return errorBody(e);
         }
     }
     
 
+    /**
+     * Monitored stations, optionally only those in one state or region, or only the
+     * active ones, e.g. GET /api/stations?region=Gulf%20Coast&active=true
+     */
     @GetMapping("/api/stations")
     @ResponseBody
-    public ResponseEntity<List<StationMetadata>> getAllStations() {
+    public ResponseEntity<List<StationMetadata>> getAllStations(@RequestParam(required = false) String state,
+                                                                @RequestParam(required = false) String region,
+                                                                @RequestParam(defaultValue = "false") boolean active) {
         try {
-            List<StationMetadata> stations = noaaDataService.getConfiguredStations();
+            // Start from the narrowest index, then filter by whatever it did not cover
+            StationRegistry.Snapshot registry = stationRegistry.snapshot();
+            List<StationMetadata> stations = state != null ? registry.byState(state)
+                : region != null ? registry.byRegion(region)
+                : active ? registry.active()
+                : registry.monitored();
+            if (active && (state != null || region != null)) {
+                stations = stations.stream().filter(s -> !Boolean.FALSE.equals(s.getIsActive())).toList();
+            }
+            if (state != null && region != null) {
+                stations = stations.stream().filter(s -> region.equalsIgnoreCase(s.getRegion())).toList();
+            }
             return ResponseEntity.ok(stations);
         } catch (Exception e) {
             logger.error("Error fetching stations: {}", e.getMessage());
@@ -84,46 +172,28 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Serves the snapshot built after the last ingestion cycle, or the part of it for
+     * {@code stations=id1,id2}. Spring answers If-None-Match with 304 on its own once
+     * the response carries the ETag.
+     */
     @GetMapping("/api/dashboard-data")
     @ResponseBody
-    public ResponseEntity<String> getDashboardData() {
+    public ResponseEntity<byte[]> getDashboardData(@RequestParam(required = false) List<String> stations) {
         try {
-            JSONObject dashboardData = new JSONObject();
-            JSONArray stationsData = new JSONArray();
-            
-            List<StationMetadata> stations = noaaDataService.getConfiguredStations();
-            
-            for (StationMetadata station : stations) {
-                JSONObject stationInfo = new JSONObject();
-                stationInfo.put("stationId", station.getStationId());
-                stationInfo.put("stationName", station.getStationName());
-                stationInfo.put("state", station.getState());
-                stationInfo.put("latitude", station.getLatitude());
-                stationInfo.put("longitude", station.getLongitude());
-                
-                // Get latest water level
-                String latestDataString = gridDBService.queryLatestWaterLevels(station.getStationId(), 1);
-                JSONObject latestDataObject = new JSONObject(latestDataString);
-                stationInfo.put("latestWaterLevel", latestDataObject);
-                
-                // Get monthly trend (last 2 years for quick overview)
-                String trendDataString = gridDBService.queryMonthlyTrends(station.getStationId(), 2);
-                JSONObject trendDataObject = new JSONObject(trendDataString);
-                logger.info("Monthly Trend Data for {}: {}", station.getStationId(), trendDataObject.toString());
-                stationInfo.put("monthlyTrend", trendDataObject);
-                
-                stationsData.put(stationInfo);
-            }
-            
-            dashboardData.put("stations", stationsData);
-            dashboardData.put("lastUpdated", System.currentTimeMillis());
-            dashboardData.put("totalStations", stations.size());
-            
-            return ResponseEntity.ok(dashboardData.toString());
-            
+            DashboardSnapshotService.Snapshot snapshot = stations == null || stations.isEmpty()
+                ? dashboardSnapshotService.current()
+                : dashboardSnapshotService.build(stations);
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.etag())
+                .body(snapshot.body());
         } catch (Exception e) {
             logger.error("Error generating dashboard data: {}", e.getMessage());
-            return ResponseEntity.internalServerError().body("{\"error\": \"" + e.getMessage() + "\"}");
+            return ResponseEntity.internalServerError()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(("{\"error\": \"" + e.getMessage() + "\"}").getBytes(StandardCharsets.UTF_8));
         }
     }
     
@@ -160,4 +230,53 @@ public class DashboardController {
             return ResponseEntity.internalServerError().body("{\"error\": \"" + e.getMessage() + "\"}");
         }
     }
+
+    /**
+     * Streams a JSON body straight to the response with no intermediate tree or String
+     */
+    private ResponseEntity<StreamingResponseBody> jsonBody(GridDBRowCodec.JsonWriter writer) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .varyBy(HttpHeaders.ACCEPT)
+            .body(out -> GridDBRowCodec.write(out, writer));
+    }
+    
+    /**
+     * Streams a series in the columnar encoding
+     */
+    private ResponseEntity<StreamingResponseBody> columnarBody(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+            .contentType(COLUMNAR)
+            .varyBy(HttpHeaders.ACCEPT)
+            .body(body);
+    }
+    
+    /**
+     * True only if the client names the columnar type explicitly; wildcards get JSON
+     */
+    private static boolean acceptsColumnar(String accept) {
+        if (accept == null || !accept.contains(ColumnarCodec.MEDIA_TYPE)) return false;
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(COLUMNAR) && type.getQualityValue() > 0);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> errorBody(Exception e) {
+        return errorBody(HttpStatus.INTERNAL_SERVER_ERROR, e);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> errorBody(HttpStatus status, Exception e) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(out -> GridDBRowCodec.write(out, gen -> writeError(gen, e)));
+    }
+
+    private static void writeError(JsonGenerator gen, Exception e) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("error", String.valueOf(e.getMessage()));
+        gen.writeEndObject();
+    }
 }
@@ -0,0 +1,36 @@
+package com.griddb.coastal.controller;
+
+import com.griddb.coastal.service.LiveUpdateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@Controller
+public class StreamController {
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    /**
+     * Server-sent events with the readings each ingestion adds, e.g.
+     * GET /api/stream?stations=8518750,8724580&topics=readings,summary,surge
+     * (all stations and topics by default). A "resync" event means updates were
+     * dropped and the client should reload.
+     */
+    @GetMapping("/api/stream")
+    public SseEmitter stream(@RequestParam(required = false) List<String> stations,
+                             @RequestParam(required = false) List<String> topics) {
+        try {
+            return liveUpdateService.subscribe(stations, topics);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+}
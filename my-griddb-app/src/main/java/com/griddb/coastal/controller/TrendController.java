@@ -0,0 +1,52 @@
+package com.griddb.coastal.controller;
+
+import com.griddb.coastal.model.SeaLevelTrend;
+import com.griddb.coastal.model.StationMetadata;
+import com.griddb.coastal.service.StationRegistry;
+import com.griddb.coastal.service.SeaLevelTrendService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Controller
+public class TrendController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendController.class);
+
+    @Autowired
+    private StationRegistry stationRegistry;
+
+    @Autowired
+    private SeaLevelTrendService seaLevelTrendService;
+
+    /**
+     * Sea level trend per station, e.g. GET /api/trends/rate-of-rise?stations=8518750,8724580.
+     * Stations with fewer than three monthly means are left out.
+     */
+    @GetMapping("/api/trends/rate-of-rise")
+    @ResponseBody
+    public ResponseEntity<List<SeaLevelTrend>> getRateOfRise(@RequestParam(required = false) List<String> stations) {
+        try {
+            List<SeaLevelTrend> trends = new ArrayList<>();
+            for (StationMetadata station : stationRegistry.monitoredStations()) {
+                if (stations != null && !stations.isEmpty() && !stations.contains(station.getStationId())) continue;
+
+                SeaLevelTrend trend = seaLevelTrendService.trend(station.getStationId());
+                if (trend != null) {
+                    if (trend.getStationName() == null) trend.setStationName(station.getStationName());
+                    trends.add(trend);
+                }
+            }
+            return ResponseEntity.ok(trends);
+        } catch (Exception e) {
+            logger.error("Error computing rate of rise: {}", e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.griddb.coastal.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor 
+@NoArgsConstructor
+@Builder
+public class BackfillProgress {
+  private String jobId;
+  private String product;
+  private List<String> stationIds;
+  private String from;
+  private String to;
+  private String state; // RUNNING, COMPLETED, FAILED
+  private int totalChunks;
+  private int completedChunks;
+  private int resumedChunks; // already done by an earlier run
+  private int failedChunks;
+  private long rowsStored;
+  private long elapsedMillis;
+  private double rowsPerSecond;
+  private double chunksPerSecond;
+  private List<String> errors; // most recent chunk failures
+}
@@ -0,0 +1,24 @@
+package com.griddb.coastal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Columnar view of one station's monthly mean sea levels, oldest first.
+ * Only the first {@code size} array slots are valid.
+ */
+@Data
+@AllArgsConstructor 
+@NoArgsConstructor
+@Builder
+public class MonthlyMeanSeries {
+  private String stationId;
+  private String stationName;
+  private Double latitude;
+  private Double longitude;
+  private int size;
+  private long[] months; // epoch millis of the first day of the month, UTC
+  private double[] meanSeaLevels; // meters above MSL
+}
@@ -0,0 +1,29 @@
+package com.griddb.coastal.model;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Least-squares linear trend of a station's monthly mean sea level
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SeaLevelTrend {
+  private String stationId;
+  private String stationName;
+  private int months; // monthly means in the fit
+  private LocalDate firstMonth;
+  private LocalDate lastMonth;
+  private double slopeMmPerYear;
+  private double interceptMm; // fitted level at 2000-01-01, mm above MSL
+  private double rSquared;
+  private double confidenceLevel; // e.g. 0.95
+  private double slopeLowMmPerYear; // confidence interval of the slope
+  private double slopeHighMmPerYear;
+}
@@ -0,0 +1,28 @@
+package com.griddb.coastal.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A station's water level leaving (RAISED) or returning to (CLEARED) its usual range
+ * for that point of the tidal cycle
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SurgeAlert {
+  private String stationId;
+  private String stationName;
+  private String state; // RAISED, CLEARED
+  private String direction; // HIGH (surge) or LOW (drawdown)
+  private LocalDateTime timestamp; // reading that triggered the change, UTC
+  private double waterLevel; // meters
+  private double expectedLevel; // mean at this tidal phase, meters
+  private double residual; // waterLevel - expectedLevel
+  private double sigmas; // residual in standard deviations
+}
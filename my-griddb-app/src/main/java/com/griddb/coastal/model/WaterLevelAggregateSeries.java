@@ -0,0 +1,26 @@
+package com.griddb.coastal.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Time-bucketed aggregates of one station's water levels, oldest first.
+ * {@code values[f][i]} is function {@code functions.get(f)} over bucket {@code i};
+ * only the first {@code size} slots are valid.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WaterLevelAggregateSeries {
+  private String stationId;
+  private String bucket; // e.g. "15m"
+  private List<String> functions; // e.g. ["avg", "max"]
+  private int size;
+  private long[] buckets; // epoch millis of the bucket start, UTC
+  private double[][] values;
+}
@@ -0,0 +1,24 @@
+package com.griddb.coastal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Columnar hourly or daily water level aggregates of one station, oldest first.
+ * Only the first {@code size} array slots are valid.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WaterLevelRollupSeries {
+  private String stationId;
+  private int size;
+  private long[] buckets; // epoch millis of the bucket start, UTC
+  private double[] minLevels; // meters
+  private double[] maxLevels;
+  private double[] meanLevels;
+  private int[] counts; // readings in the bucket
+}
@@ -0,0 +1,26 @@
+package com.griddb.coastal.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Columnar view of one station's water level readings, oldest first.
+ * Station attributes are held once; only the first {@code size} array slots are valid.
+ */
+@Data
+@AllArgsConstructor 
+@NoArgsConstructor
+@Builder
+public class WaterLevelSeries {
+  private String stationId;
+  private String stationName;
+  private String datum;
+  private Double latitude;
+  private Double longitude;
+  private int size;
+  private long[] timestamps; // epoch millis, UTC
+  private double[] waterLevels; // meters
+  private String[] flags; // NOAA quality flags, shared instances for repeated values
+}
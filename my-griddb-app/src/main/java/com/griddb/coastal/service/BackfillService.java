@@ -0,0 +1,370 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.BackfillProgress;
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.WaterLevelData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads long stretches of history for many stations.
+ *
+ * A job's station/date range is cut into chunks NOAA will serve in one request
+ * (31 days of 6-minute water levels, ten years of monthly means by default). Chunks
+ * run in parallel on a dedicated pool, paced by the shared per-host rate limit, and
+ * are written through the write-behind buffer. Each chunk, once stored, is appended
+ * to a checkpoint file under {@code backfill.checkpoint.dir}. Submitting the same job
+ * again, or restarting the app, skips the chunks already recorded there.
+ */
+@Service
+public class BackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillService.class);
+
+    private static final DateTimeFormatter ID_DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final int MAX_RECENT_ERRORS = 20;
+
+    @Autowired
+    private NOAADataService noaaDataService;
+
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    private SurgeDetector surgeDetector;
+
+    @Value("${backfill.checkpoint.dir:data/backfill}")
+    private String checkpointDir;
+
+    @Value("${backfill.concurrency:4}")
+    private int concurrency;
+
+    @Value("${backfill.chunk.days.water_level:31}")
+    private int waterLevelChunkDays;
+
+    @Value("${backfill.chunk.days.monthly_mean:3650}")
+    private int monthlyMeanChunkDays;
+
+    @Value("${backfill.chunk.retries:3}")
+    private int chunkRetries;
+
+    @Value("${backfill.resume.on.startup:true}")
+    private boolean resumeOnStartup;
+
+    private ExecutorService backfillExecutor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private record Chunk(String stationId, LocalDate begin, LocalDate end) {
+        String key() {
+            return stationId + "/" + begin + "/" + end;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        backfillExecutor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "backfill-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    /**
+     * Picks up jobs that were interrupted by a shutdown
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        if (!resumeOnStartup) return;
+
+        Path dir = Paths.get(checkpointDir);
+        if (!Files.isDirectory(dir)) return;
+
+        try (DirectoryStream<Path> specs = Files.newDirectoryStream(dir, "*.job")) {
+            for (Path spec : specs) {
+                Properties props = new Properties();
+                try (Reader reader = Files.newBufferedReader(spec, StandardCharsets.UTF_8)) {
+                    props.load(reader);
+                }
+                Job job = submit(List.of(props.getProperty("stations").split(",")),
+                    props.getProperty("product"),
+                    LocalDate.parse(props.getProperty("from")),
+                    LocalDate.parse(props.getProperty("to")));
+                if (!job.isFinished()) {
+                    logger.info("Resuming backfill {} ({} of {} chunks already done)",
+                        job.id, job.resumed.get(), job.chunks.size());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error resuming backfill jobs from {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Starts (or resumes) a backfill of {@code product} for the stations over [from, to).
+     * Submitting a job that is already running returns its current progress.
+     */
+    public BackfillProgress start(List<String> stationIds, String product, LocalDate from, LocalDate to) throws IOException {
+        if (!WatermarkStore.WATER_LEVEL.equals(product) && !WatermarkStore.MONTHLY_MEAN.equals(product)) {
+            throw new IllegalArgumentException("Unsupported product: " + product);
+        }
+        if (stationIds.isEmpty() || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Need at least one station and from < to");
+        }
+        return submit(stationIds, product, from, to).progress();
+    }
+
+    public List<BackfillProgress> listJobs() {
+        return jobs.values().stream().map(Job::progress).toList();
+    }
+
+    public BackfillProgress getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? job.progress() : null;
+    }
+
+    private Job submit(List<String> stationIds, String product, LocalDate from, LocalDate to) throws IOException {
+        List<String> stations = stationIds.stream().map(String::trim).filter(s -> !s.isEmpty()).sorted().distinct().toList();
+        String jobId = jobId(stations, product, from, to);
+
+        Job existing = jobs.get(jobId);
+        if (existing != null && !existing.isFinished()) {
+            return existing;
+        }
+
+        Path dir = Paths.get(checkpointDir);
+        Files.createDirectories(dir);
+        writeSpec(dir.resolve(jobId + ".job"), stations, product, from, to);
+
+        Set<String> done = readCheckpoints(dir.resolve(jobId + ".done"));
+        List<Chunk> chunks = chunk(stations, product, from, to);
+        Job job = new Job(jobId, product, stations, from, to, chunks, dir.resolve(jobId + ".done"));
+        jobs.put(jobId, job);
+
+        List<Chunk> pending = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            if (done.contains(chunk.key())) {
+                job.resumed.incrementAndGet();
+                job.completed.incrementAndGet();
+            } else {
+                pending.add(chunk);
+            }
+        }
+
+        logger.info("Backfill {}: {} chunks, {} pending", jobId, chunks.size(), pending.size());
+        for (Chunk chunk : pending) {
+            backfillExecutor.submit(() -> runChunk(job, chunk));
+        }
+        if (pending.isEmpty()) {
+            job.finish();
+        }
+        return job;
+    }
+
+    private List<Chunk> chunk(List<String> stations, String product, LocalDate from, LocalDate to) {
+        int chunkDays = WatermarkStore.WATER_LEVEL.equals(product) ? waterLevelChunkDays : monthlyMeanChunkDays;
+        List<Chunk> chunks = new ArrayList<>();
+        for (String stationId : stations) {
+            for (LocalDate begin = from; begin.isBefore(to); begin = begin.plusDays(chunkDays)) {
+                LocalDate end = begin.plusDays(chunkDays);
+                chunks.add(new Chunk(stationId, begin, end.isAfter(to) ? to : end));
+            }
+        }
+        return chunks;
+    }
+
+    private void runChunk(Job job, Chunk chunk) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                long rows = WatermarkStore.WATER_LEVEL.equals(job.product) ? backfillWaterLevels(chunk) : backfillMonthlyMeans(chunk);
+                job.checkpoint(chunk);
+                job.rows.addAndGet(rows);
+                job.completed.incrementAndGet();
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (attempt >= chunkRetries) {
+                    logger.error("Backfill {} chunk {} failed after {} attempts: {}", job.id, chunk.key(), attempt + 1, e.getMessage());
+                    job.fail(chunk, e);
+                    break;
+                }
+                try {
+                    TimeUnit.SECONDS.sleep(1L << attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        if (job.completed.get() + job.failed.get() == job.chunks.size()) {
+            job.finish();
+        }
+    }
+
+    private long backfillWaterLevels(Chunk chunk) throws Exception {
+        // NOAA end dates are inclusive; stop one minute short of the next chunk
+        List<WaterLevelData> rows = noaaDataService.requestWaterLevels(chunk.stationId(),
+            chunk.begin().atStartOfDay(), chunk.end().atStartOfDay().minusMinutes(1));
+        if (!writeBehindBuffer.submitWaterLevels(rows).safe().join()) {
+            throw new IOException("GridDB rejected " + rows.size() + " water level rows");
+        }
+        surgeDetector.train(rows);
+        return rows.size();
+    }
+
+    private long backfillMonthlyMeans(Chunk chunk) throws Exception {
+        List<MonthlyMeanData> rows = noaaDataService.requestMonthlyMeanData(chunk.stationId(),
+            chunk.begin(), chunk.end().minusDays(1));
+        if (!writeBehindBuffer.submitMonthlyMeans(rows).safe().join()) {
+            throw new IOException("GridDB rejected " + rows.size() + " monthly mean rows");
+        }
+        return rows.size();
+    }
+
+    private static String jobId(List<String> stations, String product, LocalDate from, LocalDate to) {
+        String spec = product + "|" + String.join(",", stations) + "|" + from + "|" + to;
+        String hash = UUID.nameUUIDFromBytes(spec.getBytes(StandardCharsets.UTF_8)).toString().substring(0, 8);
+        return String.format("%s-%s-%s-%s", product, from.format(ID_DATE_FORMAT), to.format(ID_DATE_FORMAT), hash);
+    }
+
+    private static void writeSpec(Path path, Collection<String> stations, String product, LocalDate from, LocalDate to) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("product", product);
+        props.setProperty("stations", String.join(",", stations));
+        props.setProperty("from", from.toString());
+        props.setProperty("to", to.toString());
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            props.store(writer, "Backfill job");
+        }
+    }
+
+    private static Set<String> readCheckpoints(Path path) throws IOException {
+        return Files.exists(path) ? new HashSet<>(Files.readAllLines(path, StandardCharsets.UTF_8)) : new HashSet<>();
+    }
+
+    /**
+     * Live state of one backfill job
+     */
+    private static final class Job {
+        final String id;
+        final String product;
+        final List<String> stations;
+        final LocalDate from;
+        final LocalDate to;
+        final List<Chunk> chunks;
+        final Path checkpointFile;
+
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger resumed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicLong rows = new AtomicLong();
+        final Deque<String> errors = new ArrayDeque<>();
+        final long startNanos = System.nanoTime();
+        volatile long finishNanos;
+
+        Job(String id, String product, List<String> stations, LocalDate from, LocalDate to,
+            List<Chunk> chunks, Path checkpointFile) {
+            this.id = id;
+            this.product = product;
+            this.stations = stations;
+            this.from = from;
+            this.to = to;
+            this.chunks = chunks;
+            this.checkpointFile = checkpointFile;
+        }
+
+        synchronized void checkpoint(Chunk chunk) throws IOException {
+            Files.writeString(checkpointFile, chunk.key() + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        synchronized void fail(Chunk chunk, Exception e) {
+            failed.incrementAndGet();
+            errors.addLast(chunk.key() + ": " + e.getMessage());
+            if (errors.size() > MAX_RECENT_ERRORS) errors.removeFirst();
+        }
+
+        synchronized void finish() {
+            if (finishNanos == 0) {
+                finishNanos = System.nanoTime();
+                logger.info("Backfill {} finished: {} rows, {} of {} chunks done, {} failed",
+                    id, rows.get(), completed.get(), chunks.size(), failed.get());
+            }
+        }
+
+        boolean isFinished() {
+            return finishNanos != 0;
+        }
+
+        synchronized BackfillProgress progress() {
+            long end = isFinished() ? finishNanos : System.nanoTime();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+            double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+            int chunksThisRun = completed.get() - resumed.get();
+
+            String state = !isFinished() ? "RUNNING" : failed.get() > 0 ? "FAILED" : "COMPLETED";
+            return BackfillProgress.builder()
+                .jobId(id)
+                .product(product)
+                .stationIds(stations)
+                .from(from.toString())
+                .to(to.toString())
+                .state(state)
+                .totalChunks(chunks.size())
+                .completedChunks(completed.get())
+                .resumedChunks(resumed.get())
+                .failedChunks(failed.get())
+                .rowsStored(rows.get())
+                .elapsedMillis(elapsedMillis)
+                .rowsPerSecond(rows.get() / seconds)
+                .chunksPerSecond(chunksThisRun / seconds)
+                .errors(new ArrayList<>(errors))
+                .build();
+        }
+    }
+}
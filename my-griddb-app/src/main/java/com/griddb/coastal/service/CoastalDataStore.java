@@ -0,0 +1,71 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.StationMetadata;
+import com.griddb.coastal.model.WaterLevelAggregateSeries;
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelRollupSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A storage engine for water levels, their rollups, monthly means and station
+ * metadata. {@link StorageService} picks one with {@code storage.engine} and adds
+ * caching, rollup selection and ingest notifications on top; everything else goes
+ * through it rather than an engine directly.
+ */
+public interface CoastalDataStore {
+
+    /**
+     * Upserts readings, keyed by station and timestamp
+     *
+     * @return true if every row was stored
+     */
+    boolean storeWaterLevelData(List<WaterLevelData> waterLevels);
+
+    /**
+     * Upserts monthly means, keyed by station and month
+     *
+     * @return true if every row was stored
+     */
+    boolean storeMonthlyMeanData(List<MonthlyMeanData> monthlyData);
+
+    void storeStationMetadata(List<StationMetadata> stations);
+
+    /**
+     * Raw readings of the last {@code hours}, oldest first
+     */
+    WaterLevelSeries loadWaterLevelSeries(String stationId, int hours) throws Exception;
+
+    /**
+     * Raw readings with from <= timestamp < to, oldest first; at most
+     * {@code griddb.query.max.rows}, the oldest ones when there are more
+     */
+    WaterLevelSeries loadWaterLevelRange(String stationId, long fromMillis, long toMillis) throws Exception;
+
+    /**
+     * Monthly means of the last {@code years}, oldest first
+     */
+    MonthlyMeanSeries queryMonthlyMeanSeries(String stationId, int years) throws Exception;
+
+    /**
+     * Rollup buckets starting in [from, to), oldest first
+     */
+    WaterLevelRollupSeries queryRollups(String stationId, RollupResolution resolution,
+                                        long fromMillis, long toMillis) throws Exception;
+
+    /**
+     * Upserts rollup buckets, keyed by bucket start
+     */
+    void storeRollups(RollupResolution resolution, WaterLevelRollupSeries rollups) throws Exception;
+
+    /**
+     * Readings in [from, to) aggregated into buckets aligned to {@code from}; empty
+     * buckets are left out. Arguments are already validated.
+     */
+    WaterLevelAggregateSeries aggregateWaterLevels(String stationId, LocalDateTime from, LocalDateTime to,
+                                                   TimeBucket bucket, List<String> functions) throws Exception;
+}
@@ -0,0 +1,321 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact columnar encoding of a station's series, served instead of JSON when a
+ * client sends {@code Accept: application/vnd.coastal.columnar}.
+ *
+ * <pre>
+ * magic       4 bytes   "CSTS"
+ * version     u8        1
+ * kind        u8        1 = water levels, 2 = monthly means
+ * stationId   string    varint byte length + UTF-8 (length 0 if absent)
+ * stationName string
+ * datum       string    empty for monthly means
+ * latitude    float64   big-endian, NaN if unknown
+ * longitude   float64
+ * count       varint
+ * scale       varint    values are stored as round(value * scale)
+ * timestamps  count &gt; 0: int64 epoch millis of the first row, then count - 1 zigzag
+ *                       varints: delta-of-delta, with the delta before the second row taken as 0
+ * present     ceil(count / 8) bytes, bit i (least significant first) set if row i has a value
+ * values      one zigzag varint per present row: scaled value minus the previous present
+ *                       one (minus 0 for the first)
+ * flags       kind 1 only: varint dictionary size, that many strings, then count varint
+ *                       indexes into the dictionary
+ * </pre>
+ *
+ * Varints are unsigned LEB128; zigzag maps n to (n &lt;&lt; 1) ^ (n &gt;&gt; 63). Regular
+ * 6-minute readings cost about three bytes a row: one for the timestamp, one for the
+ * change in level, one for the flag index. Values keep {@code scale} = 1000, the
+ * millimeter precision NOAA publishes.
+ */
+public final class ColumnarCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.coastal.columnar";
+
+    private static final byte[] MAGIC = {'C', 'S', 'T', 'S'};
+    private static final int VERSION = 1;
+    private static final int KIND_WATER_LEVELS = 1;
+    private static final int KIND_MONTHLY_MEANS = 2;
+    private static final int SCALE = 1000;
+
+    private ColumnarCodec() {
+    }
+
+    public static void write(WaterLevelSeries series, OutputStream target) throws IOException {
+        Writer out = new Writer(target);
+        out.header(KIND_WATER_LEVELS, series.getStationId(), series.getStationName(), series.getDatum(),
+            series.getLatitude(), series.getLongitude(), series.getSize());
+        out.timestamps(series.getTimestamps(), series.getSize());
+        out.values(series.getWaterLevels(), series.getSize());
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        int[] indexes = new int[series.getSize()];
+        for (int i = 0; i < series.getSize(); i++) {
+            String flag = series.getFlags() != null && series.getFlags()[i] != null ? series.getFlags()[i] : "";
+            Integer index = dictionary.get(flag);
+            if (index == null) {
+                index = entries.size();
+                dictionary.put(flag, index);
+                entries.add(flag);
+            }
+            indexes[i] = index;
+        }
+        out.varint(entries.size());
+        for (String entry : entries) {
+            out.string(entry);
+        }
+        for (int i = 0; i < series.getSize(); i++) {
+            out.varint(indexes[i]);
+        }
+        out.flush();
+    }
+
+    public static void write(MonthlyMeanSeries series, OutputStream target) throws IOException {
+        Writer out = new Writer(target);
+        out.header(KIND_MONTHLY_MEANS, series.getStationId(), series.getStationName(), null,
+            series.getLatitude(), series.getLongitude(), series.getSize());
+        out.timestamps(series.getMonths(), series.getSize());
+        out.values(series.getMeanSeaLevels(), series.getSize());
+        out.flush();
+    }
+
+    public static WaterLevelSeries readWaterLevels(InputStream source) throws IOException {
+        Reader in = new Reader(source);
+        in.header(KIND_WATER_LEVELS);
+        String stationId = in.string();
+        String stationName = in.string();
+        String datum = in.string();
+        Double latitude = in.coordinate();
+        Double longitude = in.coordinate();
+        int size = Math.toIntExact(in.varint());
+        int scale = Math.toIntExact(in.varint());
+        long[] timestamps = in.timestamps(size);
+        double[] levels = in.values(size, scale);
+
+        String[] dictionary = new String[Math.toIntExact(in.varint())];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.string();
+        }
+        String[] flags = new String[size];
+        for (int i = 0; i < size; i++) {
+            flags[i] = dictionary[Math.toIntExact(in.varint())];
+        }
+        return WaterLevelSeries.builder()
+            .stationId(stationId)
+            .stationName(stationName)
+            .datum(datum)
+            .latitude(latitude)
+            .longitude(longitude)
+            .size(size)
+            .timestamps(timestamps)
+            .waterLevels(levels)
+            .flags(flags)
+            .build();
+    }
+
+    public static MonthlyMeanSeries readMonthlyMeans(InputStream source) throws IOException {
+        Reader in = new Reader(source);
+        in.header(KIND_MONTHLY_MEANS);
+        String stationId = in.string();
+        String stationName = in.string();
+        in.string(); // datum
+        Double latitude = in.coordinate();
+        Double longitude = in.coordinate();
+        int size = Math.toIntExact(in.varint());
+        int scale = Math.toIntExact(in.varint());
+        long[] months = in.timestamps(size);
+        double[] levels = in.values(size, scale);
+        return MonthlyMeanSeries.builder()
+            .stationId(stationId)
+            .stationName(stationName)
+            .latitude(latitude)
+            .longitude(longitude)
+            .size(size)
+            .months(months)
+            .meanSeaLevels(levels)
+            .build();
+    }
+
+    private static final class Writer {
+        final OutputStream out;
+
+        Writer(OutputStream target) {
+            out = new BufferedOutputStream(target, 8192);
+        }
+
+        void header(int kind, String stationId, String stationName, String datum,
+                    Double latitude, Double longitude, int size) throws IOException {
+            out.write(MAGIC);
+            out.write(VERSION);
+            out.write(kind);
+            string(stationId);
+            string(stationName);
+            string(datum);
+            float64(latitude != null ? latitude : Double.NaN);
+            float64(longitude != null ? longitude : Double.NaN);
+            varint(size);
+            varint(SCALE);
+        }
+
+        void timestamps(long[] t, int size) throws IOException {
+            if (size == 0) return;
+            int64(t[0]);
+            long previousDelta = 0;
+            for (int i = 1; i < size; i++) {
+                long delta = t[i] - t[i - 1];
+                varint(zigzag(delta - previousDelta));
+                previousDelta = delta;
+            }
+        }
+
+        void values(double[] v, int size) throws IOException {
+            byte[] present = new byte[(size + 7) / 8];
+            for (int i = 0; i < size; i++) {
+                if (!Double.isNaN(v[i])) present[i >> 3] |= (byte) (1 << (i & 7));
+            }
+            out.write(present);
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                if (Double.isNaN(v[i])) continue;
+                long scaled = Math.round(v[i] * SCALE);
+                varint(zigzag(scaled - previous));
+                previous = scaled;
+            }
+        }
+
+        void string(String s) throws IOException {
+            byte[] bytes = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            out.write(bytes);
+        }
+
+        void varint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void int64(long value) throws IOException {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (value >>> shift));
+            }
+        }
+
+        void float64(double value) throws IOException {
+            int64(Double.doubleToLongBits(value));
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        static long zigzag(long n) {
+            return (n << 1) ^ (n >> 63);
+        }
+    }
+
+    private static final class Reader {
+        final InputStream in;
+
+        Reader(InputStream source) {
+            in = new BufferedInputStream(source, 8192);
+        }
+
+        void header(int expectedKind) throws IOException {
+            for (byte b : MAGIC) {
+                if (read() != b) throw new IOException("Not a columnar series");
+            }
+            int version = read();
+            if (version != VERSION) throw new IOException("Unsupported columnar version " + version);
+            int kind = read();
+            if (kind != expectedKind) throw new IOException("Expected series kind " + expectedKind + " but got " + kind);
+        }
+
+        long[] timestamps(int size) throws IOException {
+            long[] t = new long[size];
+            if (size == 0) return t;
+            t[0] = int64();
+            long delta = 0;
+            for (int i = 1; i < size; i++) {
+                delta += unzigzag(varint());
+                t[i] = t[i - 1] + delta;
+            }
+            return t;
+        }
+
+        double[] values(int size, int scale) throws IOException {
+            byte[] present = in.readNBytes((size + 7) / 8);
+            if (present.length < (size + 7) / 8) throw new EOFException();
+            double[] v = new double[size];
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                if ((present[i >> 3] & (1 << (i & 7))) == 0) {
+                    v[i] = Double.NaN;
+                    continue;
+                }
+                previous += unzigzag(varint());
+                v[i] = (double) previous / scale;
+            }
+            return v;
+        }
+
+        String string() throws IOException {
+            int length = Math.toIntExact(varint());
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) throw new EOFException();
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Double coordinate() throws IOException {
+            double value = Double.longBitsToDouble(int64());
+            return Double.isNaN(value) ? null : value;
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        long int64() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | read();
+            }
+            return value;
+        }
+
+        int read() throws IOException {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            return b;
+        }
+
+        static long unzigzag(long n) {
+            return (n >>> 1) ^ -(n & 1);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.griddb.coastal.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.StationMetadata;
+import com.griddb.coastal.model.WaterLevelSeries;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the serialized {@code /api/dashboard-data} payload.
+ *
+ * The payload only changes when the scheduler ingests, so it is rebuilt once at the
+ * end of each ingestion cycle and every poll is served the same bytes, with a strong
+ * ETag derived from their hash. A rebuild whose station data matches the current
+ * snapshot keeps it, {@code lastUpdated} and ETag included, so conditional requests
+ * keep getting 304 until something actually changes. Custom station subsets are
+ * assembled from the current snapshot's per-station parts without querying again.
+ */
+@Service
+public class DashboardSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+    @Autowired
+    private StationRegistry stationRegistry;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Value("${dashboard.query.concurrency:8}")
+    private int queryConcurrency;
+
+    @Value("${dashboard.query.timeout.ms:5000}")
+    private long queryTimeoutMs;
+
+    @Value("${dashboard.build.timeout.ms:30000}")
+    private long buildTimeoutMs;
+
+    public record Snapshot(byte[] body, String etag, long builtAt) {
+    }
+
+    /**
+     * One build: each station's serialized object, in monitored order, and the full
+     * payload assembled from them
+     */
+    private record Generation(List<String> stationIds, List<byte[]> parts, boolean[] degraded,
+                              byte[] dataDigest, Snapshot snapshot) {
+    }
+
+    @FunctionalInterface
+    private interface Query<T> {
+        T run() throws Exception;
+    }
+
+    private volatile Generation generation;
+
+    private ExecutorService queryExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        queryExecutor = Executors.newFixedThreadPool(queryConcurrency, r -> {
+            Thread t = new Thread(r, "dashboard-query-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queryExecutor.shutdownNow();
+    }
+
+    /**
+     * The latest snapshot, built on first use if no ingestion cycle has finished yet
+     */
+    public Snapshot current() throws IOException {
+        Generation current = generation;
+        if (current != null) return current.snapshot();
+        synchronized (this) {
+            // Requests that queued up behind the first build use its result
+            current = generation;
+            return current != null ? current.snapshot() : rebuild();
+        }
+    }
+
+    /**
+     * Queries every station once and replaces the snapshot, unless the data is unchanged
+     */
+    public synchronized Snapshot rebuild() throws IOException {
+        Generation built = build(stationRegistry.monitoredStations());
+        Generation previous = generation;
+        if (previous != null && MessageDigest.isEqual(previous.dataDigest(), built.dataDigest())) {
+            logger.debug("Dashboard data unchanged; keeping snapshot {}", previous.snapshot().etag());
+            return previous.snapshot();
+        }
+        generation = built;
+        return built.snapshot();
+    }
+
+    /**
+     * The payload for a subset of the monitored stations, taken from the current snapshot;
+     * unknown ids are ignored
+     */
+    public Snapshot build(Collection<String> stationIds) throws IOException {
+        Set<String> wanted = new HashSet<>(stationIds);
+        current();
+        Generation current = generation;
+        List<byte[]> parts = new ArrayList<>();
+        int degraded = 0;
+        for (int i = 0; i < current.stationIds().size(); i++) {
+            if (!wanted.contains(current.stationIds().get(i))) continue;
+            parts.add(current.parts().get(i));
+            if (current.degraded()[i]) degraded++;
+        }
+        byte[] body = assemble(parts, current.snapshot().builtAt(), degraded);
+        return new Snapshot(body, etag(digest(body)), current.snapshot().builtAt());
+    }
+
+    /**
+     * Runs all 2N station queries on the query pool. Each query's deadline starts when
+     * it starts running, and the build as a whole gives up after
+     * {@code dashboard.build.timeout.ms}, dropping queries still waiting for a thread.
+     * A station whose query fails or times out is written with an error for that part
+     * and flagged as degraded.
+     */
+    private Generation build(List<StationMetadata> stations) throws IOException {
+        long start = System.currentTimeMillis();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(buildTimeoutMs);
+
+        List<CompletableFuture<WaterLevelSeries>> latest = new ArrayList<>(stations.size());
+        List<CompletableFuture<MonthlyMeanSeries>> trends = new ArrayList<>(stations.size());
+        for (StationMetadata station : stations) {
+            // Latest water level, and the monthly trend (last 2 years for quick overview)
+            latest.add(query(() -> storageService.queryWaterLevelSeries(station.getStationId(), 1)));
+            trends.add(query(() -> storageService.queryMonthlyMeanSeries(station.getStationId(), 2)));
+        }
+
+        List<String> stationIds = new ArrayList<>(stations.size());
+        List<byte[]> parts = new ArrayList<>(stations.size());
+        boolean[] degraded = new boolean[stations.size()];
+        int degradedCount = 0;
+        MessageDigest data = sha256();
+        for (int i = 0; i < stations.size(); i++) {
+            StationMetadata station = stations.get(i);
+            CompletableFuture<WaterLevelSeries> stationLatest = latest.get(i);
+            CompletableFuture<MonthlyMeanSeries> stationTrend = trends.get(i);
+            boolean[] ok = {true};
+            ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+            GridDBRowCodec.write(out, gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("stationId", station.getStationId());
+                gen.writeStringField("stationName", station.getStationName());
+                gen.writeStringField("state", station.getState());
+                gen.writeObjectField("latitude", station.getLatitude());
+                gen.writeObjectField("longitude", station.getLongitude());
+
+                gen.writeFieldName("latestWaterLevel");
+                ok[0] = writeResult(gen, station, "latest water levels", stationLatest, deadline,
+                    series -> GridDBRowCodec.writeWaterLevelResults(series, gen));
+                gen.writeFieldName("monthlyTrend");
+                ok[0] &= writeResult(gen, station, "monthly trends", stationTrend, deadline,
+                    series -> GridDBRowCodec.writeMonthlyMeanResults(series, gen));
+
+                gen.writeBooleanField("degraded", !ok[0]);
+                gen.writeEndObject();
+            });
+            byte[] part = out.toByteArray();
+            stationIds.add(station.getStationId());
+            parts.add(part);
+            data.update(part);
+            degraded[i] = !ok[0];
+            if (!ok[0]) degradedCount++;
+        }
+
+        byte[] body = assemble(parts, start, degradedCount);
+        logger.debug("Built dashboard payload for {} stations: {} bytes in {} ms, {} degraded",
+            stations.size(), body.length, System.currentTimeMillis() - start, degradedCount);
+        return new Generation(List.copyOf(stationIds), List.copyOf(parts), degraded, data.digest(),
+            new Snapshot(body, etag(digest(body)), start));
+    }
+
+    /**
+     * {"stations":[parts],"lastUpdated":...,"totalStations":...,"degradedStations":...}
+     */
+    private static byte[] assemble(List<byte[]> parts, long lastUpdated, int degraded) {
+        int size = 64;
+        for (byte[] part : parts) size += part.length + 1;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.writeBytes("{\"stations\":[".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(parts.get(i));
+        }
+        out.writeBytes(("],\"lastUpdated\":" + lastUpdated + ",\"totalStations\":" + parts.size()
+            + ",\"degradedStations\":" + degraded + "}").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    /**
+     * Runs the query on the query pool. Its deadline starts when a pool thread picks it
+     * up, so time spent queued behind other stations' queries doesn't count. At the
+     * deadline, or when the build gives up on it, the result fails and the query's thread
+     * is interrupted, so a hung GridDB call doesn't hold a pool thread into later rebuilds.
+     */
+    private <T> CompletableFuture<T> query(Query<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = queryExecutor.submit(() -> {
+            if (result.isDone()) return; // the build gave up while this was queued
+            result.orTimeout(queryTimeoutMs, TimeUnit.MILLISECONDS);
+            try {
+                result.complete(query.run());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, e) -> {
+            if (e != null) task.cancel(true);
+        });
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface ResultWriter<T> {
+        void write(T result) throws IOException;
+    }
+
+    /**
+     * Writes a query's result, or an error object if it failed, missed its deadline or
+     * was still unfinished when the build's deadline passed
+     *
+     * @return true if the result was written
+     */
+    private <T> boolean writeResult(JsonGenerator gen, StationMetadata station, String what,
+                                    CompletableFuture<T> result, long deadline,
+                                    ResultWriter<T> writer) throws IOException {
+        T value;
+        try {
+            value = result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            String message = "Not finished within the " + buildTimeoutMs + " ms build deadline";
+            logger.error("Error querying {} for station {}: {}", what, station.getStationId(), message);
+            writeError(gen, message);
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            String message = cause instanceof TimeoutException
+                ? "Timed out after " + queryTimeoutMs + " ms" : cause.getMessage();
+            logger.error("Error querying {} for station {}: {}", what, station.getStationId(), message);
+            writeError(gen, message);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building the dashboard payload", e);
+        }
+        writer.write(value);
+        return true;
+    }
+
+    private static void writeError(JsonGenerator gen, String message) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("error", String.valueOf(message));
+        gen.writeEndObject();
+    }
+
+    private static String etag(byte[] digest) {
+        return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    }
+
+    private static byte[] digest(byte[] body) {
+        return sha256().digest(body);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
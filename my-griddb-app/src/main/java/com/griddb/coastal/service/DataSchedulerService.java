@@ -3,63 +3,114 @@ package com.griddb.coastal.service;
 import com.griddb.coastal.model.WaterLevelData;
 import com.griddb.coastal.model.MonthlyMeanData;
 import com.griddb.coastal.model.StationMetadata;
+import com.griddb.coastal.model.WaterLevelSeries;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Runs the ingestion cycles: the startup catch-up and the scheduled water level and
+ * monthly mean collections.
+ *
+ * Each cycle is timed as {@code coastal.scheduler.cycle}. A scheduled cycle still
+ * running when its cron next fires is counted in {@code coastal.scheduler.overruns},
+ * and stations whose fetch failed in {@code coastal.scheduler.stations.skipped}.
+ */
 @Service
 public class DataSchedulerService {
     
     private static final Logger logger = LoggerFactory.getLogger(DataSchedulerService.class);
     
+    // NOAA serves at most 31 days of 6-minute data per request
+    private static final int MAX_WATER_LEVEL_DAYS = 31;
+    
+    @Value("${scheduler.water.level.cron}")
+    private String waterLevelCron;
+    
+    @Value("${scheduler.monthly.mean.cron}")
+    private String monthlyMeanCron;
+    
     @Autowired
     private NOAADataService noaaDataService;
     
     @Autowired
-    private GridDBService gridDBService;
+    private StationRegistry stationRegistry;
+    
+    @Autowired
+    private StorageService storageService;
+    
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+    
+    @Autowired
+    private WatermarkStore watermarkStore;
+    
+    @Autowired
+    private HotWindowCache hotWindowCache;
+    
+    @Autowired
+    private DashboardSnapshotService dashboardSnapshotService;
+    
+    @Autowired
+    private SeaLevelTrendService seaLevelTrendService;
+    
+    @Autowired
+    private SurgeDetector surgeDetector;
+    
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+    
+    @Autowired
+    private ExecutorService ingestionExecutor;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
     
  
-    @PostConstruct
+    /**
+     * Runs once the context is up rather than in {@code @PostConstruct}: a large first
+     * load blocks on write-behind capacity, and the flushes that free it publish events,
+     * which cannot happen while the context is still creating beans
+     */
+    @EventListener(ApplicationReadyEvent.class)
     public void initializeData() {
         logger.info("🚀 Initializing Coastal Monitor Data Collection...");
+        long start = System.nanoTime();
         
         // Load and store station metadata
-        List<StationMetadata> stations = noaaDataService.getConfiguredStations();
-     gridDBService.storeStationMetadata(stations);
-        
-        // Load initial historical data (last 7 days) for each station
-         for (StationMetadata station : stations) {
-            try {
-                logger.info("Loading initial data for station: {}", station.getStationName());
-                
-                // Load recent water levels
-                List<WaterLevelData> recentData = noaaDataService.fetchRecentWaterLevels(
-                    station.getStationId(), 7);
-                if (!recentData.isEmpty()) {
-                    gridDBService.storeWaterLevelData(recentData);
-                }
-                
-                // Load monthly trends (last 5 years)
-                List<MonthlyMeanData> monthlyData = noaaDataService.fetchMonthlyMeanData(
-                    station.getStationId(), 5);
-                if (!monthlyData.isEmpty()) {
-                    gridDBService.storeMonthlyMeanData(monthlyData);
-                }
-                
-                // Small delay to avoid overwhelming NOAA API
-                Thread.sleep(2000);
-                
-            } catch (Exception e) {
-                logger.error("Error initializing data for station {}: {}", 
-                    station.getStationId(), e.getMessage());
-            }
-        }
+        List<StationMetadata> stations = stationRegistry.monitoredStations();
+        storageService.storeStationMetadata(stations);
+        
+        // Catch up from each station's watermark; stations seen for the first time
+        // get the last 7 days of readings and 5 years of monthly trends
+        forEachStation("startup", WatermarkStore.WATER_LEVEL, stations, station -> {
+            logger.info("Loading initial data for station: {}", station.getStationName());
+            warmHotWindow(station);
+            seedTrend(station);
+            seedSurgeDetector(station);
+            return ingestWaterLevels(station, 7);
+        });
+        forEachStation("startup", WatermarkStore.MONTHLY_MEAN, stations, station -> ingestMonthlyMeans(station, 5));
         
+        rebuildDashboardSnapshot();
+        recordCycle("startup", null, start);
         logger.info("✅ Initial data loading completed!");
     }
     
@@ -67,30 +118,14 @@ public class DataSchedulerService {
     @Scheduled(cron = "${scheduler.water.level.cron}")
     public void fetchLatestWaterLevels() {
         logger.info("🌊 Scheduled task: Fetching latest water levels...");
+        long start = System.nanoTime();
         
-        List<StationMetadata> stations = noaaDataService.getConfiguredStations();
-        int totalRecords = 0;
-        
-        for (StationMetadata station : stations) {
-            try {
-                List<WaterLevelData> latestData = noaaDataService.fetchLatestWaterLevels(
-                    station.getStationId());
-                
-                if (!latestData.isEmpty()) {
-                    gridDBService.storeWaterLevelData(latestData);
-                    totalRecords += latestData.size();
-                    logger.debug("Updated {} records for {}", latestData.size(), station.getStationName());
-                }
-                
-                // Rate limiting
-                Thread.sleep(1000);
-                
-            } catch (Exception e) {
-                logger.error("Error fetching latest data for station {}: {}", 
-                    station.getStationId(), e.getMessage());
-            }
-        }
+        List<StationMetadata> stations = stationRegistry.monitoredStations();
+        int totalRecords = forEachStation(WatermarkStore.WATER_LEVEL, WatermarkStore.WATER_LEVEL, stations,
+            station -> ingestWaterLevels(station, 1));
         
+        rebuildDashboardSnapshot();
+        recordCycle(WatermarkStore.WATER_LEVEL, waterLevelCron, start);
         logger.info("✅ Collected {} new water level records", totalRecords);
     }
     
@@ -100,32 +135,14 @@ public class DataSchedulerService {
     @Scheduled(cron = "${scheduler.monthly.mean.cron}")
     public void updateMonthlyMeanData() {
         logger.info("📊 Scheduled task: Updating monthly mean data...");
+        long start = System.nanoTime();
         
-        List<StationMetadata> stations = noaaDataService.getConfiguredStations();
-        int totalRecords = 0;
-        
-        for (StationMetadata station : stations) {
-            try {
-                // Fetch last 6 months of monthly data to catch any updates
-                List<MonthlyMeanData> monthlyData = noaaDataService.fetchMonthlyMeanData(
-                    station.getStationId(), 1); // 1 year to ensure we get recent months
-                
-                if (!monthlyData.isEmpty()) {
-                    gridDBService.storeMonthlyMeanData(monthlyData);
-                    totalRecords += monthlyData.size();
-                    logger.debug("Updated {} monthly records for {}", 
-                        monthlyData.size(), station.getStationName());
-                }
-                
-                // Rate limiting
-                Thread.sleep(2000);
-                
-            } catch (Exception e) {
-                logger.error("Error updating monthly data for station {}: {}", 
-                    station.getStationId(), e.getMessage());
-            }
-        }
+        List<StationMetadata> stations = stationRegistry.monitoredStations();
+        int totalRecords = forEachStation(WatermarkStore.MONTHLY_MEAN, WatermarkStore.MONTHLY_MEAN, stations,
+            station -> ingestMonthlyMeans(station, 1));
         
+        rebuildDashboardSnapshot();
+        recordCycle(WatermarkStore.MONTHLY_MEAN, monthlyMeanCron, start);
         logger.info("✅ Updated {} monthly mean records", totalRecords);
     }
     
@@ -140,4 +157,176 @@ public class DataSchedulerService {
         logger.info("🔄 Manual trigger: Updating monthly data for all stations...");
         updateMonthlyMeanData();
     }
-}
\ No newline at end of file
+    
+    /**
+     * Fetches the readings published since the station's watermark (or the last
+     * {@code initialDays} if it has none) and hands the new ones to the write-behind
+     * buffer; the watermark advances once they are safe.
+     *
+     * @return number of new readings submitted, once they have been written to the store
+     */
+    private CompletableFuture<Integer> ingestWaterLevels(StationMetadata station, int initialDays) throws Exception {
+        String stationId = station.getStationId();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime watermark = watermarkStore.get(stationId, WatermarkStore.WATER_LEVEL);
+        
+        LocalDateTime begin = watermark != null ? watermark : now.minusDays(initialDays);
+        if (begin.isBefore(now.minusDays(MAX_WATER_LEVEL_DAYS))) {
+            logger.warn("Station {} is more than {} days behind; older readings need a backfill",
+                stationId, MAX_WATER_LEVEL_DAYS);
+            begin = now.minusDays(MAX_WATER_LEVEL_DAYS);
+        }
+        
+        List<WaterLevelData> newData = noaaDataService.requestWaterLevels(stationId, begin, now).stream()
+            .filter(wl -> watermark == null || wl.getTimestamp().isAfter(watermark))
+            .toList();
+        if (newData.isEmpty()) return CompletableFuture.completedFuture(0);
+        
+        // The watermark only moves once the write-behind buffer has the rows safe (journaled or stored)
+        List<WaterLevelData> sorted = newData.stream().sorted(Comparator.comparing(WaterLevelData::getTimestamp)).toList();
+        LocalDateTime latest = sorted.get(sorted.size() - 1).getTimestamp();
+        WriteBehindBuffer.Submission submission = writeBehindBuffer.submitWaterLevels(newData);
+        submission.safe().thenAccept(safe -> {
+            if (safe) {
+                watermarkStore.advance(stationId, WatermarkStore.WATER_LEVEL, latest);
+                liveUpdateService.publishReadings(station, sorted);
+                logger.debug("Updated {} records for {}", newData.size(), station.getStationName());
+            }
+        });
+        surgeDetector.accept(sorted);
+        hotWindowCache.append(sorted);
+        return submission.stored().thenApply(stored -> newData.size());
+    }
+    
+    private void rebuildDashboardSnapshot() {
+        try {
+            dashboardSnapshotService.rebuild();
+        } catch (Exception e) {
+            logger.error("Error rebuilding dashboard snapshot: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Loads the station's stored monthly history into its sea level trend
+     */
+    private void seedTrend(StationMetadata station) {
+        try {
+            seaLevelTrendService.accept(storageService.queryMonthlyMeanSeries(
+                station.getStationId(), seaLevelTrendService.getHistoryYears()));
+        } catch (Exception e) {
+            logger.warn("Could not seed sea level trend for station {}: {}", station.getStationId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Loads the station's recent stored readings into the surge detector's statistics
+     */
+    private void seedSurgeDetector(StationMetadata station) {
+        if (!surgeDetector.isEnabled()) return;
+        
+        try {
+            surgeDetector.train(storageService.loadWaterLevelSeries(station.getStationId(), surgeDetector.getSeedDays() * 24));
+        } catch (Exception e) {
+            logger.warn("Could not seed surge detector for station {}: {}", station.getStationId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Fills the station's hot window with its recent readings from GridDB
+     */
+    private void warmHotWindow(StationMetadata station) {
+        if (!hotWindowCache.isEnabled()) return;
+        
+        int hours = hotWindowCache.getWindowHours();
+        try {
+            WaterLevelSeries series = storageService.loadWaterLevelSeries(station.getStationId(), hours);
+            // Taken after the query, so the claimed range never starts before what was asked for
+            hotWindowCache.warm(series, System.currentTimeMillis() - hours * 3_600_000L);
+        } catch (Exception e) {
+            logger.warn("Could not warm hot window for station {}: {}", station.getStationId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Fetches the monthly means published since the station's watermark (or the last
+     * {@code initialYears} if it has none) and hands the new ones to the write-behind
+     * buffer; the watermark advances once they are safe.
+     *
+     * @return number of new months submitted, once they have been written to the store
+     */
+    private CompletableFuture<Integer> ingestMonthlyMeans(StationMetadata station, int initialYears) throws Exception {
+        String stationId = station.getStationId();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDateTime watermark = watermarkStore.get(stationId, WatermarkStore.MONTHLY_MEAN);
+        
+        LocalDate begin = watermark != null ? watermark.toLocalDate() : today.minusYears(initialYears);
+        List<MonthlyMeanData> newData = noaaDataService.requestMonthlyMeanData(stationId, begin, today).stream()
+            .filter(mm -> watermark == null || mm.getMonth().atStartOfDay().isAfter(watermark))
+            .toList();
+        if (newData.isEmpty()) return CompletableFuture.completedFuture(0);
+        
+        LocalDate latest = newData.stream().map(MonthlyMeanData::getMonth).max(Comparator.naturalOrder()).get();
+        WriteBehindBuffer.Submission submission = writeBehindBuffer.submitMonthlyMeans(newData);
+        submission.safe().thenAccept(safe -> {
+            if (safe) {
+                watermarkStore.advance(stationId, WatermarkStore.MONTHLY_MEAN, latest.atStartOfDay());
+                logger.debug("Updated {} monthly records for {}", newData.size(), station.getStationName());
+            }
+        });
+        return submission.stored().thenApply(stored -> newData.size());
+    }
+    
+    /**
+     * Runs the task for every station on the ingestion pool and waits for all of them and
+     * for the writes of the rows they submitted, so that what follows (the dashboard
+     * snapshot) reads what the cycle fetched. NOAA request pacing is applied per host by
+     * the HTTP transport, so no sleeps here.
+     *
+     * @return sum of the per-station record counts
+     */
+    private int forEachStation(String cycle, String product, List<StationMetadata> stations, StationTask task) {
+        List<CompletableFuture<Integer>> results = stations.stream()
+            .map(station -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.run(station);
+                } catch (Exception e) {
+                    logger.error("Error ingesting {} data for station {}: {}",
+                        product, station.getStationId(), e.getMessage());
+                    meterRegistry.counter("coastal.scheduler.stations.skipped", "cycle", cycle, "product", product)
+                        .increment();
+                    return CompletableFuture.completedFuture(0);
+                }
+            }, ingestionExecutor).thenCompose(stored -> stored))
+            .toList();
+        
+        int total = results.stream().mapToInt(CompletableFuture::join).sum();
+        // One write of the watermark file per cycle rather than one per station
+        watermarkStore.flush();
+        return total;
+    }
+    
+    @FunctionalInterface
+    private interface StationTask {
+        CompletableFuture<Integer> run(StationMetadata station) throws Exception;
+    }
+    
+    /**
+     * Times a cycle that started at {@code startNanos} and, for a scheduled one, checks it
+     * finished before its cron fired again (the scheduler skips a firing that finds the
+     * previous run still going)
+     */
+    private void recordCycle(String cycle, String cron, long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Timer.builder("coastal.scheduler.cycle").tag("cycle", cycle).register(meterRegistry)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        
+        if (cron == null || Scheduled.CRON_DISABLED.equals(cron)) return;
+        LocalDateTime started = LocalDateTime.now().minusNanos(elapsedNanos);
+        LocalDateTime nextFiring = CronExpression.parse(cron).next(started);
+        if (nextFiring != null && LocalDateTime.now().isAfter(nextFiring)) {
+            meterRegistry.counter("coastal.scheduler.overruns", "cycle", cycle).increment();
+            logger.warn("The {} cycle took {} s and overran its next scheduled run at {}",
+                cycle, TimeUnit.NANOSECONDS.toSeconds(elapsedNanos), nextFiring);
+        }
+    }
+}
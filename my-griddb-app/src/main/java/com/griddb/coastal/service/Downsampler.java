@@ -0,0 +1,163 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+
+import java.util.Arrays;
+
+/**
+ * Shape-preserving downsampling of chart series.
+ *
+ * Both methods pick a subset of the original points (nothing is averaged away, so
+ * peaks and flags stay real readings) and work on the series columns directly: one
+ * pass to choose indices into an {@code int[]}, one copy into right-sized arrays.
+ * Missing values (NaN) are never chosen over a real reading.
+ */
+public final class Downsampler {
+
+    public static final String LTTB = "lttb";
+    public static final String MIN_MAX = "minmax";
+
+    private Downsampler() {
+    }
+
+    public static WaterLevelSeries downsample(WaterLevelSeries series, int points, String method) {
+        if (points <= 0 || series.getSize() <= points) return series;
+
+        int[] keep = select(series.getTimestamps(), series.getWaterLevels(), series.getSize(), points, method);
+        long[] timestamps = new long[keep.length];
+        double[] waterLevels = new double[keep.length];
+        String[] flags = new String[keep.length];
+        for (int i = 0; i < keep.length; i++) {
+            timestamps[i] = series.getTimestamps()[keep[i]];
+            waterLevels[i] = series.getWaterLevels()[keep[i]];
+            flags[i] = series.getFlags()[keep[i]];
+        }
+        return WaterLevelSeries.builder()
+            .stationId(series.getStationId())
+            .stationName(series.getStationName())
+            .datum(series.getDatum())
+            .latitude(series.getLatitude())
+            .longitude(series.getLongitude())
+            .size(keep.length)
+            .timestamps(timestamps)
+            .waterLevels(waterLevels)
+            .flags(flags)
+            .build();
+    }
+
+    public static MonthlyMeanSeries downsample(MonthlyMeanSeries series, int points, String method) {
+        if (points <= 0 || series.getSize() <= points) return series;
+
+        int[] keep = select(series.getMonths(), series.getMeanSeaLevels(), series.getSize(), points, method);
+        long[] months = new long[keep.length];
+        double[] meanSeaLevels = new double[keep.length];
+        for (int i = 0; i < keep.length; i++) {
+            months[i] = series.getMonths()[keep[i]];
+            meanSeaLevels[i] = series.getMeanSeaLevels()[keep[i]];
+        }
+        return MonthlyMeanSeries.builder()
+            .stationId(series.getStationId())
+            .stationName(series.getStationName())
+            .latitude(series.getLatitude())
+            .longitude(series.getLongitude())
+            .size(keep.length)
+            .months(months)
+            .meanSeaLevels(meanSeaLevels)
+            .build();
+    }
+
+    private static int[] select(long[] x, double[] y, int size, int points, String method) {
+        if (MIN_MAX.equalsIgnoreCase(method)) return minMax(y, size, points);
+        if (method == null || LTTB.equalsIgnoreCase(method)) return lttb(x, y, size, points);
+        throw new IllegalArgumentException("Unknown downsampling method: " + method);
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets: keeps the first and last points and, from each of
+     * the {@code points - 2} buckets in between, the point forming the largest triangle
+     * with the previously kept point and the average of the next bucket. Fewer than 3
+     * points leave no bucket in between, so only the first and last are kept.
+     */
+    static int[] lttb(long[] x, double[] y, int size, int points) {
+        if (points < 3) return size > 1 ? new int[] {0, size - 1} : new int[] {0};
+        int[] keep = new int[points];
+        double bucketSize = (double) (size - 2) / (points - 2);
+
+        int previous = 0;
+        keep[0] = 0;
+        for (int bucket = 0; bucket < points - 2; bucket++) {
+            int from = (int) (bucket * bucketSize) + 1;
+            int to = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket (the last point for the final bucket)
+            int nextFrom = to;
+            int nextTo = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            if (bucket == points - 3) {
+                nextFrom = size - 1;
+                nextTo = size;
+            }
+            double avgX = 0, avgY = 0;
+            int counted = 0;
+            for (int i = nextFrom; i < nextTo; i++) {
+                if (Double.isNaN(y[i])) continue;
+                avgX += x[i] - x[previous];
+                avgY += y[i];
+                counted++;
+            }
+            if (counted > 0) {
+                avgX /= counted;
+                avgY /= counted;
+            } else {
+                avgX = x[nextTo - 1] - x[previous];
+                avgY = y[previous];
+            }
+
+            // x is taken relative to the previous point to keep the products small
+            double prevY = y[previous];
+            double maxArea = -1;
+            int chosen = from;
+            for (int i = from; i < to; i++) {
+                if (Double.isNaN(y[i])) continue;
+                double area = Math.abs((x[i] - x[previous]) * (avgY - prevY) - avgX * (y[i] - prevY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            keep[bucket + 1] = chosen;
+            previous = chosen;
+        }
+        keep[points - 1] = size - 1;
+        return keep;
+    }
+
+    /**
+     * Per-bucket min/max: splits the series into {@code points / 2} buckets and keeps
+     * each bucket's lowest and highest reading, in time order.
+     */
+    static int[] minMax(double[] y, int size, int points) {
+        int buckets = Math.max(1, points / 2);
+        int[] keep = new int[buckets * 2];
+        int kept = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int from = (int) ((long) bucket * size / buckets);
+            int to = (int) ((long) (bucket + 1) * size / buckets);
+            int min = -1, max = -1;
+            for (int i = from; i < to; i++) {
+                if (Double.isNaN(y[i])) continue;
+                if (min < 0 || y[i] < y[min]) min = i;
+                if (max < 0 || y[i] > y[max]) max = i;
+            }
+            if (min < 0) {
+                keep[kept++] = from;
+            } else if (min == max) {
+                keep[kept++] = min;
+            } else {
+                keep[kept++] = Math.min(min, max);
+                keep[kept++] = Math.max(min, max);
+            }
+        }
+        return kept == keep.length ? keep : Arrays.copyOf(keep, kept);
+    }
+}
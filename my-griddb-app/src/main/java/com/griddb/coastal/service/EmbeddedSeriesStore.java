@@ -0,0 +1,386 @@
+package com.griddb.coastal.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.StationMetadata;
+import com.griddb.coastal.model.WaterLevelAggregateSeries;
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelRollupSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Local storage engine: each station's readings, monthly means and rollups are a
+ * {@link SegmentFile} of Gorilla-compressed blocks under {@code storage.embedded.dir},
+ * and station metadata is a JSON file next to them. Needs no network, so the app and
+ * the benchmarks can run without GridDB Cloud.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.engine", havingValue = StorageService.ENGINE_EMBEDDED)
+public class EmbeddedSeriesStore implements CoastalDataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedSeriesStore.class);
+
+    private static final String WATER_LEVEL = "water_level";
+    private static final String MONTHLY_MEAN = "monthly_mean";
+    private static final String STATIONS_FILE = "stations.json";
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    @Value("${storage.embedded.dir:data/store}")
+    private String storeDir;
+
+    @Value("${storage.embedded.block.points:1024}")
+    private int blockPoints;
+
+    @Value("${storage.embedded.fsync:true}")
+    private boolean fsync;
+
+    @Value("${griddb.query.max.rows:20000}")
+    private int maxQueryRows;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, SegmentFile> series = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean storeWaterLevelData(List<WaterLevelData> waterLevels) {
+        if (waterLevels.isEmpty()) return true;
+
+        boolean stored = true;
+        for (Map.Entry<String, List<WaterLevelData>> entry : byStation(waterLevels, WaterLevelData::getStationId).entrySet()) {
+            // Last reading wins for a repeated timestamp, as with a GridDB upsert
+            TreeMap<Long, WaterLevelData> rows = new TreeMap<>();
+            for (WaterLevelData wl : entry.getValue()) {
+                rows.put(wl.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli(), wl);
+            }
+            int size = rows.size();
+            long[] timestamps = new long[size];
+            double[] levels = new double[size];
+            String[] flags = new String[size];
+            int i = 0;
+            for (Map.Entry<Long, WaterLevelData> row : rows.entrySet()) {
+                timestamps[i] = row.getKey();
+                levels[i] = valueOf(row.getValue().getWaterLevel());
+                flags[i] = row.getValue().getFlags() != null ? row.getValue().getFlags() : "";
+                i++;
+            }
+
+            WaterLevelData latest = rows.lastEntry().getValue();
+            Map<String, String> attributes = new HashMap<>();
+            putAttribute(attributes, "stationName", latest.getStationName());
+            putAttribute(attributes, "datum", latest.getDatum());
+            putAttribute(attributes, "latitude", latest.getLatitude());
+            putAttribute(attributes, "longitude", latest.getLongitude());
+
+            String name = WATER_LEVEL + "/" + entry.getKey();
+            try {
+                series(WATER_LEVEL, entry.getKey(), 1, true).write(size, timestamps, new double[][] {levels}, flags, attributes);
+                logger.info("Stored {} water level records in embedded series {}", size, name);
+            } catch (Exception e) {
+                logger.error("Error storing water level data in {}: {}", name, e.getMessage());
+                stored = false;
+            }
+        }
+        return stored;
+    }
+
+    @Override
+    public boolean storeMonthlyMeanData(List<MonthlyMeanData> monthlyData) {
+        if (monthlyData.isEmpty()) return true;
+
+        boolean stored = true;
+        for (Map.Entry<String, List<MonthlyMeanData>> entry : byStation(monthlyData, MonthlyMeanData::getStationId).entrySet()) {
+            TreeMap<Long, MonthlyMeanData> rows = new TreeMap<>();
+            for (MonthlyMeanData mm : entry.getValue()) {
+                rows.put(mm.getMonth().toEpochDay() * DAY_MILLIS, mm);
+            }
+            int size = rows.size();
+            long[] months = new long[size];
+            double[] means = new double[size];
+            int i = 0;
+            for (Map.Entry<Long, MonthlyMeanData> row : rows.entrySet()) {
+                months[i] = row.getKey();
+                means[i] = valueOf(row.getValue().getMeanSeaLevel());
+                i++;
+            }
+
+            MonthlyMeanData latest = rows.lastEntry().getValue();
+            Map<String, String> attributes = new HashMap<>();
+            putAttribute(attributes, "stationName", latest.getStationName());
+            putAttribute(attributes, "latitude", latest.getLatitude());
+            putAttribute(attributes, "longitude", latest.getLongitude());
+
+            String name = MONTHLY_MEAN + "/" + entry.getKey();
+            try {
+                series(MONTHLY_MEAN, entry.getKey(), 1, false).write(size, months, new double[][] {means}, null, attributes);
+                logger.info("Stored {} monthly mean records in embedded series {}", size, name);
+            } catch (Exception e) {
+                logger.error("Error storing monthly mean data in {}: {}", name, e.getMessage());
+                stored = false;
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Merges the stations into the stations file by id
+     */
+    @Override
+    public synchronized void storeStationMetadata(List<StationMetadata> stations) {
+        if (stations.isEmpty()) return;
+
+        Path path = Paths.get(storeDir, STATIONS_FILE);
+        try {
+            Map<String, StationMetadata> merged = new LinkedHashMap<>();
+            if (Files.exists(path)) {
+                List<StationMetadata> existing = objectMapper.readValue(path.toFile(), new TypeReference<List<StationMetadata>>() {});
+                existing.forEach(station -> merged.put(station.getStationId(), station));
+            }
+            stations.forEach(station -> merged.put(station.getStationId(), station));
+
+            Files.createDirectories(path.getParent());
+            Path tmp = Files.createTempFile(path.getParent(), "stations", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), new ArrayList<>(merged.values()));
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.info("Stored {} station metadata records in {}", stations.size(), path);
+
+        } catch (Exception e) {
+            logger.error("Error storing station metadata: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Readings of the last {@code hours}, newest kept up to the row limit
+     */
+    @Override
+    public WaterLevelSeries loadWaterLevelSeries(String stationId, int hours) throws Exception {
+        long to = System.currentTimeMillis();
+        int limit = (int) Math.min(maxQueryRows, hours * 10L + 10);
+        return readWaterLevels(stationId, to - hours * 3_600_000L, Long.MAX_VALUE, limit, true);
+    }
+
+    @Override
+    public WaterLevelSeries loadWaterLevelRange(String stationId, long fromMillis, long toMillis) throws Exception {
+        return readWaterLevels(stationId, fromMillis, toMillis, maxQueryRows, false);
+    }
+
+    @Override
+    public MonthlyMeanSeries queryMonthlyMeanSeries(String stationId, int years) throws Exception {
+        LocalDate since = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).minusYears(years);
+        int limit = (int) Math.min(maxQueryRows, years * 12L + 12);
+
+        SegmentFile file = series(MONTHLY_MEAN, stationId, 1, false);
+        SegmentFile.Rows rows = file.read(since.toEpochDay() * DAY_MILLIS, Long.MAX_VALUE);
+        int skip = Math.max(0, rows.size() - limit);
+        Map<String, String> attributes = file.attributes();
+        return MonthlyMeanSeries.builder()
+            .stationId(stationId)
+            .stationName(attributes.get("stationName"))
+            .latitude(doubleAttribute(attributes, "latitude"))
+            .longitude(doubleAttribute(attributes, "longitude"))
+            .size(rows.size() - skip)
+            .months(Arrays.copyOfRange(rows.timestamps(), skip, rows.size()))
+            .meanSeaLevels(Arrays.copyOfRange(rows.columns()[0], skip, rows.size()))
+            .build();
+    }
+
+    /**
+     * Rollups are stored as min, max, mean and count columns
+     */
+    @Override
+    public WaterLevelRollupSeries queryRollups(String stationId, RollupResolution resolution,
+                                               long fromMillis, long toMillis) throws Exception {
+        SegmentFile.Rows rows = series(rollupKind(resolution), stationId, 4, false).read(fromMillis, toMillis);
+        int size = Math.min(rows.size(), maxQueryRows);
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            counts[i] = (int) rows.columns()[3][i];
+        }
+        return WaterLevelRollupSeries.builder()
+            .stationId(stationId)
+            .size(size)
+            .buckets(Arrays.copyOf(rows.timestamps(), size))
+            .minLevels(Arrays.copyOf(rows.columns()[0], size))
+            .maxLevels(Arrays.copyOf(rows.columns()[1], size))
+            .meanLevels(Arrays.copyOf(rows.columns()[2], size))
+            .counts(counts)
+            .build();
+    }
+
+    @Override
+    public void storeRollups(RollupResolution resolution, WaterLevelRollupSeries rollups) throws Exception {
+        int size = rollups.getSize();
+        if (size == 0) return;
+
+        double[] counts = new double[size];
+        for (int i = 0; i < size; i++) {
+            counts[i] = rollups.getCounts()[i];
+        }
+        double[][] columns = {
+            Arrays.copyOf(rollups.getMinLevels(), size),
+            Arrays.copyOf(rollups.getMaxLevels(), size),
+            Arrays.copyOf(rollups.getMeanLevels(), size),
+            counts
+        };
+        series(rollupKind(resolution), rollups.getStationId(), 4, false)
+            .write(size, Arrays.copyOf(rollups.getBuckets(), size), columns, null, Map.of());
+    }
+
+    /**
+     * Aggregated in memory over the decoded range; readings without a level are skipped
+     */
+    @Override
+    public WaterLevelAggregateSeries aggregateWaterLevels(String stationId, LocalDateTime from, LocalDateTime to,
+                                                          TimeBucket bucket, List<String> fns) throws Exception {
+        long fromMillis = from.toInstant(ZoneOffset.UTC).toEpochMilli();
+        long toMillis = to.toInstant(ZoneOffset.UTC).toEpochMilli();
+        long width = bucket.millis();
+        SegmentFile.Rows rows = series(WATER_LEVEL, stationId, 1, true).read(fromMillis, toMillis);
+
+        int capacity = (int) Math.min(rows.size(), (toMillis - fromMillis + width - 1) / width);
+        long[] buckets = new long[capacity];
+        double[][] values = new double[fns.size()][capacity];
+        double[] levels = rows.columns()[0];
+
+        int size = 0;
+        int i = 0;
+        while (i < rows.size()) {
+            long start = fromMillis + (rows.timestamps()[i] - fromMillis) / width * width;
+            int count = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (; i < rows.size() && rows.timestamps()[i] < start + width; i++) {
+                double level = levels[i];
+                if (Double.isNaN(level)) continue;
+                count++;
+                sum += level;
+                min = Math.min(min, level);
+                max = Math.max(max, level);
+            }
+            if (count == 0) continue;
+
+            buckets[size] = start;
+            for (int f = 0; f < fns.size(); f++) {
+                values[f][size] = switch (fns.get(f)) {
+                    case "avg" -> sum / count;
+                    case "min" -> min;
+                    case "max" -> max;
+                    case "sum" -> sum;
+                    default -> count;
+                };
+            }
+            size++;
+        }
+
+        return WaterLevelAggregateSeries.builder()
+            .stationId(stationId)
+            .bucket(bucket.toString())
+            .functions(fns)
+            .size(size)
+            .buckets(buckets)
+            .values(values)
+            .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Map.Entry<String, SegmentFile> entry : series.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (IOException e) {
+                logger.error("Error closing embedded series {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        series.clear();
+    }
+
+    /**
+     * At most {@code limit} readings in [from, to), the newest or the oldest ones
+     */
+    private WaterLevelSeries readWaterLevels(String stationId, long fromMillis, long toMillis, int limit,
+                                             boolean newest) throws IOException {
+        SegmentFile file = series(WATER_LEVEL, stationId, 1, true);
+        SegmentFile.Rows rows = file.read(fromMillis, toMillis);
+        int skip = newest ? Math.max(0, rows.size() - limit) : 0;
+        int end = Math.min(rows.size(), skip + limit);
+        Map<String, String> attributes = file.attributes();
+        return WaterLevelSeries.builder()
+            .stationId(stationId)
+            .stationName(attributes.get("stationName"))
+            .datum(attributes.get("datum"))
+            .latitude(doubleAttribute(attributes, "latitude"))
+            .longitude(doubleAttribute(attributes, "longitude"))
+            .size(end - skip)
+            .timestamps(Arrays.copyOfRange(rows.timestamps(), skip, end))
+            .waterLevels(Arrays.copyOfRange(rows.columns()[0], skip, end))
+            .flags(Arrays.copyOfRange(rows.labels(), skip, end))
+            .build();
+    }
+
+    private SegmentFile series(String kind, String stationId, int columns, boolean labelled) throws IOException {
+        String key = kind + "/" + stationId;
+        SegmentFile file = series.get(key);
+        if (file != null) return file;
+
+        synchronized (series) {
+            file = series.get(key);
+            if (file == null) {
+                String name = stationId.replaceAll("[^A-Za-z0-9_-]", "_");
+                file = SegmentFile.open(Paths.get(storeDir, kind), name, columns, labelled, blockPoints, fsync);
+                series.put(key, file);
+            }
+            return file;
+        }
+    }
+
+    private static String rollupKind(RollupResolution resolution) {
+        return resolution == RollupResolution.DAILY ? "water_level_daily" : "water_level_hourly";
+    }
+
+    private static <T> Map<String, List<T>> byStation(List<T> rows, Function<T, String> stationId) {
+        return rows.stream().collect(Collectors.groupingBy(stationId, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static void putAttribute(Map<String, String> attributes, String key, Object value) {
+        if (value != null) attributes.put(key, value.toString());
+    }
+
+    private static Double doubleAttribute(Map<String, String> attributes, String key) {
+        String value = attributes.get(key);
+        return value != null ? Double.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,294 @@
+package com.griddb.coastal.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Gorilla block encoding (Pelkonen et al., VLDB 2015) of a run of points sorted by
+ * time, used by the embedded store.
+ *
+ * A block holds, bit-packed and in this order:
+ * <ul>
+ *   <li>timestamps: the first in 64 bits, then each delta-of-delta as '0' for zero, or a
+ *   prefix of '10', '110', '1110', '11110' or '11111' followed by 7, 9, 12, 32 or 64 bits;</li>
+ *   <li>each value column: the first value in 64 bits, then each value XORed with the
+ *   previous one as '0' if equal, '10' plus the meaningful bits if they fit the previous
+ *   leading/trailing-zero window, or '11', 5 bits of leading zeros, 6 bits of length and
+ *   the meaningful bits;</li>
+ *   <li>optionally a label column (dictionary indexes): '0' if the same as the previous
+ *   row, else '1' and a 12-bit index.</li>
+ * </ul>
+ * Evenly spaced readings cost one bit per timestamp, and repeated or slowly moving
+ * values well under their 64 bits, so a block of 6-minute readings takes about half
+ * the 16 bytes per point of raw timestamps and doubles.
+ */
+final class GorillaCodec {
+
+    static final int LABEL_BITS = 12;
+    static final int MAX_LABELS = 1 << LABEL_BITS;
+
+    private GorillaCodec() {
+    }
+
+    /**
+     * Points of one series, oldest first; only the first {@code size} entries are valid
+     */
+    record Points(int size, long[] timestamps, double[][] columns, int[] labels) {
+
+        static Points empty(int columns, boolean labelled) {
+            return new Points(0, new long[0], new double[columns][0], labelled ? new int[0] : null);
+        }
+    }
+
+    /**
+     * Encodes points [from, to), which must be sorted by time
+     */
+    static byte[] encode(Points points, int from, int to) {
+        int count = to - from;
+        BitWriter out = new BitWriter(count * (2 + 4 * points.columns().length) + 16);
+
+        long[] t = points.timestamps();
+        out.write(t[from], 64);
+        long previousDelta = 0;
+        for (int i = from + 1; i < to; i++) {
+            long delta = t[i] - t[i - 1];
+            writeDeltaOfDelta(out, delta - previousDelta);
+            previousDelta = delta;
+        }
+
+        for (double[] column : points.columns()) {
+            long previous = Double.doubleToRawLongBits(column[from]);
+            out.write(previous, 64);
+            int leading = -1;
+            int trailing = 0;
+            for (int i = from + 1; i < to; i++) {
+                long bits = Double.doubleToRawLongBits(column[i]);
+                long xor = bits ^ previous;
+                previous = bits;
+                if (xor == 0) {
+                    out.write(0, 1);
+                    continue;
+                }
+                int lead = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trail = Long.numberOfTrailingZeros(xor);
+                if (leading >= 0 && lead >= leading && trail >= trailing) {
+                    out.write(0b10, 2);
+                    out.write(xor >>> trailing, 64 - leading - trailing);
+                } else {
+                    int length = 64 - lead - trail;
+                    out.write(0b11, 2);
+                    out.write(lead, 5);
+                    out.write(length - 1, 6);
+                    out.write(xor >>> trail, length);
+                    leading = lead;
+                    trailing = trail;
+                }
+            }
+        }
+
+        if (points.labels() != null) {
+            int previous = -1;
+            for (int i = from; i < to; i++) {
+                int label = points.labels()[i];
+                if (label == previous) {
+                    out.write(0, 1);
+                } else {
+                    out.write(1, 1);
+                    out.write(label, LABEL_BITS);
+                    previous = label;
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a block of {@code count} points stored at {@code buffer[offset, offset + length)}
+     */
+    static Points decode(ByteBuffer buffer, int offset, int length, int count, int columns, boolean labelled) {
+        BitReader in = new BitReader(buffer, offset, length);
+
+        long[] t = new long[count];
+        t[0] = in.read(64);
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(in);
+            t[i] = t[i - 1] + delta;
+        }
+
+        double[][] values = new double[columns][count];
+        for (int c = 0; c < columns; c++) {
+            long previous = in.read(64);
+            values[c][0] = Double.longBitsToDouble(previous);
+            int leading = 0;
+            int trailing = 0;
+            for (int i = 1; i < count; i++) {
+                if (in.read(1) != 0) {
+                    if (in.read(1) != 0) {
+                        leading = (int) in.read(5);
+                        int meaningful = (int) in.read(6) + 1;
+                        trailing = 64 - leading - meaningful;
+                    }
+                    previous ^= in.read(64 - leading - trailing) << trailing;
+                }
+                values[c][i] = Double.longBitsToDouble(previous);
+            }
+        }
+
+        int[] labels = null;
+        if (labelled) {
+            labels = new int[count];
+            int previous = -1;
+            for (int i = 0; i < count; i++) {
+                if (in.read(1) != 0) previous = (int) in.read(LABEL_BITS);
+                labels[i] = previous;
+            }
+        }
+        return new Points(count, t, values, labels);
+    }
+
+    /**
+     * Merges two runs sorted by time; on equal timestamps the newer run wins
+     */
+    static Points merge(Points older, Points newer) {
+        int columns = newer.columns().length;
+        boolean labelled = newer.labels() != null;
+        int capacity = older.size() + newer.size();
+        long[] t = new long[capacity];
+        double[][] values = new double[columns][capacity];
+        int[] labels = labelled ? new int[capacity] : null;
+
+        int i = 0, j = 0, n = 0;
+        while (i < older.size() || j < newer.size()) {
+            Points source;
+            int index;
+            if (j >= newer.size() || (i < older.size() && older.timestamps()[i] < newer.timestamps()[j])) {
+                source = older;
+                index = i++;
+            } else {
+                if (i < older.size() && older.timestamps()[i] == newer.timestamps()[j]) i++;
+                source = newer;
+                index = j++;
+            }
+            t[n] = source.timestamps()[index];
+            for (int c = 0; c < columns; c++) {
+                values[c][n] = source.columns()[c][index];
+            }
+            if (labelled) labels[n] = source.labels()[index];
+            n++;
+        }
+        return new Points(n, t, values, labels);
+    }
+
+    /**
+     * Concatenates runs that follow each other in time, keeping points in [from, to)
+     */
+    static Points concat(Iterable<Points> runs, int columns, boolean labelled, long from, long to) {
+        int capacity = 0;
+        for (Points run : runs) capacity += run.size();
+        long[] t = new long[capacity];
+        double[][] values = new double[columns][capacity];
+        int[] labels = labelled ? new int[capacity] : null;
+
+        int n = 0;
+        for (Points run : runs) {
+            for (int i = 0; i < run.size(); i++) {
+                long timestamp = run.timestamps()[i];
+                if (timestamp < from || timestamp >= to) continue;
+                t[n] = timestamp;
+                for (int c = 0; c < columns; c++) {
+                    values[c][n] = run.columns()[c][i];
+                }
+                if (labelled) labels[n] = run.labels()[i];
+                n++;
+            }
+        }
+        return new Points(n, t, values, labels);
+    }
+
+    private static void writeDeltaOfDelta(BitWriter out, long dod) {
+        if (dod == 0) {
+            out.write(0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            out.write(0b10, 2);
+            out.write(dod + 63, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            out.write(0b110, 3);
+            out.write(dod + 255, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            out.write(0b1110, 4);
+            out.write(dod + 2047, 12);
+        } else if (dod >= Integer.MIN_VALUE && dod <= Integer.MAX_VALUE) {
+            out.write(0b11110, 5);
+            out.write(dod, 32);
+        } else {
+            out.write(0b11111, 5);
+            out.write(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (in.read(1) == 0) return 0;
+        if (in.read(1) == 0) return in.read(7) - 63;
+        if (in.read(1) == 0) return in.read(9) - 255;
+        if (in.read(1) == 0) return in.read(12) - 2047;
+        if (in.read(1) == 0) return (int) in.read(32);
+        return in.read(64);
+    }
+
+    private static final class BitWriter {
+        byte[] bytes;
+        long position; // in bits
+
+        BitWriter(int expectedBytes) {
+            bytes = new byte[Math.max(expectedBytes, 16)];
+        }
+
+        /**
+         * Appends the low {@code bits} bits of {@code value}, most significant first
+         */
+        void write(long value, int bits) {
+            while (bits > 0) {
+                int index = (int) (position >>> 3);
+                if (index >= bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                int free = 8 - (int) (position & 7);
+                int n = Math.min(free, bits);
+                int chunk = (int) ((value >>> (bits - n)) & ((1 << n) - 1));
+                bytes[index] |= (byte) (chunk << (free - n));
+                position += n;
+                bits -= n;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((position + 7) >>> 3));
+        }
+    }
+
+    private static final class BitReader {
+        final ByteBuffer buffer;
+        final int offset;
+        final long limit; // in bits
+        long position;
+
+        BitReader(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.limit = (long) length << 3;
+        }
+
+        long read(int bits) {
+            if (position + bits > limit) throw new IllegalStateException("Corrupt block: read past its end");
+            long value = 0;
+            while (bits > 0) {
+                int current = buffer.get(offset + (int) (position >>> 3)) & 0xFF;
+                int available = 8 - (int) (position & 7);
+                int n = Math.min(available, bits);
+                value = (value << n) | ((current >>> (available - n)) & ((1 << n) - 1));
+                position += n;
+                bits -= n;
+            }
+            return value;
+        }
+    }
+}
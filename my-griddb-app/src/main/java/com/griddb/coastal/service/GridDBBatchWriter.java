@@ -0,0 +1,189 @@
+package com.griddb.coastal.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encodes rows for a GridDB PUT straight into bounded chunk buffers with a JSON generator
+ * and ships each chunk as soon as it fills up.
+ *
+ * A chunk is closed when it reaches {@code griddb.batch.max.rows} rows or would exceed
+ * {@code griddb.batch.max.bytes}. Each write keeps at most {@code griddb.batch.concurrency}
+ * chunks in flight and recycles their buffers, so memory stays constant however many
+ * rows are written.
+ */
+@Component
+public class GridDBBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GridDBBatchWriter.class);
+
+    /**
+     * Writes one row as a JSON array
+     */
+    @FunctionalInterface
+    public interface RowEncoder<T> {
+        void write(JsonGenerator gen, T row) throws IOException;
+    }
+
+    /**
+     * Sends one complete chunk, {@code body[0, length)}, as a JSON array of {@code rows} rows
+     */
+    @FunctionalInterface
+    public interface ChunkSender {
+        void send(byte[] body, int length, int rows) throws Exception;
+    }
+
+    @Value("${griddb.batch.max.rows:5000}")
+    private int maxRows;
+
+    @Value("${griddb.batch.max.bytes:4000000}")
+    private int maxBytes;
+
+    @Value("${griddb.batch.concurrency:4}")
+    private int concurrency;
+
+    private ExecutorService senders;
+
+    private BlockingQueue<ChunkBuffer> bufferPool;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "griddb-batch-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        bufferPool = new ArrayBlockingQueue<>(concurrency * 2);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    /**
+     * Encodes and sends all rows, splitting into chunks as needed.
+     * Blocks until every chunk has been sent; throws the first failure, if any.
+     *
+     * @return number of rows written
+     */
+    public <T> int write(Iterable<T> rows, RowEncoder<T> encoder, ChunkSender sender) throws Exception {
+        List<Future<?>> inFlight = new ArrayList<>();
+        Semaphore slots = new Semaphore(concurrency);
+        ChunkBuffer scratch = new ChunkBuffer(1024);
+        int written = 0;
+
+        ChunkBuffer chunk = takeBuffer();
+        int rowsInChunk = 0;
+        try (JsonGenerator gen = GridDBRowCodec.JSON_FACTORY.createGenerator(scratch)) {
+            gen.setRootValueSeparator(null);
+
+            for (T row : rows) {
+                scratch.reset();
+                encoder.write(gen, row);
+                gen.flush();
+
+                if (rowsInChunk > 0 && (rowsInChunk >= maxRows || chunk.size() + scratch.size() + 2 > maxBytes)) {
+                    inFlight.add(submit(chunk, rowsInChunk, sender, slots));
+                    written += rowsInChunk;
+                    chunk = takeBuffer();
+                    rowsInChunk = 0;
+                }
+
+                chunk.write(rowsInChunk == 0 ? '[' : ',');
+                scratch.writeTo(chunk);
+                rowsInChunk++;
+            }
+
+            if (rowsInChunk > 0) {
+                inFlight.add(submit(chunk, rowsInChunk, sender, slots));
+                written += rowsInChunk;
+                chunk = null;
+            }
+        } finally {
+            if (chunk != null) {
+                recycle(chunk);
+            }
+        }
+
+        Exception failure = null;
+        for (Future<?> f : inFlight) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause() instanceof Exception ex ? ex : e;
+            }
+        }
+        if (failure != null) throw failure;
+
+        if (inFlight.size() > 1) {
+            logger.debug("Wrote {} rows in {} chunks", written, inFlight.size());
+        }
+        return written;
+    }
+
+    /**
+     * Hands a full chunk to a sender thread; blocks while this write already has its share in flight
+     */
+    private Future<?> submit(ChunkBuffer chunk, int rows, ChunkSender sender, Semaphore slots) throws InterruptedIOException {
+        chunk.write(']');
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to send a batch chunk");
+        }
+        return senders.submit(() -> {
+            try {
+                sender.send(chunk.buffer(), chunk.size(), rows);
+                return null;
+            } finally {
+                recycle(chunk);
+                slots.release();
+            }
+        });
+    }
+
+    private ChunkBuffer takeBuffer() {
+        ChunkBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : new ChunkBuffer(Math.min(maxBytes, 64 * 1024));
+    }
+
+    private void recycle(ChunkBuffer buffer) {
+        buffer.reset();
+        bufferPool.offer(buffer);
+    }
+
+    /**
+     * Byte buffer that exposes its backing array so chunks can be sent without a copy
+     */
+    private static final class ChunkBuffer extends ByteArrayOutputStream {
+        ChunkBuffer(int capacity) {
+            super(capacity);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
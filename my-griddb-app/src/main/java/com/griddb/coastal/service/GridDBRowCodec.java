@@ -0,0 +1,645 @@
+package com.griddb.coastal.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.WaterLevelAggregateSeries;
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelRollupSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming codec for GridDB row query payloads.
+ *
+ * Decoding reads the {"columns": [...], "rows": [[...], ...]} response token by token
+ * straight into primitive column arrays, and encoding writes the {"results": [...]}
+ * rows the dashboard expects directly from those columns, so neither direction
+ * builds a JSON tree.
+ */
+public final class GridDBRowCodec {
+
+    public static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final String[] WATER_LEVEL_COLUMNS = {
+        "timestamp", "station_id", "station_name", "water_level", "datum", "latitude", "longitude", "flags"
+    };
+
+    private static final String[] MONTHLY_MEAN_COLUMNS = {
+        "month", "station_id", "station_name", "mean_sea_level", "year", "month_number", "latitude", "longitude"
+    };
+
+    private static final String[] ROLLUP_COLUMNS = {
+        "bucket", "station_id", "min_level", "max_level", "mean_level", "count"
+    };
+
+    private GridDBRowCodec() {
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Decoding
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Decodes a water level row set. Rows are kept in response order.
+     */
+    public static WaterLevelSeries decodeWaterLevels(InputStream in, int expectedRows) throws IOException {
+        WaterLevelSeries series = new WaterLevelSeries();
+        int capacity = Math.max(16, Math.min(expectedRows, INITIAL_CAPACITY));
+        long[] timestamps = new long[capacity];
+        double[] levels = new double[capacity];
+        String[] flags = new String[capacity];
+        Map<String, String> flagPool = new HashMap<>();
+        int size = 0;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            int[] roles = identityRoles(WATER_LEVEL_COLUMNS.length);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object in GridDB response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("columns".equals(field)) {
+                    roles = readRoles(parser, WATER_LEVEL_COLUMNS);
+                } else if ("rows".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_ARRAY) {
+                        if (size == timestamps.length) {
+                            int grown = size * 2;
+                            timestamps = Arrays.copyOf(timestamps, grown);
+                            levels = Arrays.copyOf(levels, grown);
+                            flags = Arrays.copyOf(flags, grown);
+                        }
+                        int column = 0;
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            int role = column < roles.length ? roles[column] : -1;
+                            switch (role) {
+                                case 0 -> timestamps[size] = readTimestamp(parser);
+                                case 1 -> { if (series.getStationId() == null) series.setStationId(parser.getValueAsString()); }
+                                case 2 -> { if (series.getStationName() == null) series.setStationName(parser.getValueAsString()); }
+                                case 3 -> levels[size] = readDouble(parser);
+                                case 4 -> { if (series.getDatum() == null) series.setDatum(parser.getValueAsString()); }
+                                case 5 -> { if (series.getLatitude() == null) series.setLatitude(readNullableDouble(parser)); }
+                                case 6 -> { if (series.getLongitude() == null) series.setLongitude(readNullableDouble(parser)); }
+                                case 7 -> flags[size] = pooled(flagPool, parser.getValueAsString(""));
+                                default -> parser.skipChildren();
+                            }
+                            column++;
+                        }
+                        size++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        series.setSize(size);
+        series.setTimestamps(timestamps);
+        series.setWaterLevels(levels);
+        series.setFlags(flags);
+        return series;
+    }
+
+    /**
+     * Decodes a monthly mean row set. Rows are kept in response order.
+     */
+    public static MonthlyMeanSeries decodeMonthlyMeans(InputStream in, int expectedRows) throws IOException {
+        MonthlyMeanSeries series = new MonthlyMeanSeries();
+        int capacity = Math.max(16, Math.min(expectedRows, INITIAL_CAPACITY));
+        long[] months = new long[capacity];
+        double[] levels = new double[capacity];
+        int size = 0;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            int[] roles = identityRoles(MONTHLY_MEAN_COLUMNS.length);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object in GridDB response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("columns".equals(field)) {
+                    roles = readRoles(parser, MONTHLY_MEAN_COLUMNS);
+                } else if ("rows".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_ARRAY) {
+                        if (size == months.length) {
+                            months = Arrays.copyOf(months, size * 2);
+                            levels = Arrays.copyOf(levels, size * 2);
+                        }
+                        int column = 0;
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            int role = column < roles.length ? roles[column] : -1;
+                            switch (role) {
+                                case 0 -> months[size] = readTimestamp(parser);
+                                case 1 -> { if (series.getStationId() == null) series.setStationId(parser.getValueAsString()); }
+                                case 2 -> { if (series.getStationName() == null) series.setStationName(parser.getValueAsString()); }
+                                case 3 -> levels[size] = readDouble(parser);
+                                case 6 -> { if (series.getLatitude() == null) series.setLatitude(readNullableDouble(parser)); }
+                                case 7 -> { if (series.getLongitude() == null) series.setLongitude(readNullableDouble(parser)); }
+                                default -> parser.skipChildren();
+                            }
+                            column++;
+                        }
+                        size++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        series.setSize(size);
+        series.setMonths(months);
+        series.setMeanSeaLevels(levels);
+        return series;
+    }
+
+    /**
+     * Decodes an hourly or daily rollup row set. Rows are kept in response order.
+     */
+    public static WaterLevelRollupSeries decodeRollups(InputStream in, int expectedRows) throws IOException {
+        WaterLevelRollupSeries series = new WaterLevelRollupSeries();
+        int capacity = Math.max(16, Math.min(expectedRows, INITIAL_CAPACITY));
+        long[] buckets = new long[capacity];
+        double[] mins = new double[capacity];
+        double[] maxs = new double[capacity];
+        double[] means = new double[capacity];
+        int[] counts = new int[capacity];
+        int size = 0;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            int[] roles = identityRoles(ROLLUP_COLUMNS.length);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object in GridDB response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("columns".equals(field)) {
+                    roles = readRoles(parser, ROLLUP_COLUMNS);
+                } else if ("rows".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_ARRAY) {
+                        if (size == buckets.length) {
+                            int grown = size * 2;
+                            buckets = Arrays.copyOf(buckets, grown);
+                            mins = Arrays.copyOf(mins, grown);
+                            maxs = Arrays.copyOf(maxs, grown);
+                            means = Arrays.copyOf(means, grown);
+                            counts = Arrays.copyOf(counts, grown);
+                        }
+                        int column = 0;
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            int role = column < roles.length ? roles[column] : -1;
+                            switch (role) {
+                                case 0 -> buckets[size] = readTimestamp(parser);
+                                case 1 -> { if (series.getStationId() == null) series.setStationId(parser.getValueAsString()); }
+                                case 2 -> mins[size] = readDouble(parser);
+                                case 3 -> maxs[size] = readDouble(parser);
+                                case 4 -> means[size] = readDouble(parser);
+                                case 5 -> counts[size] = parser.getValueAsInt();
+                                default -> parser.skipChildren();
+                            }
+                            column++;
+                        }
+                        size++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        series.setSize(size);
+        series.setBuckets(buckets);
+        series.setMinLevels(mins);
+        series.setMaxLevels(maxs);
+        series.setMeanLevels(means);
+        series.setCounts(counts);
+        return series;
+    }
+
+    /**
+     * Decodes a SQL result of a bucket timestamp followed by {@code functions} aggregate
+     * columns: [{"columns": [...], "results": [[...], ...]}]
+     */
+    public static WaterLevelAggregateSeries decodeAggregates(InputStream in, int functions) throws IOException {
+        long[] buckets = new long[INITIAL_CAPACITY];
+        double[][] values = new double[functions][INITIAL_CAPACITY];
+        int size = 0;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY || parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON array of results in GridDB response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("results".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_ARRAY) {
+                        if (size == buckets.length) {
+                            buckets = Arrays.copyOf(buckets, size * 2);
+                            for (int f = 0; f < functions; f++) {
+                                values[f] = Arrays.copyOf(values[f], size * 2);
+                            }
+                        }
+                        int column = 0;
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (column == 0) {
+                                buckets[size] = readTimestamp(parser);
+                            } else if (column <= functions) {
+                                values[column - 1][size] = readDouble(parser);
+                            } else {
+                                parser.skipChildren();
+                            }
+                            column++;
+                        }
+                        size++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        WaterLevelAggregateSeries series = new WaterLevelAggregateSeries();
+        series.setSize(size);
+        series.setBuckets(buckets);
+        series.setValues(values);
+        return series;
+    }
+
+    /**
+     * Reverses the valid prefix of the columns, e.g. to turn a newest-first query into oldest-first
+     */
+    public static void reverse(WaterLevelSeries series) {
+        int n = series.getSize();
+        long[] t = series.getTimestamps();
+        double[] v = series.getWaterLevels();
+        String[] f = series.getFlags();
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            long tt = t[i]; t[i] = t[j]; t[j] = tt;
+            double vv = v[i]; v[i] = v[j]; v[j] = vv;
+            String ff = f[i]; f[i] = f[j]; f[j] = ff;
+        }
+    }
+
+    public static void reverse(MonthlyMeanSeries series) {
+        int n = series.getSize();
+        long[] t = series.getMonths();
+        double[] v = series.getMeanSeaLevels();
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            long tt = t[i]; t[i] = t[j]; t[j] = tt;
+            double vv = v[i]; v[i] = v[j]; v[j] = vv;
+        }
+    }
+
+    /**
+     * Maps each response column position to its index in the expected schema, or -1
+     */
+    private static int[] readRoles(JsonParser parser, String[] expected) throws IOException {
+        int[] roles = new int[expected.length * 2];
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("name".equals(field)) {
+                    name = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (count == roles.length) roles = Arrays.copyOf(roles, count * 2);
+            roles[count++] = Arrays.asList(expected).indexOf(name);
+        }
+        return Arrays.copyOf(roles, count);
+    }
+
+    private static int[] identityRoles(int n) {
+        int[] roles = new int[n];
+        for (int i = 0; i < n; i++) roles[i] = i;
+        return roles;
+    }
+
+    private static String pooled(Map<String, String> pool, String value) {
+        String existing = pool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private static double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            return Double.parseDouble(parser.getText());
+        }
+        return Double.NaN;
+    }
+
+    private static Double readNullableDouble(JsonParser parser) throws IOException {
+        double value = readDouble(parser);
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static long readTimestamp(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        long millis = parseTimestamp(text, offset, length);
+        return millis != Long.MIN_VALUE ? millis : Instant.parse(parser.getText()).toEpochMilli();
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Encoding
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Writes {"results": [...]} in the GridDB row layout
+     */
+    public static void writeWaterLevelResults(WaterLevelSeries series, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("results");
+        writeWaterLevelRows(series, gen);
+        gen.writeEndObject();
+    }
+
+    public static void writeWaterLevelRows(WaterLevelSeries series, JsonGenerator gen) throws IOException {
+        char[] buf = new char[24];
+        long[] t = series.getTimestamps();
+        double[] v = series.getWaterLevels();
+        String[] f = series.getFlags();
+
+        gen.writeStartArray();
+        for (int i = 0; i < series.getSize(); i++) {
+            gen.writeStartArray();
+            gen.writeString(buf, 0, formatTimestamp(t[i], buf));
+            gen.writeString(series.getStationId());
+            gen.writeString(series.getStationName());
+            writeDouble(gen, v[i]);
+            gen.writeString(series.getDatum());
+            writeDouble(gen, series.getLatitude());
+            writeDouble(gen, series.getLongitude());
+            gen.writeString(f != null && f[i] != null ? f[i] : "");
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * Writes parsed readings, in the same row layout
+     */
+    public static void writeWaterLevelRows(List<WaterLevelData> rows, JsonGenerator gen) throws IOException {
+        char[] buf = new char[24];
+
+        gen.writeStartArray();
+        for (WaterLevelData wl : rows) {
+            gen.writeStartArray();
+            gen.writeString(buf, 0, formatTimestamp(wl.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli(), buf));
+            gen.writeString(wl.getStationId());
+            gen.writeString(wl.getStationName());
+            writeDouble(gen, wl.getWaterLevel());
+            gen.writeString(wl.getDatum());
+            writeDouble(gen, wl.getLatitude());
+            writeDouble(gen, wl.getLongitude());
+            gen.writeString(wl.getFlags() != null ? wl.getFlags() : "");
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * Writes {"results": [...]} in the GridDB row layout
+     */
+    public static void writeMonthlyMeanResults(MonthlyMeanSeries series, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("results");
+        writeMonthlyMeanRows(series, gen);
+        gen.writeEndObject();
+    }
+
+    public static void writeMonthlyMeanRows(MonthlyMeanSeries series, JsonGenerator gen) throws IOException {
+        char[] buf = new char[24];
+        long[] t = series.getMonths();
+        double[] v = series.getMeanSeaLevels();
+
+        gen.writeStartArray();
+        for (int i = 0; i < series.getSize(); i++) {
+            long days = Math.floorDiv(t[i], 86_400_000L);
+            long civil = civilFromDays(days);
+            gen.writeStartArray();
+            gen.writeString(buf, 0, formatTimestamp(t[i], buf));
+            gen.writeString(series.getStationId());
+            gen.writeString(series.getStationName());
+            writeDouble(gen, v[i]);
+            gen.writeNumber((int) (civil / 10_000));
+            gen.writeNumber((int) (civil / 100 % 100));
+            writeDouble(gen, series.getLatitude());
+            writeDouble(gen, series.getLongitude());
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * Writes {"stationId", "bucket", "functions", "results": [[timestamp, fn1, fn2, ...], ...]}
+     */
+    public static void writeAggregateResults(WaterLevelAggregateSeries series, JsonGenerator gen) throws IOException {
+        char[] buf = new char[24];
+        gen.writeStartObject();
+        gen.writeStringField("stationId", series.getStationId());
+        gen.writeStringField("bucket", series.getBucket());
+        gen.writeArrayFieldStart("functions");
+        for (String function : series.getFunctions()) {
+            gen.writeString(function);
+        }
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("results");
+        for (int i = 0; i < series.getSize(); i++) {
+            gen.writeStartArray();
+            gen.writeString(buf, 0, formatTimestamp(series.getBuckets()[i], buf));
+            for (double[] column : series.getValues()) {
+                writeDouble(gen, column[i]);
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    public static String toResultsJson(WaterLevelSeries series) {
+        return render(gen -> writeWaterLevelResults(series, gen));
+    }
+
+    public static String toResultsJson(MonthlyMeanSeries series) {
+        return render(gen -> writeMonthlyMeanResults(series, gen));
+    }
+
+    @FunctionalInterface
+    public interface JsonWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    /**
+     * Runs a writer against a generator on the given stream and flushes it
+     */
+    public static void write(OutputStream out, JsonWriter writer) throws IOException {
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writer.write(gen);
+        }
+    }
+
+    /**
+     * Runs a writer into a string
+     */
+    public static String render(JsonWriter writer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        try {
+            write(out, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void writeDouble(JsonGenerator gen, Double value) throws IOException {
+        if (value == null || value.isNaN()) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.doubleValue());
+        }
+    }
+
+    private static void writeDouble(JsonGenerator gen, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Timestamps
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Parses "yyyy-MM-ddTHH:mm:ss[.SSS]Z" without allocating; returns Long.MIN_VALUE if the text has another shape
+     */
+    public static long parseTimestamp(char[] s, int off, int len) {
+        if (len != 20 && len != 24) return Long.MIN_VALUE;
+        if (s[off + 4] != '-' || s[off + 7] != '-' || s[off + 10] != 'T' || s[off + 13] != ':'
+                || s[off + 16] != ':' || s[off + len - 1] != 'Z') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(s, off, 4);
+        int month = digits(s, off + 5, 2);
+        int day = digits(s, off + 8, 2);
+        int hour = digits(s, off + 11, 2);
+        int minute = digits(s, off + 14, 2);
+        int second = digits(s, off + 17, 2);
+        int millis = 0;
+        if (len == 24) {
+            if (s[off + 19] != '.') return Long.MIN_VALUE;
+            millis = digits(s, off + 20, 3);
+        }
+        if ((year | month | day | hour | minute | second | millis) < 0) return Long.MIN_VALUE;
+
+        long days = daysFromCivil(year, month, day);
+        return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+    }
+
+    /**
+     * Formats epoch millis as "yyyy-MM-ddTHH:mm:ss.SSSZ" into buf (length >= 24); returns the length written
+     */
+    public static int formatTimestamp(long epochMillis, char[] buf) {
+        long days = Math.floorDiv(epochMillis, 86_400_000L);
+        int millisOfDay = (int) Math.floorMod(epochMillis, 86_400_000L);
+        long civil = civilFromDays(days);
+        int year = (int) (civil / 10_000);
+        int month = (int) (civil / 100 % 100);
+        int day = (int) (civil % 100);
+
+        put(buf, 0, year, 4);
+        buf[4] = '-';
+        put(buf, 5, month, 2);
+        buf[7] = '-';
+        put(buf, 8, day, 2);
+        buf[10] = 'T';
+        put(buf, 11, millisOfDay / 3_600_000, 2);
+        buf[13] = ':';
+        put(buf, 14, millisOfDay / 60_000 % 60, 2);
+        buf[16] = ':';
+        put(buf, 17, millisOfDay / 1000 % 60, 2);
+        buf[19] = '.';
+        put(buf, 20, millisOfDay % 1000, 3);
+        buf[23] = 'Z';
+        return 24;
+    }
+
+    private static int digits(char[] s, int off, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int d = s[off + i] - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static void put(char[] buf, int off, int value, int width) {
+        for (int i = off + width - 1; i >= off; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (H. Hinnant's algorithm)
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        long yoe = year - era * 400;
+        long doy = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097 + doe - 719_468;
+    }
+
+    /**
+     * Inverse of {@link #daysFromCivil}, packed as yyyyMMdd
+     */
+    static long civilFromDays(long days) {
+        days += 719_468;
+        long era = Math.floorDiv(days, 146_097);
+        long doe = days - era * 146_097;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp + (mp < 10 ? 3 : -9);
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10_000 + month * 100 + day;
+    }
+}
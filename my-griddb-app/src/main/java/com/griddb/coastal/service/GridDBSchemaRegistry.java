@@ -0,0 +1,190 @@
+package com.griddb.coastal.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Knows the container layout in GridDB: which container a station's rows live in,
+ * what its schema looks like, and which containers have already been created.
+ *
+ * In the "shared" layout every station writes into one COLLECTION per data set.
+ * In the "per-station" layout each station gets its own TIME_SERIES container
+ * (e.g. coastal_water_level_8518750) keyed by timestamp.
+ *
+ * Hourly and daily water level rollups always live in per-station TIME_SERIES
+ * containers keyed by bucket start (e.g. coastal_water_level_hourly_8518750).
+ */
+@Component
+public class GridDBSchemaRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(GridDBSchemaRegistry.class);
+
+    public static final String LAYOUT_SHARED = "shared";
+    public static final String LAYOUT_PER_STATION = "per-station";
+
+    public enum ContainerKind {
+        WATER_LEVEL,
+        WATER_LEVEL_HOURLY,
+        WATER_LEVEL_DAILY,
+        MONTHLY_MEAN,
+        STATIONS
+    }
+
+    /**
+     * Issues the create-container call; may throw if the container already exists
+     */
+    @FunctionalInterface
+    public interface ContainerCreator {
+        void create(JSONObject schema) throws Exception;
+    }
+
+    @Value("${griddb.storage.layout:shared}")
+    private String layout;
+
+    @Value("${griddb.container.water_level}")
+    private String waterLevelContainer;
+
+    @Value("${griddb.container.monthly_mean}")
+    private String monthlyMeanContainer;
+
+    @Value("${griddb.container.stations}")
+    private String stationsContainer;
+
+    // Completed once the container exists; a failed create is removed so the next write retries it
+    private final Map<String, CompletableFuture<Void>> containers = new ConcurrentHashMap<>();
+
+    public boolean isPerStation() {
+        return LAYOUT_PER_STATION.equalsIgnoreCase(layout.trim());
+    }
+
+    public String waterLevelContainer(String stationId) {
+        return isPerStation() ? waterLevelContainer + "_" + stationId : waterLevelContainer;
+    }
+
+    /**
+     * Rollup container of a station for {@code WATER_LEVEL_HOURLY} or {@code WATER_LEVEL_DAILY}
+     */
+    public String rollupContainer(ContainerKind kind, String stationId) {
+        String suffix = kind == ContainerKind.WATER_LEVEL_DAILY ? "_daily_" : "_hourly_";
+        return waterLevelContainer + suffix + stationId;
+    }
+
+    public String monthlyMeanContainer(String stationId) {
+        return isPerStation() ? monthlyMeanContainer + "_" + stationId : monthlyMeanContainer;
+    }
+
+    public String stationsContainer() {
+        return stationsContainer;
+    }
+
+    /**
+     * Creates the container on first use and remembers it, so later writes skip the round trip.
+     * Writers to the same new container wait for the one create call; writers to other
+     * containers don't.
+     *
+     * @throws Exception if the container could not be created
+     */
+    public void ensureContainer(ContainerKind kind, String container, ContainerCreator creator) throws Exception {
+        CompletableFuture<Void> created = containers.get(container);
+        if (created == null) {
+            CompletableFuture<Void> attempt = new CompletableFuture<>();
+            created = containers.putIfAbsent(container, attempt);
+            if (created == null) {
+                create(kind, container, creator, attempt);
+                created = attempt;
+            }
+        }
+        try {
+            created.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private void create(ContainerKind kind, String container, ContainerCreator creator, CompletableFuture<Void> attempt) {
+        try {
+            creator.create(schemaFor(kind, container));
+            logger.info("Created GridDB container {}", container);
+            attempt.complete(null);
+        } catch (Exception e) {
+            if (e.getMessage() != null && e.getMessage().contains("already exist")) {
+                attempt.complete(null);
+            } else {
+                logger.error("Error creating container {}: {}", container, e.getMessage());
+                containers.remove(container, attempt);
+                attempt.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Builds the create-container payload for a container of the given kind
+     */
+    public JSONObject schemaFor(ContainerKind kind, String container) {
+        JSONObject schema = new JSONObject();
+        schema.put("container_name", container);
+        schema.put("rowkey", true);
+
+        JSONArray columns = new JSONArray();
+        switch (kind) {
+            case WATER_LEVEL:
+                schema.put("container_type", isPerStation() ? "TIME_SERIES" : "COLLECTION");
+                columns.put(column("timestamp", "TIMESTAMP"));
+                columns.put(column("station_id", "STRING"));
+                columns.put(column("station_name", "STRING"));
+                columns.put(column("water_level", "DOUBLE"));
+                columns.put(column("datum", "STRING"));
+                columns.put(column("latitude", "DOUBLE"));
+                columns.put(column("longitude", "DOUBLE"));
+                columns.put(column("flags", "STRING"));
+                break;
+            case WATER_LEVEL_HOURLY:
+            case WATER_LEVEL_DAILY:
+                schema.put("container_type", "TIME_SERIES");
+                columns.put(column("bucket", "TIMESTAMP"));
+                columns.put(column("station_id", "STRING"));
+                columns.put(column("min_level", "DOUBLE"));
+                columns.put(column("max_level", "DOUBLE"));
+                columns.put(column("mean_level", "DOUBLE"));
+                columns.put(column("count", "INTEGER"));
+                break;
+            case MONTHLY_MEAN:
+                schema.put("container_type", isPerStation() ? "TIME_SERIES" : "COLLECTION");
+                columns.put(column("month", "TIMESTAMP"));
+                columns.put(column("station_id", "STRING"));
+                columns.put(column("station_name", "STRING"));
+                columns.put(column("mean_sea_level", "DOUBLE"));
+                columns.put(column("year", "INTEGER"));
+                columns.put(column("month_number", "INTEGER"));
+                columns.put(column("latitude", "DOUBLE"));
+                columns.put(column("longitude", "DOUBLE"));
+                break;
+            case STATIONS:
+                schema.put("container_type", "COLLECTION");
+                columns.put(column("station_id", "STRING"));
+                columns.put(column("station_name", "STRING"));
+                columns.put(column("state", "STRING"));
+                columns.put(column("latitude", "DOUBLE"));
+                columns.put(column("longitude", "DOUBLE"));
+                columns.put(column("region", "STRING"));
+                columns.put(column("is_active", "BOOL"));
+                columns.put(column("last_updated", "TIMESTAMP"));
+                break;
+        }
+        schema.put("columns", columns);
+        return schema;
+    }
+
+    private static JSONObject column(String name, String type) {
+        return new JSONObject().put("name", name).put("type", type).put("index", new JSONArray());
+    }
+}
@@ -1,138 +1,187 @@
 package com.griddb.coastal.service;
 
+import com.griddb.coastal.model.WaterLevelAggregateSeries;
 import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelRollupSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
 import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.MonthlyMeanSeries;
 import com.griddb.coastal.model.StationMetadata;
+import com.griddb.coastal.service.GridDBSchemaRegistry.ContainerKind;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * The GridDB Cloud storage engine, over its WebAPI.
+ *
+ * Every WebAPI call is timed as {@code coastal.griddb.request}, tagged by operation
+ * (put, query, sql, create), container and HTTP status; failed calls are also counted
+ * in {@code coastal.griddb.failures}. Each PUT chunk records its rows and bytes in
+ * {@code coastal.griddb.put.rows} and {@code coastal.griddb.put.bytes}.
+ */
 @Service
-public class GridDBService {
+public class GridDBService implements CoastalDataStore {
     
     private static final Logger logger = LoggerFactory.getLogger(GridDBService.class);
     
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+    
     @Value("${griddb.rest.url}")
     private String gridDBRestUrl;
     
     @Value("${griddb.api.key}")
     private String gridDBApiKey;
     
-    @Value("${griddb.container.water_level}")
-    private String waterLevelContainer;
+    @Value("${griddb.query.max.rows:20000}")
+    private int maxQueryRows;
+    
+    @Autowired
+    private GridDBSchemaRegistry schemaRegistry;
+    
+    @Autowired
+    private HttpTransport httpTransport;
     
-    @Value("${griddb.container.monthly_mean}")
-    private String monthlyMeanContainer;
+    @Autowired
+    private GridDBBatchWriter batchWriter;
     
-    @Value("${griddb.container.stations}")
-    private String stationsContainer;
+    @Autowired
+    private MeterRegistry meterRegistry;
     
 
-    public void storeWaterLevelData(List<WaterLevelData> waterLevels) {
-        if (waterLevels.isEmpty()) return;
+    /**
+     * Writes readings to their station containers
+     *
+     * @return true if every container write succeeded
+     */
+    @Override
+    public boolean storeWaterLevelData(List<WaterLevelData> waterLevels) {
+        if (waterLevels.isEmpty()) return true;
         
-        try {
-            JSONArray batchData = new JSONArray();
-            
-            for (WaterLevelData wl : waterLevels) {
-                JSONArray row = new JSONArray();
-                row.put(wl.getTimestamp().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")));
-                row.put(wl.getStationId());
-                row.put(wl.getStationName());
-                row.put(wl.getWaterLevel());
-                row.put(wl.getDatum());
-                row.put(wl.getLatitude());
-                row.put(wl.getLongitude());
-                row.put(wl.getFlags() != null ? wl.getFlags() : "");
+        boolean stored = true;
+        Map<String, List<WaterLevelData>> byContainer = waterLevels.stream()
+            .collect(Collectors.groupingBy(wl -> schemaRegistry.waterLevelContainer(wl.getStationId()),
+                LinkedHashMap::new, Collectors.toList()));
+        
+        for (Map.Entry<String, List<WaterLevelData>> entry : byContainer.entrySet()) {
+            String container = entry.getKey();
+            try {
+                ensureContainer(ContainerKind.WATER_LEVEL, container);
+                
+                char[] timestamp = new char[24];
+                int written = batchWriter.write(entry.getValue(), (gen, wl) -> {
+                    gen.writeStartArray();
+                    gen.writeString(timestamp, 0, GridDBRowCodec.formatTimestamp(
+                        wl.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli(), timestamp));
+                    gen.writeString(wl.getStationId());
+                    gen.writeString(wl.getStationName());
+                    writeNumber(gen, wl.getWaterLevel());
+                    gen.writeString(wl.getDatum());
+                    writeNumber(gen, wl.getLatitude());
+                    writeNumber(gen, wl.getLongitude());
+                    gen.writeString(wl.getFlags() != null ? wl.getFlags() : "");
+                    gen.writeEndArray();
+                }, (body, length, count) -> sendPutRequest(container, body, length, count));
                 
-                batchData.put(row);
+                logger.info("Stored {} water level records in GridDB container {}", written, container);
+                
+            } catch (Exception e) {
+                logger.error("Error storing water level data in {}: {}", container, e.getMessage());
+                stored = false;
             }
-            
-            // Create container schema if not exists
-            createWaterLevelContainer();
-            
-            // Send batch data
-            sendPutRequest(waterLevelContainer, batchData);
-            
-            logger.info("Stored {} water level records in GridDB", waterLevels.size());
-            
-        } catch (Exception e) {
-            logger.error("Error storing water level data: {}", e.getMessage());
         }
+        return stored;
     }
     
 
-    public void storeMonthlyMeanData(List<MonthlyMeanData> monthlyData) {
-        if (monthlyData.isEmpty()) return;
+    /**
+     * Writes monthly means to their station containers
+     *
+     * @return true if every container write succeeded
+     */
+    @Override
+    public boolean storeMonthlyMeanData(List<MonthlyMeanData> monthlyData) {
+        if (monthlyData.isEmpty()) return true;
         
-        try {
-            JSONArray batchData = new JSONArray();
-            
-            for (MonthlyMeanData mm : monthlyData) {
-                JSONArray row = new JSONArray();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-                row.put(mm.getMonth().atStartOfDay().atZone(ZoneOffset.UTC).format(formatter));
-                row.put(mm.getStationId());
-                row.put(mm.getStationName());
-                row.put(mm.getMeanSeaLevel());
-                row.put(mm.getYear());
-                row.put(mm.getMonthNumber());
-                row.put(mm.getLatitude());
-                row.put(mm.getLongitude());
+        boolean stored = true;
+        Map<String, List<MonthlyMeanData>> byContainer = monthlyData.stream()
+            .collect(Collectors.groupingBy(mm -> schemaRegistry.monthlyMeanContainer(mm.getStationId()),
+                LinkedHashMap::new, Collectors.toList()));
+        
+        for (Map.Entry<String, List<MonthlyMeanData>> entry : byContainer.entrySet()) {
+            String container = entry.getKey();
+            try {
+                ensureContainer(ContainerKind.MONTHLY_MEAN, container);
+                
+                char[] timestamp = new char[24];
+                int written = batchWriter.write(entry.getValue(), (gen, mm) -> {
+                    gen.writeStartArray();
+                    gen.writeString(timestamp, 0, GridDBRowCodec.formatTimestamp(
+                        mm.getMonth().toEpochDay() * 86_400_000L, timestamp));
+                    gen.writeString(mm.getStationId());
+                    gen.writeString(mm.getStationName());
+                    writeNumber(gen, mm.getMeanSeaLevel());
+                    writeNumber(gen, mm.getYear());
+                    writeNumber(gen, mm.getMonthNumber());
+                    writeNumber(gen, mm.getLatitude());
+                    writeNumber(gen, mm.getLongitude());
+                    gen.writeEndArray();
+                }, (body, length, count) -> sendPutRequest(container, body, length, count));
+                
+                logger.info("Stored {} monthly mean records in GridDB container {}", written, container);
                 
-                batchData.put(row);
+            } catch (Exception e) {
+                logger.error("Error storing monthly mean data in {}: {}", container, e.getMessage());
+                stored = false;
             }
-            
-            // Create container schema if not exists
-            createMonthlyMeanContainer();
-            
-            // Send batch data
-            sendPutRequest(monthlyMeanContainer, batchData);
-            
-            logger.info("Stored {} monthly mean records in GridDB", monthlyData.size());
-            
-        } catch (Exception e) {
-            logger.error("Error storing monthly mean data: {}", e.getMessage());
         }
+        return stored;
     }
     
 
+    @Override
     public void storeStationMetadata(List<StationMetadata> stations) {
         if (stations.isEmpty()) return;
         
+        String container = schemaRegistry.stationsContainer();
         try {
-            JSONArray batchData = new JSONArray();
-            
-            for (StationMetadata station : stations) {
-                JSONArray row = new JSONArray();
-                row.put(station.getStationId());
-                row.put(station.getStationName());
-                row.put(station.getState());
-                row.put(station.getLatitude());
-                row.put(station.getLongitude());
-                row.put(station.getRegion() != null ? station.getRegion() : "");
-                row.put(station.getIsActive());
-                row.put(Instant.now().toString()); // last_updated timestamp
-                
-                batchData.put(row);
-            }
+            ensureContainer(ContainerKind.STATIONS, container);
             
-            // Create container schema if not exists
-            createStationsContainer();
-            
-            // Send batch data
-            sendPutRequest(stationsContainer, batchData);
+            String lastUpdated = Instant.now().toString();
+            batchWriter.write(stations, (gen, station) -> {
+                gen.writeStartArray();
+                gen.writeString(station.getStationId());
+                gen.writeString(station.getStationName());
+                gen.writeString(station.getState());
+                writeNumber(gen, station.getLatitude());
+                writeNumber(gen, station.getLongitude());
+                gen.writeString(station.getRegion() != null ? station.getRegion() : "");
+                if (station.getIsActive() != null) gen.writeBoolean(station.getIsActive()); else gen.writeNull();
+                gen.writeString(lastUpdated);
+                gen.writeEndArray();
+            }, (body, length, count) -> sendPutRequest(container, body, length, count));
             
             logger.info("Stored {} station metadata records in GridDB", stations.size());
             
@@ -141,221 +190,258 @@ public class GridDBService {
         }
     }
 
-    public String queryLatestWaterLevels(String stationId, int hours) {
-        try {
-            String url = String.format("%s/containers/%s/rows", gridDBRestUrl, waterLevelContainer);
-            JSONObject query = new JSONObject();
-            query.put("limit", 20000); // Fetch a large number of records to filter
-            
-            String response = sendPostRequest(url, query.toString());
-            JSONObject jsonResponse = new JSONObject(response);
-            
-            // Filter in application
-            JSONArray filteredRows = new JSONArray();
-            JSONArray columns = jsonResponse.getJSONArray("columns");
-            JSONArray rows = jsonResponse.getJSONArray("rows");
-            
-            int stationIdIndex = -1;
-            int timestampIndex = -1;
+    /**
+     * Raw readings with from <= timestamp < to, oldest first
+     */
+    @Override
+    public WaterLevelSeries loadWaterLevelRange(String stationId, long fromMillis, long toMillis) throws Exception {
+        String condition = stationCondition(stationId) + "timestamp >= " + tqlTimestamp(fromMillis)
+            + " AND timestamp < " + tqlTimestamp(toMillis);
+        WaterLevelSeries series = queryRows(schemaRegistry.waterLevelContainer(stationId), condition,
+            "timestamp asc", maxQueryRows, in -> GridDBRowCodec.decodeWaterLevels(in, maxQueryRows));
+        if (series.getStationId() == null) series.setStationId(stationId);
+        return series;
+    }
+    
+    /**
+     * Rollup buckets starting in [from, to), oldest first
+     */
+    @Override
+    public WaterLevelRollupSeries queryRollups(String stationId, RollupResolution resolution,
+                                               long fromMillis, long toMillis) throws Exception {
+        String condition = "bucket >= " + tqlTimestamp(fromMillis) + " AND bucket < " + tqlTimestamp(toMillis);
+        WaterLevelRollupSeries series = queryRows(schemaRegistry.rollupContainer(resolution.kind(), stationId),
+            condition, "bucket asc", maxQueryRows, in -> GridDBRowCodec.decodeRollups(in, maxQueryRows));
+        if (series.getStationId() == null) series.setStationId(stationId);
+        return series;
+    }
+    
+    /**
+     * Upserts rollup buckets; the containers are keyed by bucket start
+     */
+    @Override
+    public void storeRollups(RollupResolution resolution, WaterLevelRollupSeries rollups) throws Exception {
+        if (rollups.getSize() == 0) return;
+        
+        String container = schemaRegistry.rollupContainer(resolution.kind(), rollups.getStationId());
+        ensureContainer(resolution.kind(), container);
+        
+        char[] timestamp = new char[24];
+        List<Integer> rows = IntStream.range(0, rollups.getSize()).boxed().toList();
+        batchWriter.write(rows, (gen, i) -> {
+            gen.writeStartArray();
+            gen.writeString(timestamp, 0, GridDBRowCodec.formatTimestamp(rollups.getBuckets()[i], timestamp));
+            gen.writeString(rollups.getStationId());
+            gen.writeNumber(rollups.getMinLevels()[i]);
+            gen.writeNumber(rollups.getMaxLevels()[i]);
+            gen.writeNumber(rollups.getMeanLevels()[i]);
+            gen.writeNumber(rollups.getCounts()[i]);
+            gen.writeEndArray();
+        }, (body, length, count) -> sendPutRequest(container, body, length, count));
+    }
+    
+    /**
+     * Readings of the last {@code hours}, newest first up to the row limit, then reversed
+     */
+    @Override
+    public WaterLevelSeries loadWaterLevelSeries(String stationId, int hours) throws Exception {
+        LocalDateTime since = LocalDateTime.now(ZoneOffset.UTC).minusHours(hours);
+        String condition = stationCondition(stationId) + "timestamp >= " + tqlTimestamp(since);
+        // 6-minute readings: 10 per hour, plus headroom for duplicates at the window edges
+        int limit = (int) Math.min(maxQueryRows, hours * 10L + 10);
 
-            for (int i = 0; i < columns.length(); i++) {
-                JSONObject column = columns.getJSONObject(i);
-                String name = column.getString("name");
-                if ("station_id".equals(name)) {
-                    stationIdIndex = i;
-                } else if ("timestamp".equals(name)) {
-                    timestampIndex = i;
-                }
-            }
+        WaterLevelSeries series = queryRows(schemaRegistry.waterLevelContainer(stationId), condition,
+            "timestamp desc", limit, in -> GridDBRowCodec.decodeWaterLevels(in, limit));
+        GridDBRowCodec.reverse(series);
+        if (series.getStationId() == null) series.setStationId(stationId);
+        return series;
+    }
 
-            
-            for (int i = 0; i < rows.length(); i++) {
-                JSONArray row = rows.getJSONArray(i);
-                filteredRows.put(row);
-            }
+    /**
+     * Monthly mean sea levels of the last {@code years} for a station, oldest first
+     */
+    @Override
+    public MonthlyMeanSeries queryMonthlyMeanSeries(String stationId, int years) throws Exception {
+        LocalDateTime since = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).minusYears(years).atStartOfDay();
+        String condition = stationCondition(stationId) + "month >= " + tqlTimestamp(since);
+        int limit = (int) Math.min(maxQueryRows, years * 12L + 12);
 
-            JSONObject filteredResponse = new JSONObject();
-            filteredResponse.put("results", filteredRows);
-            return filteredResponse.toString();
+        MonthlyMeanSeries series = queryRows(schemaRegistry.monthlyMeanContainer(stationId), condition,
+            "month desc", limit, in -> GridDBRowCodec.decodeMonthlyMeans(in, limit));
+        GridDBRowCodec.reverse(series);
+        if (series.getStationId() == null) series.setStationId(stationId);
+        return series;
+    }
 
-        } catch (Exception e) {
-            logger.error("Error querying latest water levels for station {}: {}", stationId, e.getMessage());
-            return "{\"error\": \"" + e.getMessage() + "\"}";
+    /**
+     * Aggregated by GridDB itself, so only the buckets cross the network
+     */
+    @Override
+    public WaterLevelAggregateSeries aggregateWaterLevels(String stationId, LocalDateTime from, LocalDateTime to,
+                                                          TimeBucket bucket, List<String> fns) throws Exception {
+        // TQL aggregates return a single row and TIME_SAMPLING interpolates rather than
+        // aggregates, so bucketing is pushed down as SQL GROUP BY RANGE instead
+        StringBuilder sql = new StringBuilder("SELECT timestamp");
+        for (String fn : fns) {
+            sql.append(", ").append(fn.toUpperCase()).append("(water_level)");
         }
+        sql.append(" FROM \"").append(schemaRegistry.waterLevelContainer(stationId)).append('"')
+            .append(" WHERE ").append(stationCondition(stationId))
+            .append("timestamp >= ").append(tqlTimestamp(from))
+            .append(" AND timestamp < ").append(tqlTimestamp(to))
+            .append(" GROUP BY RANGE(timestamp) EVERY (").append(bucket.amount()).append(", ").append(bucket.sqlUnit()).append(')')
+            .append(" FILL(NONE)");
+        
+        JSONArray body = new JSONArray().put(new JSONObject().put("type", "sql-select").put("stmt", sql.toString()));
+        WaterLevelAggregateSeries series = post("sql", schemaRegistry.waterLevelContainer(stationId),
+            gridDBRestUrl + "/sql/dml/query", body.toString(),
+            in -> GridDBRowCodec.decodeAggregates(in, fns.size()));
+        series.setStationId(stationId);
+        series.setBucket(bucket.toString());
+        series.setFunctions(fns);
+        return series;
+    }
+    
+    @FunctionalInterface
+    private interface ResponseDecoder<T> {
+        T decode(InputStream in) throws IOException;
     }
 
-    public String queryMonthlyTrends(String stationId, int years) {
-        try {
-            String url = String.format("%s/containers/%s/rows", gridDBRestUrl, monthlyMeanContainer);
-            JSONObject query = new JSONObject();
-            query.put("limit", 20000); // Fetch a large number of records to filter
-
-            String response = sendPostRequest(url, query.toString());
-            JSONObject jsonResponse = new JSONObject(response);
-
-            // Filter in application
-            JSONArray filteredRows = new JSONArray();
-            JSONArray columns = jsonResponse.getJSONArray("columns");
-            JSONArray rows = jsonResponse.getJSONArray("rows");
-
-            int stationIdIndex = -1;
-            int monthIndex = -1;
-
-            for (int i = 0; i < columns.length(); i++) {
-                JSONObject column = columns.getJSONObject(i);
-                String name = column.getString("name");
-                if ("station_id".equals(name)) {
-                    stationIdIndex = i;
-                } else if ("month".equals(name)) {
-                    monthIndex = i;
-                }
-            }
-
-            for (int i = 0; i < rows.length(); i++) {
-                JSONArray row = rows.getJSONArray(i);
-                filteredRows.put(row);
-            }
-
-            JSONObject filteredResponse = new JSONObject();
-            filteredResponse.put("results", filteredRows);
-            return filteredResponse.toString();
+    /**
+     * Runs a filtered row acquisition against a container and decodes the response as it streams in.
+     * Callers sort newest-first so the limit always keeps the most recent rows.
+     */
+    private <T> T queryRows(String container, String condition, String sort, int limit,
+                            ResponseDecoder<T> decoder) throws Exception {
+        String url = String.format("%s/containers/%s/rows", gridDBRestUrl, container);
+        JSONObject query = new JSONObject();
+        query.put("offset", 0);
+        query.put("limit", limit);
+        query.put("condition", condition);
+        query.put("sort", sort);
 
-        } catch (Exception e) {
-            logger.error("Error querying monthly trends for station {}: {}", stationId, e.getMessage());
-            return "{\"error\": \"" + e.getMessage() + "\"}";
-        }
+        return post("query", container, url, query.toString(), decoder);
     }
     
- 
-    private void createWaterLevelContainer() {
-        try {
-            JSONObject schema = new JSONObject();
-            schema.put("container_name", waterLevelContainer);
-            schema.put("container_type", "COLLECTION");
-            schema.put("rowkey", true);
-            
-            JSONArray columns = new JSONArray();
-            columns.put(new JSONObject().put("name", "timestamp").put("type", "TIMESTAMP").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "station_id").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "station_name").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "water_level").put("type", "DOUBLE").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "datum").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "latitude").put("type", "DOUBLE").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "longitude").put("type", "DOUBLE").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "flags").put("type", "STRING").put("index", new JSONArray()));
-            
-            schema.put("columns", columns);
-            
-            sendPostRequest(gridDBRestUrl + "/containers", schema.toString());
-            
-        } catch (Exception e) {
-            // Ignore if container already exists
-            if (e.getMessage() == null || !e.getMessage().contains("already exist")) {
-                logger.error("Error creating water level container: {}", e.getMessage());
+    /**
+     * POSTs a JSON body and decodes the response as it streams in
+     */
+    private <T> T post(String operation, String container, String url, String json,
+                       ResponseDecoder<T> decoder) throws Exception {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try (HttpTransport.Response response = httpTransport.send("POST", url, requestHeaders(), body)) {
+            status = String.valueOf(response.status());
+            if (!response.isSuccess()) {
+                throw new RuntimeException("HTTP POST failed: " + response.status() + " - " + response.bodyAsString());
             }
+            return decoder.decode(response.body());
+        } finally {
+            recordRequest(operation, container, status, start);
         }
     }
-    
 
-    private void createMonthlyMeanContainer() {
-        try {
-            JSONObject schema = new JSONObject();
-            schema.put("container_name", monthlyMeanContainer);
-            schema.put("container_type", "COLLECTION");
-            schema.put("rowkey", true);
-            
-            JSONArray columns = new JSONArray();
-            columns.put(new JSONObject().put("name", "month").put("type", "TIMESTAMP").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "station_id").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "station_name").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "mean_sea_level").put("type", "DOUBLE").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "year").put("type", "INTEGER").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "month_number").put("type", "INTEGER").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "latitude").put("type", "DOUBLE").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "longitude").put("type", "DOUBLE").put("index", new JSONArray()));
-            
-            schema.put("columns", columns);
-            
-            sendPostRequest(gridDBRestUrl + "/containers", schema.toString());
-            
-        } catch (Exception e) {
-            if (e.getMessage() == null || !e.getMessage().contains("already exist")) {
-                logger.error("Error creating monthly mean container: {}", e.getMessage());
-            }
-        }
+    /**
+     * Station filter prefix for a where-clause; per-station containers need none
+     */
+    private String stationCondition(String stationId) {
+        return schemaRegistry.isPerStation() ? "" : "station_id = " + tqlString(stationId) + " AND ";
     }
-    
 
-    private void createStationsContainer() {
-        try {
-            JSONObject schema = new JSONObject();
-            schema.put("container_name", stationsContainer);
-            schema.put("container_type", "COLLECTION");
-            schema.put("rowkey", true);
-            
-            JSONArray columns = new JSONArray();
-            columns.put(new JSONObject().put("name", "station_id").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "station_name").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "state").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "latitude").put("type", "DOUBLE").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "longitude").put("type", "DOUBLE").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "region").put("type", "STRING").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "is_active").put("type", "BOOL").put("index", new JSONArray()));
-            columns.put(new JSONObject().put("name", "last_updated").put("type", "TIMESTAMP").put("index", new JSONArray()));
-            
-            schema.put("columns", columns);
-            
-            sendPostRequest(gridDBRestUrl + "/containers", schema.toString());
-            
-        } catch (Exception e) {
-            if (e.getMessage() == null || !e.getMessage().contains("already exist")) {
-                logger.error("Error creating stations container: {}", e.getMessage());
-            }
-        }
+    /**
+     * Quotes a value as a TQL string literal
+     */
+    private static String tqlString(String value) {
+        return "'" + value.replace("'", "''") + "'";
     }
-    
+
     /**
-     * Helper to send PUT request to GridDB REST API
+     * Formats a UTC date-time as a TQL TIMESTAMP() literal
      */
-    private void sendPutRequest(String container, JSONArray data) throws Exception {
-        String url = String.format("%s/containers/%s/rows", gridDBRestUrl, container);
-        sendHttpRequest("PUT", url, data.toString());
+    private static String tqlTimestamp(LocalDateTime utc) {
+        return "TIMESTAMP('" + utc.format(TIMESTAMP_FORMAT) + "')";
+    }
+    
+    private static String tqlTimestamp(long epochMillis) {
+        char[] buf = new char[24];
+        return "TIMESTAMP('" + new String(buf, 0, GridDBRowCodec.formatTimestamp(epochMillis, buf)) + "')";
+    }
+    
+ 
+    private void ensureContainer(ContainerKind kind, String container) throws Exception {
+        schemaRegistry.ensureContainer(kind, container,
+            schema -> sendHttpRequest("create", container, "POST", gridDBRestUrl + "/containers", schema.toString()));
     }
     
     /**
-     * Helper to send POST request to GridDB REST API
+     * Helper to send one PUT chunk, {@code body[0, length)}, to GridDB REST API
      */
-    private String sendPostRequest(String url, String data) throws Exception {
-        return sendHttpRequest("POST", url, data);
+    private void sendPutRequest(String container, byte[] body, int length, int rows) throws Exception {
+        String url = String.format("%s/containers/%s/rows", gridDBRestUrl, container);
+        meterRegistry.summary("coastal.griddb.put.rows", "container", container).record(rows);
+        meterRegistry.summary("coastal.griddb.put.bytes", "container", container).record(length);
+        
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try (HttpTransport.Response response = httpTransport.send("PUT", url, requestHeaders(), body, 0, length)) {
+            status = String.valueOf(response.status());
+            if (!response.isSuccess()) {
+                throw new RuntimeException("HTTP PUT failed: " + response.status() + " - " + response.bodyAsString());
+            }
+        } finally {
+            recordRequest("put", container, status, start);
+        }
     }
-
     
+    private static void writeNumber(JsonGenerator gen, Number value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (value instanceof Integer) {
+            gen.writeNumber(value.intValue());
+        } else {
+            gen.writeNumber(value.doubleValue());
+        }
+    }
     
     /**
      * Generic HTTP request sender
      */
-    private String sendHttpRequest(String method, String urlString, String data) throws Exception {
-        URL url = new URL(urlString);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod(method);
-        conn.setRequestProperty("Authorization", "Basic " + gridDBApiKey);
-        conn.setRequestProperty("Content-Type", "application/json");
+    private String sendHttpRequest(String operation, String container, String method, String urlString,
+                                   String data) throws Exception {
+        byte[] body = data != null ? data.getBytes(StandardCharsets.UTF_8) : null;
         
-        if (data != null) {
-            conn.setDoOutput(true);
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = data.getBytes("utf-8");
-                os.write(input, 0, input.length);
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try (HttpTransport.Response response = httpTransport.send(method, urlString, requestHeaders(), body)) {
+            status = String.valueOf(response.status());
+            if (response.isSuccess()) {
+                logger.debug("Successfully sent {} request to {}", method, urlString);
+                return response.bodyAsString();
+            } else {
+                throw new RuntimeException("HTTP " + method + " failed: " + response.status() + " - " + response.bodyAsString());
             }
+        } finally {
+            recordRequest(operation, container, status, start);
         }
-        
-        int responseCode = conn.getResponseCode();
-        if (responseCode >= 200 && responseCode < 300) {
-            logger.debug("Successfully sent {} request to {}", method, urlString);
-            return new String(conn.getInputStream().readAllBytes(), "utf-8");
-        } else {
-            String errorMessage = new String(conn.getErrorStream().readAllBytes(), "utf-8");
-            throw new RuntimeException("HTTP " + method + " failed: " + responseCode + " - " + errorMessage);
+    }
+    
+    /**
+     * Times a WebAPI call that started at {@code startNanos}; anything but a 2xx is a failure
+     */
+    private void recordRequest(String operation, String container, String status, long startNanos) {
+        Timer.builder("coastal.griddb.request")
+            .tags("operation", operation, "container", container, "status", status)
+            .register(meterRegistry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (!status.startsWith("2")) {
+            meterRegistry.counter("coastal.griddb.failures", "operation", operation, "container", container).increment();
         }
     }
-}
\ No newline at end of file
+    
+    private Map<String, String> requestHeaders() {
+        return Map.of(
+            "Authorization", "Basic " + gridDBApiKey,
+            "Content-Type", "application/json");
+    }
+}
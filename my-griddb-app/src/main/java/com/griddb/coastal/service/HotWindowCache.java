@@ -0,0 +1,203 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The most recent {@code cache.hot.window.hours} of water levels per station, kept in
+ * fixed-size primitive ring buffers so dashboard reads don't go to GridDB.
+ *
+ * A window is warmed from GridDB at startup and appended to by ingestion. It only
+ * answers a query when it is known to hold every reading since the requested time:
+ * from the start of the warm-up, or from the first appended reading if warming
+ * failed, and never further back than its oldest retained slot once it has wrapped.
+ */
+@Component
+public class HotWindowCache {
+
+    // 6-minute readings, with headroom for the odd extra reading
+    private static final int SLOTS_PER_HOUR = 12;
+
+    @Value("${cache.hot.window.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.hot.window.hours:48}")
+    private int windowHours;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    // NOAA quality flags take only a handful of values
+    private final Map<String, String> flagPool = new ConcurrentHashMap<>();
+
+    private static final class Window {
+        final long[] epochSeconds;
+        final float[] levels;
+        final String[] flags;
+        int head; // next slot to write
+        int size;
+        long coveredFrom = Long.MAX_VALUE; // epoch second from which the window is complete
+        String stationName;
+        String datum;
+        Double latitude;
+        Double longitude;
+
+        Window(int capacity) {
+            epochSeconds = new long[capacity];
+            levels = new float[capacity];
+            flags = new String[capacity];
+        }
+
+        long newest() {
+            return size == 0 ? Long.MIN_VALUE : epochSeconds[(head - 1 + epochSeconds.length) % epochSeconds.length];
+        }
+
+        void add(long epochSecond, float level, String flag) {
+            epochSeconds[head] = epochSecond;
+            levels[head] = level;
+            flags[head] = flag;
+            head = (head + 1) % epochSeconds.length;
+            if (size < epochSeconds.length) {
+                size++;
+            } else {
+                // Overwrote the oldest reading; the window now starts at the next one
+                coveredFrom = Math.max(coveredFrom, epochSeconds[head]);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getWindowHours() {
+        return windowHours;
+    }
+
+    /**
+     * Loads a station's window from readings queried from GridDB, covering everything
+     * since {@code coveredFromMillis}. Readings appended meanwhile are kept.
+     */
+    public void warm(WaterLevelSeries series, long coveredFromMillis) {
+        if (!enabled) return;
+
+        Window window = windows.computeIfAbsent(series.getStationId(), id -> newWindow());
+        synchronized (window) {
+            long warmedUpTo = series.getSize() == 0 ? Long.MIN_VALUE : series.getTimestamps()[series.getSize() - 1] / 1000;
+            int capacity = window.epochSeconds.length;
+            int keep = 0;
+            long[] keptSeconds = new long[window.size];
+            float[] keptLevels = new float[window.size];
+            String[] keptFlags = new String[window.size];
+            for (int i = 0; i < window.size; i++) {
+                int slot = (window.head - window.size + i + capacity) % capacity;
+                if (window.epochSeconds[slot] > warmedUpTo) {
+                    keptSeconds[keep] = window.epochSeconds[slot];
+                    keptLevels[keep] = window.levels[slot];
+                    keptFlags[keep++] = window.flags[slot];
+                }
+            }
+
+            window.head = 0;
+            window.size = 0;
+            window.coveredFrom = coveredFromMillis / 1000;
+            for (int i = 0; i < series.getSize(); i++) {
+                window.add(series.getTimestamps()[i] / 1000, (float) series.getWaterLevels()[i], intern(series.getFlags()[i]));
+            }
+            for (int i = 0; i < keep; i++) {
+                window.add(keptSeconds[i], keptLevels[i], keptFlags[i]);
+            }
+            copyAttributes(window, series.getStationName(), series.getDatum(), series.getLatitude(), series.getLongitude());
+        }
+    }
+
+    /**
+     * Appends freshly ingested readings, oldest first; readings not newer than the window's newest are ignored
+     */
+    public void append(List<WaterLevelData> readings) {
+        if (!enabled || readings.isEmpty()) return;
+
+        WaterLevelData first = readings.get(0);
+        Window window = windows.computeIfAbsent(first.getStationId(), id -> newWindow());
+        synchronized (window) {
+            for (WaterLevelData wl : readings) {
+                long epochSecond = wl.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+                if (epochSecond <= window.newest()) continue;
+                if (window.size == 0) {
+                    window.coveredFrom = Math.min(window.coveredFrom, epochSecond);
+                }
+                float level = wl.getWaterLevel() != null ? wl.getWaterLevel().floatValue() : Float.NaN;
+                window.add(epochSecond, level, intern(wl.getFlags()));
+            }
+            copyAttributes(window, first.getStationName(), first.getDatum(), first.getLatitude(), first.getLongitude());
+        }
+    }
+
+    /**
+     * Readings since {@code sinceMillis}, oldest first, or null if the window can't answer for that range
+     */
+    public WaterLevelSeries read(String stationId, long sinceMillis) {
+        if (!enabled) return null;
+        Window window = windows.get(stationId);
+        if (window == null) return null;
+
+        long since = Math.floorDiv(sinceMillis + 999, 1000);
+        synchronized (window) {
+            if (since < window.coveredFrom) return null;
+
+            int capacity = window.epochSeconds.length;
+            // Binary search for the first reading at or after since
+            int lo = 0, hi = window.size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int slot = (window.head - window.size + mid + capacity) % capacity;
+                if (window.epochSeconds[slot] < since) lo = mid + 1;
+                else hi = mid;
+            }
+            int start = lo;
+            int n = window.size - start;
+            long[] timestamps = new long[n];
+            double[] waterLevels = new double[n];
+            String[] flags = new String[n];
+            for (int i = 0; i < n; i++) {
+                int slot = (window.head - window.size + start + i + capacity) % capacity;
+                timestamps[i] = window.epochSeconds[slot] * 1000;
+                // Widen through the shortest decimal form so 1.234f reads back as 1.234
+                waterLevels[i] = Double.parseDouble(Float.toString(window.levels[slot]));
+                flags[i] = window.flags[slot];
+            }
+            return WaterLevelSeries.builder()
+                .stationId(stationId)
+                .stationName(window.stationName)
+                .datum(window.datum)
+                .latitude(window.latitude)
+                .longitude(window.longitude)
+                .size(n)
+                .timestamps(timestamps)
+                .waterLevels(waterLevels)
+                .flags(flags)
+                .build();
+        }
+    }
+
+    private Window newWindow() {
+        return new Window(windowHours * SLOTS_PER_HOUR);
+    }
+
+    private static void copyAttributes(Window window, String stationName, String datum, Double latitude, Double longitude) {
+        if (stationName != null) window.stationName = stationName;
+        if (datum != null) window.datum = datum;
+        if (latitude != null) window.latitude = latitude;
+        if (longitude != null) window.longitude = longitude;
+    }
+
+    private String intern(String flag) {
+        return flag == null ? null : flagPool.computeIfAbsent(flag, f -> f);
+    }
+}
@@ -0,0 +1,27 @@
+package com.griddb.coastal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class HttpClientConfig {
+
+  /**
+   * Shared client for GridDB and NOAA calls. The JDK client keeps a pool of
+   * keep-alive connections per host and negotiates HTTP/2 over TLS when the
+   * server offers it, falling back to HTTP/1.1 otherwise.
+   */
+  @Bean
+  public HttpClient httpClient(@Value("${http.client.connect.timeout.ms:5000}") long connectTimeoutMs,
+                               @Value("${http.client.version:HTTP_2}") HttpClient.Version version) {
+    return HttpClient.newBuilder()
+        .version(version)
+        .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
+  }
+}
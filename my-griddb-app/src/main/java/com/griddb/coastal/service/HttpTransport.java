@@ -0,0 +1,250 @@
+package com.griddb.coastal.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP transport shared by the GridDB and NOAA clients.
+ *
+ * Wraps the pooled {@link HttpClient} with request timeouts, gzip negotiation and a
+ * per-host cap on in-flight requests. A request holds its host permit until the
+ * {@link Response} is closed, and closing drains the body so the connection goes
+ * back to the pool.
+ *
+ * Domains listed in {@code http.client.rate.limits} ("domain:requestsPerSecond;...") are
+ * additionally paced by a token bucket, e.g. to stay within NOAA's request etiquette. An
+ * entry covers the domain and all of its subdomains, which share its bucket; the most
+ * specific entry wins.
+ */
+@Component
+public class HttpTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpTransport.class);
+
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    @Autowired
+    private HttpClient httpClient;
+
+    @Value("${http.client.read.timeout.ms:30000}")
+    private long readTimeoutMs;
+
+    @Value("${http.client.max.concurrent.per.host:8}")
+    private int maxConcurrentPerHost;
+
+    @Value("${http.client.gzip.requests:false}")
+    private boolean gzipRequests;
+
+    @Value("${http.client.rate.limits:}")
+    private String rateLimitsConfig;
+
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private final Map<String, TokenBucketRateLimiter> domainRateLimiters = new ConcurrentHashMap<>();
+
+    // Host to the limiter of its most specific configured domain, resolved on first use
+    private final Map<String, Optional<TokenBucketRateLimiter>> hostRateLimiters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String entry : rateLimitsConfig.split(";")) {
+            String[] parts = entry.split(":");
+            if (parts.length == 2) {
+                double rate = Double.parseDouble(parts[1].trim());
+                domainRateLimiters.put(parts[0].trim().toLowerCase(), new TokenBucketRateLimiter(rate, Math.max(1, rate)));
+                logger.info("Rate limiting {} to {} requests/s", parts[0].trim(), rate);
+            }
+        }
+    }
+
+    private Optional<TokenBucketRateLimiter> rateLimiterFor(String host) {
+        String name = host.toLowerCase();
+        String match = null;
+        for (String domain : domainRateLimiters.keySet()) {
+            if ((name.equals(domain) || name.endsWith("." + domain))
+                    && (match == null || domain.length() > match.length())) {
+                match = domain;
+            }
+        }
+        return Optional.ofNullable(match).map(domainRateLimiters::get);
+    }
+
+    /**
+     * Response whose body has already been decompressed. Must be closed.
+     */
+    public static final class Response implements Closeable {
+        private final int status;
+        private final InputStream body;
+
+        private Response(int status, InputStream body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int status() {
+            return status;
+        }
+
+        public boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        public InputStream body() {
+            return body;
+        }
+
+        public String bodyAsString() throws IOException {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * Sends a request with an optional in-memory body
+     */
+    public Response send(String method, String url, Map<String, String> headers, byte[] body) throws IOException {
+        return send(method, url, headers, body, 0, body != null ? body.length : 0);
+    }
+
+    /**
+     * Sends a request whose body is a slice of a (possibly larger, reused) buffer
+     */
+    public Response send(String method, String url, Map<String, String> headers,
+                         byte[] body, int offset, int length) throws IOException {
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.noBody();
+        HttpRequest.Builder builder = newRequest(url, headers);
+
+        if (body != null) {
+            if (gzipRequests && length >= GZIP_MIN_BYTES) {
+                body = gzip(body, offset, length);
+                offset = 0;
+                length = body.length;
+                builder.header("Content-Encoding", "gzip");
+            }
+            publisher = HttpRequest.BodyPublishers.ofByteArray(body, offset, length);
+        }
+
+        return send(builder.method(method, publisher).build());
+    }
+
+    /**
+     * Convenience for a GET request
+     */
+    public Response get(String url, Map<String, String> headers) throws IOException {
+        return send("GET", url, headers, null);
+    }
+
+    private HttpRequest.Builder newRequest(String url, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(Duration.ofMillis(readTimeoutMs))
+            .header("Accept-Encoding", "gzip");
+        headers.forEach(builder::header);
+        return builder;
+    }
+
+    private Response send(HttpRequest request) throws IOException {
+        Semaphore permits = hostPermits.computeIfAbsent(request.uri().getHost(),
+            host -> new Semaphore(maxConcurrentPerHost));
+
+        TokenBucketRateLimiter rateLimiter = hostRateLimiters
+            .computeIfAbsent(request.uri().getHost(), this::rateLimiterFor).orElse(null);
+
+        try {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            if (!permits.tryAcquire(readTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting for a connection slot to " + request.uri().getHost());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection slot");
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            permits.release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during " + request.method() + " " + request.uri());
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        logger.debug("{} {} -> {} ({})", request.method(), request.uri(), response.statusCode(), response.version());
+
+        InputStream raw = new PermitReleasingStream(response.body(), permits);
+        boolean gzipped = response.headers().firstValue("Content-Encoding")
+            .map(enc -> enc.equalsIgnoreCase("gzip"))
+            .orElse(false);
+        try {
+            return new Response(response.statusCode(), gzipped ? new GZIPInputStream(raw) : raw);
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    private static byte[] gzip(byte[] data, int offset, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data, offset, length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Drains the body on close, so the connection can be reused, and returns the host permit once
+     */
+    private static final class PermitReleasingStream extends FilterInputStream {
+        private final Semaphore permits;
+        private boolean closed;
+
+        PermitReleasingStream(InputStream in, Semaphore permits) {
+            super(in);
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                in.transferTo(OutputStream.nullOutputStream());
+                in.close();
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.griddb.coastal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class IngestionConfig {
+
+  /**
+   * Workers that fetch and store stations in parallel. The pool size caps how many
+   * stations are in progress at once; upstream request rates are limited separately
+   * per host by {@link HttpTransport}.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService ingestionExecutor(@Value("${ingestion.concurrency:8}") int concurrency) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(concurrency, r -> {
+      Thread t = new Thread(r, "ingest-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+}
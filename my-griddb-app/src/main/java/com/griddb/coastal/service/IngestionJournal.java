@@ -0,0 +1,445 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.WaterLevelData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal for ingested batches.
+ *
+ * Every batch handed to the write-behind buffer is appended here first, so rows
+ * survive a GridDB outage or a restart without going back to NOAA. The journal is a
+ * series of preallocated, memory-mapped segment files named after the offset of
+ * their first byte. A record is {@code [int length][int crc32c][byte kind][rows]};
+ * a zero length marks the end of the written part of a segment, and a record whose
+ * checksum does not match (a torn write) ends replay of that segment.
+ *
+ * A record is acknowledged once its rows are stored. Everything below the lowest
+ * unacknowledged offset is done: that offset is persisted to {@code ack} and the
+ * segments wholly below it are deleted. Unacknowledged records are replayed on
+ * startup, and failed ones are retried until GridDB accepts them.
+ */
+@Component
+public class IngestionJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJournal.class);
+
+    public static final byte WATER_LEVEL = 1;
+    public static final byte MONTHLY_MEAN = 2;
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String ACK_FILE = "ack";
+
+    @Value("${ingestion.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ingestion.journal.dir:data/journal}")
+    private String journalDir;
+
+    @Value("${ingestion.journal.segment.bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${ingestion.journal.fsync:true}")
+    private boolean fsync;
+
+    /**
+     * A journaled batch, decoded back into rows
+     */
+    public record Entry(long offset, byte kind, List<?> rows) {
+    }
+
+    private static final class Segment {
+        final long baseOffset;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(long baseOffset, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.baseOffset = baseOffset;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    private Path dir;
+
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+
+    private Segment active;
+
+    private long ackedOffset;
+
+    // Unacknowledged record offsets -> true while the rows are on their way to GridDB
+    private final ConcurrentSkipListMap<Long, Boolean> unacked = new ConcurrentSkipListMap<>();
+
+    private final List<Entry> recovered = new ArrayList<>();
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) return;
+
+        dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        Path ackPath = dir.resolve(ACK_FILE);
+        ackedOffset = Files.exists(ackPath) ? Long.parseLong(Files.readString(ackPath).trim()) : 0;
+
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                bases.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        bases.sort(null);
+
+        for (long base : bases) {
+            Segment segment = map(base, Math.max(segmentBytes, (int) Files.size(segmentPath(base))));
+            segments.put(base, segment);
+            scan(segment);
+        }
+
+        if (segments.isEmpty()) {
+            active = map(ackedOffset, segmentBytes);
+            segments.put(ackedOffset, active);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+        dropAckedSegments();
+
+        if (!recovered.isEmpty()) {
+            logger.info("Ingestion journal holds {} unacknowledged batches to replay", recovered.size());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.error("Error closing journal segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+        segments.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends a batch and returns its offset; the batch is durable when this returns
+     */
+    public long appendWaterLevels(List<WaterLevelData> rows) throws IOException {
+        return append(WATER_LEVEL, encodeWaterLevels(rows));
+    }
+
+    public long appendMonthlyMeans(List<MonthlyMeanData> rows) throws IOException {
+        return append(MONTHLY_MEAN, encodeMonthlyMeans(rows));
+    }
+
+    /**
+     * Marks the record's rows as stored
+     */
+    public synchronized void ack(long offset) {
+        unacked.remove(offset);
+        long newAcked = unacked.isEmpty() ? active.baseOffset + active.buffer.position() : unacked.firstKey();
+        if (newAcked > ackedOffset) {
+            ackedOffset = newAcked;
+            saveAckedOffset();
+            dropAckedSegments();
+        }
+    }
+
+    /**
+     * Marks the record's write as failed so it is picked up by {@link #takeFailed()}
+     */
+    public void fail(long offset) {
+        unacked.replace(offset, true, false);
+    }
+
+    /**
+     * Unacknowledged batches found on startup; each is returned only once
+     */
+    public synchronized List<Entry> takeRecovered() {
+        List<Entry> entries = new ArrayList<>(recovered);
+        recovered.clear();
+        return entries;
+    }
+
+    /**
+     * Failed batches, re-read from disk and marked as in flight again
+     */
+    public synchronized List<Entry> takeFailed() {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<Long, Boolean> record : unacked.entrySet()) {
+            if (record.getValue() || !unacked.replace(record.getKey(), false, true)) continue;
+            try {
+                entries.add(read(record.getKey()));
+            } catch (IOException e) {
+                logger.error("Dropping unreadable journal record at {}: {}", record.getKey(), e.getMessage());
+                unacked.remove(record.getKey());
+            }
+        }
+        return entries;
+    }
+
+    public int unackedBatches() {
+        return unacked.size();
+    }
+
+    private synchronized long append(byte kind, byte[] rows) throws IOException {
+        int length = 1 + rows.length;
+        if (active.buffer.remaining() < HEADER_BYTES + length + HEADER_BYTES) {
+            rotate(HEADER_BYTES + length + HEADER_BYTES);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(kind);
+        crc.update(rows);
+
+        MappedByteBuffer buffer = active.buffer;
+        int start = buffer.position();
+        buffer.putInt(length).putInt((int) crc.getValue()).put(kind).put(rows);
+        if (fsync) {
+            buffer.force(start, HEADER_BYTES + length);
+        }
+
+        long offset = active.baseOffset + start;
+        unacked.put(offset, true);
+        return offset;
+    }
+
+    private void rotate(int minBytes) throws IOException {
+        long base = active.baseOffset + active.buffer.position();
+        active.buffer.force();
+        active = map(base, Math.max(segmentBytes, minBytes));
+        segments.put(base, active);
+        logger.debug("Rotated ingestion journal to segment {}", active.path);
+    }
+
+    private Segment map(long base, int size) throws IOException {
+        Path path = segmentPath(base);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(base, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    /**
+     * Walks a segment up to its last intact record, collecting those not yet acknowledged
+     */
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.position(0);
+        boolean torn = false;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length == 0) break;
+            if (length < 0 || length > buffer.remaining() - HEADER_BYTES) {
+                logger.warn("Journal segment {} has a truncated record at {}; ignoring the rest", segment.path, start);
+                torn = true;
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(start + HEADER_BYTES, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+                logger.warn("Journal segment {} has a torn record at {}; ignoring the rest", segment.path, start);
+                torn = true;
+                break;
+            }
+
+            long offset = segment.baseOffset + start;
+            if (offset >= ackedOffset) {
+                try {
+                    recovered.add(decode(offset, payload));
+                    unacked.put(offset, true);
+                } catch (IOException e) {
+                    logger.error("Skipping undecodable journal record at {}: {}", offset, e.getMessage());
+                }
+            }
+            buffer.position(start + HEADER_BYTES + length);
+        }
+
+        // Clear whatever a torn write left behind so the next append starts clean. Past a
+        // damaged record that is the whole rest of the segment: intact records after it
+        // would otherwise come back to life once new appends line up with them again.
+        int end = buffer.position();
+        int clearTo = torn ? buffer.limit() : Math.min(buffer.limit(), end + HEADER_BYTES);
+        for (int i = end; i < clearTo; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    private Entry read(long offset) throws IOException {
+        Segment segment = segments.floorEntry(offset).getValue();
+        int start = (int) (offset - segment.baseOffset);
+        byte[] payload = new byte[segment.buffer.getInt(start)];
+        segment.buffer.get(start + HEADER_BYTES, payload);
+        return decode(offset, payload);
+    }
+
+    private void dropAckedSegments() {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Segment> oldest = segments.firstEntry();
+            Long next = segments.higherKey(oldest.getKey());
+            if (next > ackedOffset) break;
+            segments.remove(oldest.getKey());
+            try {
+                oldest.getValue().close();
+                Files.deleteIfExists(oldest.getValue().path);
+            } catch (IOException e) {
+                logger.error("Error deleting journal segment {}: {}", oldest.getValue().path, e.getMessage());
+            }
+        }
+    }
+
+    private void saveAckedOffset() {
+        try {
+            Path tmp = Files.createTempFile(dir, ACK_FILE, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writer.write(Long.toString(ackedOffset));
+            }
+            Files.move(tmp, dir.resolve(ACK_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Error saving journal ack offset: {}", e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return dir.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+    }
+
+    private static byte[] encodeWaterLevels(List<WaterLevelData> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(rows.size());
+        for (WaterLevelData wl : rows) {
+            writeString(out, wl.getStationId());
+            writeString(out, wl.getStationName());
+            out.writeLong(wl.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+            writeDouble(out, wl.getWaterLevel());
+            writeString(out, wl.getDatum());
+            writeDouble(out, wl.getLatitude());
+            writeDouble(out, wl.getLongitude());
+            writeString(out, wl.getFlags());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeMonthlyMeans(List<MonthlyMeanData> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(rows.size());
+        for (MonthlyMeanData mm : rows) {
+            writeString(out, mm.getStationId());
+            writeString(out, mm.getStationName());
+            out.writeLong(mm.getMonth().toEpochDay());
+            writeDouble(out, mm.getMeanSeaLevel());
+            out.writeInt(mm.getYear() != null ? mm.getYear() : mm.getMonth().getYear());
+            out.writeInt(mm.getMonthNumber() != null ? mm.getMonthNumber() : mm.getMonth().getMonthValue());
+            writeDouble(out, mm.getLatitude());
+            writeDouble(out, mm.getLongitude());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(long offset, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte kind = in.readByte();
+        int count = in.readInt();
+        if (kind == WATER_LEVEL) {
+            List<WaterLevelData> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(WaterLevelData.builder()
+                    .stationId(readString(in))
+                    .stationName(readString(in))
+                    .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC))
+                    .waterLevel(readDouble(in))
+                    .datum(readString(in))
+                    .latitude(readDouble(in))
+                    .longitude(readDouble(in))
+                    .flags(readString(in))
+                    .build());
+            }
+            return new Entry(offset, kind, rows);
+        }
+        if (kind == MONTHLY_MEAN) {
+            List<MonthlyMeanData> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(MonthlyMeanData.builder()
+                    .stationId(readString(in))
+                    .stationName(readString(in))
+                    .month(LocalDate.ofEpochDay(in.readLong()))
+                    .meanSeaLevel(readDouble(in))
+                    .year(in.readInt())
+                    .monthNumber(in.readInt())
+                    .latitude(readDouble(in))
+                    .longitude(readDouble(in))
+                    .build());
+            }
+            return new Entry(offset, kind, rows);
+        }
+        throw new IOException("Unknown journal record kind " + kind);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeDouble(value);
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+}
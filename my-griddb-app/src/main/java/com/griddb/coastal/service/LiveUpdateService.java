@@ -0,0 +1,259 @@
+package com.griddb.coastal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.griddb.coastal.model.StationMetadata;
+import com.griddb.coastal.model.SurgeAlert;
+import com.griddb.coastal.model.WaterLevelData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes new readings to dashboards over server-sent events.
+ *
+ * After each ingestion the new readings of a station are rendered once into a
+ * "readings" event (the same row layout as {@code /api/water-levels}) and a "summary"
+ * event with its latest reading; surge alerts go out as "surge" events. Every
+ * subscriber picks stations and event types, and has its own queue of at most
+ * {@code live.stream.buffer.events} events drained by a small sender pool. A
+ * subscriber that falls that far behind loses its queue and is sent a single "resync"
+ * event instead, telling it to reload. Between updates a subscriber costs only its
+ * queue and a keep-alive comment every {@code live.stream.heartbeat.ms}.
+ */
+@Service
+public class LiveUpdateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveUpdateService.class);
+
+    public static final String READINGS = "readings";
+    public static final String SUMMARY = "summary";
+    public static final String SURGE = "surge";
+    public static final String RESYNC = "resync";
+
+    public static final Set<String> TOPICS = Set.of(READINGS, SUMMARY, SURGE);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${live.stream.max.clients:1000}")
+    private int maxClients;
+
+    @Value("${live.stream.buffer.events:64}")
+    private int bufferEvents;
+
+    @Value("${live.stream.sender.threads:2}")
+    private int senderThreads;
+
+    @Value("${live.stream.heartbeat.ms:25000}")
+    private long heartbeatMs;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService sender;
+
+    private record Event(String topic, String stationId, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter = new SseEmitter(0L);
+        final Set<String> stations; // empty for all
+        final Set<String> topics;
+        final Deque<Event> queue = new ArrayDeque<>();
+        boolean lagging;
+        boolean draining;
+        volatile boolean closed;
+
+        Subscriber(Set<String> stations, Set<String> topics) {
+            this.stations = stations;
+            this.topics = topics;
+        }
+
+        boolean wants(Event event) {
+            return topics.contains(event.topic())
+                && (event.stationId() == null || stations.isEmpty() || stations.contains(event.stationId()));
+        }
+
+        void offer(Event event) {
+            synchronized (this) {
+                if (closed) return;
+                if (queue.size() >= bufferEvents) {
+                    queue.clear();
+                    lagging = true;
+                } else if (!lagging) {
+                    queue.addLast(event);
+                }
+                if (draining) return;
+                draining = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        void drain() {
+            while (true) {
+                Event event;
+                boolean resync;
+                synchronized (this) {
+                    resync = lagging;
+                    lagging = false;
+                    event = resync ? null : queue.pollFirst();
+                    if (!resync && event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    if (resync) {
+                        emitter.send(SseEmitter.event().name(RESYNC).data("{}", MediaType.APPLICATION_JSON));
+                    } else {
+                        emitter.send(event.frame());
+                    }
+                } catch (Exception e) {
+                    close(e);
+                    return;
+                }
+            }
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                if (draining || closed) return;
+            }
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (Exception e) {
+                close(e);
+            }
+        }
+
+        void close(Exception e) {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+                draining = false;
+            }
+            if (subscribers.remove(this)) {
+                logger.debug("Live stream subscriber dropped: {}", e != null ? e.getMessage() : "closed");
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        sender = Executors.newScheduledThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "live-stream-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        sender.scheduleAtFixedRate(() -> subscribers.forEach(Subscriber::heartbeat),
+            heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Opens a stream of the given topics for the given stations (all if empty)
+     *
+     * @throws IllegalStateException if {@code live.stream.max.clients} are already connected
+     */
+    public SseEmitter subscribe(Collection<String> stationIds, Collection<String> topics) {
+        Set<String> wanted = new HashSet<>(topics == null || topics.isEmpty() ? TOPICS : topics);
+        if (!TOPICS.containsAll(wanted)) {
+            throw new IllegalArgumentException("Topics must be among " + TOPICS);
+        }
+        if (subscribers.size() >= maxClients) {
+            throw new IllegalStateException("Too many live stream clients");
+        }
+
+        Subscriber subscriber = new Subscriber(stationIds == null ? Set.of() : Set.copyOf(stationIds), wanted);
+        subscriber.emitter.onCompletion(() -> subscriber.close(null));
+        subscriber.emitter.onTimeout(() -> subscriber.close(null));
+        subscriber.emitter.onError(e -> subscriber.close(null));
+        subscribers.add(subscriber);
+        return subscriber.emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Publishes a station's newly ingested readings, sorted by time, and its new latest reading
+     */
+    public void publishReadings(StationMetadata station, List<WaterLevelData> readings) {
+        if (subscribers.isEmpty() || readings.isEmpty()) return;
+
+        String stationId = station.getStationId();
+        WaterLevelData latest = readings.get(readings.size() - 1);
+        try {
+            String rows = GridDBRowCodec.render(gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("stationId", stationId);
+                gen.writeFieldName("results");
+                GridDBRowCodec.writeWaterLevelRows(readings, gen);
+                gen.writeEndObject();
+            });
+            String summary = GridDBRowCodec.render(gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("stationId", stationId);
+                gen.writeStringField("stationName", station.getStationName());
+                gen.writeNumberField("newReadings", readings.size());
+                gen.writeFieldName("latestWaterLevel");
+                gen.writeStartObject();
+                gen.writeFieldName("results");
+                GridDBRowCodec.writeWaterLevelRows(List.of(latest), gen);
+                gen.writeEndObject();
+                gen.writeNumberField("lastUpdated", System.currentTimeMillis());
+                gen.writeEndObject();
+            });
+            publish(new Event(READINGS, stationId, frame(READINGS, rows)));
+            publish(new Event(SUMMARY, stationId, frame(SUMMARY, summary)));
+        } catch (Exception e) {
+            logger.error("Error publishing live readings for station {}: {}", stationId, e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onSurgeAlert(SurgeAlert alert) {
+        if (subscribers.isEmpty()) return;
+        try {
+            publish(new Event(SURGE, alert.getStationId(), frame(SURGE, objectMapper.writeValueAsString(alert))));
+        } catch (Exception e) {
+            logger.error("Error publishing surge alert for station {}: {}", alert.getStationId(), e.getMessage());
+        }
+    }
+
+    private void publish(Event event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.wants(event)) subscriber.offer(event);
+        }
+    }
+
+    private static Set<ResponseBodyEmitter.DataWithMediaType> frame(String name, String json) {
+        return SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON).build();
+    }
+}
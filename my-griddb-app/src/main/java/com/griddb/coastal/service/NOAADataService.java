@@ -3,279 +3,203 @@ package com.griddb.coastal.service;
 import com.griddb.coastal.model.WaterLevelData;
 import com.griddb.coastal.model.MonthlyMeanData;
 import com.griddb.coastal.model.StationMetadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Client for the NOAA CO-OPS datagetter API.
+ *
+ * Every data request is timed as {@code coastal.noaa.fetch}, with the size of the
+ * response in {@code coastal.noaa.fetch.bytes} and the readings parsed from it in
+ * {@code coastal.noaa.fetch.rows}, tagged by station, product and HTTP status.
+ */
 @Service
 public class NOAADataService {
     
     private static final Logger logger = LoggerFactory.getLogger(NOAADataService.class);
     
+    private static final DateTimeFormatter REQUEST_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    // NOAA accepts "yyyyMMdd HH:mm"; the space is sent percent-encoded
+    private static final DateTimeFormatter REQUEST_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'%20'HH:mm");
+    
+    private static final DateTimeFormatter RESPONSE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    private static final Map<String, String> REQUEST_HEADERS = Map.of("User-Agent", "GridDB-CoastalMonitor/1.0");
+    
     @Value("${noaa.api.base.url}")
     private String noaaBaseUrl;
     
-    @Value("${noaa.api.metadata.url}")
-    private String noaaMetadataUrl;
-    
     @Value("${noaa.api.application}")
     private String applicationName;
     
-    @Value("${noaa.stations}")
-    private String stationsConfig;
+    @Autowired
+    private HttpTransport httpTransport;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
     
-    private Map<String, StationMetadata> stationCache = new HashMap<>();
+    @Autowired
+    private StationRegistry stationRegistry;
     
     /**
-     * Fetch latest water level data for a station
+     * Fetch water level readings between two UTC times (inclusive). NOAA serves at most
+     * 31 days of 6-minute data per request. Failures propagate to the caller, which
+     * retries or checkpoints.
      */
-    public List<WaterLevelData> fetchLatestWaterLevels(String stationId) {
-        List<WaterLevelData> waterLevels = new ArrayList<>();
+    public List<WaterLevelData> requestWaterLevels(String stationId, LocalDateTime begin, LocalDateTime end) throws Exception {
+        String urlStr = String.format("%s?product=water_level&application=%s&station=%s&begin_date=%s&end_date=%s&datum=MLLW&time_zone=gmt&units=metric&format=json",
+                noaaBaseUrl, applicationName, stationId, 
+                begin.format(REQUEST_TIME_FORMAT),
+                end.format(REQUEST_TIME_FORMAT));
         
-        try {
-            String urlStr = String.format("%s?product=water_level&application=%s&station=%s&date=latest&datum=MLLW&time_zone=gmt&units=metric&format=json",
-                    noaaBaseUrl, applicationName, stationId);
-            
-            logger.info("Fetching latest water levels from: {}", urlStr);
-            
-            String response = makeHttpRequest(urlStr);
-            JSONObject jsonResponse = new JSONObject(response);
-            
-            if (jsonResponse.has("data")) {
-                JSONArray dataArray = jsonResponse.getJSONArray("data");
-                StationMetadata station = getOrFetchStationMetadata(stationId);
-                
-                for (int i = 0; i < dataArray.length(); i++) {
-                    JSONObject dataPoint = dataArray.getJSONObject(i);
-                    
-                    // NOAA format: {"t": "yyyy-MM-dd HH:mm", "v": "x.xxx", "f": "..."}
-                    String timestamp = dataPoint.getString("t");
-                    double waterLevel = Double.parseDouble(dataPoint.getString("v"));
-                    String flags = dataPoint.optString("f", "");
-                    
-                    LocalDateTime dateTime = LocalDateTime.parse(timestamp, 
-                        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-                    
-                    WaterLevelData wld = new WaterLevelData(
-                        stationId, 
-                        station.getStationName(),
-                        dateTime,
-                        waterLevel,
-                        "MLLW",
-                        station.getLatitude(),
-                        station.getLongitude(),
-                        flags
-                    );
-                    waterLevels.add(wld);
-                }
-            }
-            
-            logger.info("Fetched {} water level readings for station {}", waterLevels.size(), stationId);
-            
-        } catch (Exception e) {
-            logger.error("Error fetching water level data for station {}: {}", stationId, e.getMessage());
-        }
+        logger.info("Fetching water levels from: {}", urlStr);
         
-        return waterLevels;
+        return parseWaterLevels(stationId, makeHttpRequest(urlStr, stationId, WatermarkStore.WATER_LEVEL));
     }
     
- 
-    public List<WaterLevelData> fetchRecentWaterLevels(String stationId, int days) {
+    /**
+     * Fetch monthly mean data between two dates (inclusive). Failures propagate to the
+     * caller, which retries or checkpoints.
+     */
+    public List<MonthlyMeanData> requestMonthlyMeanData(String stationId, LocalDate startDate, LocalDate endDate) throws Exception {
+        String urlStr = String.format("%s?product=monthly_mean&application=%s&station=%s&begin_date=%s&end_date=%s&datum=MSL&time_zone=gmt&units=metric&format=json",
+                noaaBaseUrl, applicationName, stationId, 
+                startDate.format(REQUEST_DATE_FORMAT),
+                endDate.format(REQUEST_DATE_FORMAT));
+        
+        logger.info("Fetching monthly mean data from: {}", urlStr);
+        
+        return parseMonthlyMeans(stationId, makeHttpRequest(urlStr, stationId, WatermarkStore.MONTHLY_MEAN));
+    }
+    
+    /**
+     * Parse a NOAA water_level response
+     */
+    private List<WaterLevelData> parseWaterLevels(String stationId, String response) {
         List<WaterLevelData> waterLevels = new ArrayList<>();
+        JSONObject jsonResponse = new JSONObject(response);
         
-        try {
-            LocalDate endDate = LocalDate.now();
-            LocalDate startDate = endDate.minusDays(days);
+        if (jsonResponse.has("data")) {
+            JSONArray dataArray = jsonResponse.getJSONArray("data");
+            StationMetadata station = stationRegistry.get(stationId);
             
-            String urlStr = String.format("%s?product=water_level&application=%s&station=%s&begin_date=%s&end_date=%s&datum=MLLW&time_zone=gmt&units=metric&format=json",
-                    noaaBaseUrl, applicationName, stationId, 
-                    startDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")),
-                    endDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")));
-            
-            logger.info("Fetching recent water levels from: {}", urlStr);
-            
-            String response = makeHttpRequest(urlStr);
-            JSONObject jsonResponse = new JSONObject(response);
-            
-            if (jsonResponse.has("data")) {
-                JSONArray dataArray = jsonResponse.getJSONArray("data");
-                StationMetadata station = getOrFetchStationMetadata(stationId);
+            for (int i = 0; i < dataArray.length(); i++) {
+                JSONObject dataPoint = dataArray.getJSONObject(i);
+                
+                // NOAA format: {"t": "yyyy-MM-dd HH:mm", "v": "x.xxx", "f": "..."}
+                String timestamp = dataPoint.getString("t");
+                String value = dataPoint.optString("v", "");
+                if (value.isEmpty()) continue; // gap in the record
+                double waterLevel = Double.parseDouble(value);
+                String flags = dataPoint.optString("f", "");
                 
-                for (int i = 0; i < dataArray.length(); i++) {
-                    JSONObject dataPoint = dataArray.getJSONObject(i);
-                    
-                    String timestamp = dataPoint.getString("t");
-                    double waterLevel = Double.parseDouble(dataPoint.getString("v"));
-                    String flags = dataPoint.optString("f", "");
-                    
-                    LocalDateTime dateTime = LocalDateTime.parse(timestamp, 
-                        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-                    
-                    WaterLevelData wld = new WaterLevelData(
-                        stationId, 
-                        station.getStationName(),
-                        dateTime,
-                        waterLevel,
-                        "MLLW",
-                        station.getLatitude(),
-                        station.getLongitude(),
-                        flags
-                    );
-                    waterLevels.add(wld);
-                }
+                LocalDateTime dateTime = LocalDateTime.parse(timestamp, RESPONSE_TIME_FORMAT);
+                
+                WaterLevelData wld = new WaterLevelData(
+                    stationId, 
+                    station.getStationName(),
+                    dateTime,
+                    waterLevel,
+                    "MLLW",
+                    station.getLatitude(),
+                    station.getLongitude(),
+                    flags
+                );
+                waterLevels.add(wld);
             }
-            
-            logger.info("Fetched {} historical water level readings for station {}", waterLevels.size(), stationId);
-            
-        } catch (Exception e) {
-            logger.error("Error fetching recent water level data for station {}: {}", stationId, e.getMessage());
         }
         
+        recordRows(stationId, WatermarkStore.WATER_LEVEL, waterLevels.size());
         return waterLevels;
     }
     
     /**
-     * Fetch monthly mean data for long-term trend analysis
+     * Parse a NOAA monthly_mean response
      */
-    public List<MonthlyMeanData> fetchMonthlyMeanData(String stationId, int years) {
+    private List<MonthlyMeanData> parseMonthlyMeans(String stationId, String response) {
         List<MonthlyMeanData> monthlyData = new ArrayList<>();
+        JSONObject jsonResponse = new JSONObject(response);
         
-        try {
-            LocalDate endDate = LocalDate.now();
-            LocalDate startDate = endDate.minusYears(years);
+        if (jsonResponse.has("data")) {
+            JSONArray dataArray = jsonResponse.getJSONArray("data");
+            StationMetadata station = stationRegistry.get(stationId);
             
-            String urlStr = String.format("%s?product=monthly_mean&application=%s&station=%s&begin_date=%s&end_date=%s&datum=MSL&time_zone=gmt&units=metric&format=json",
-                    noaaBaseUrl, applicationName, stationId, 
-                    startDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")),
-                    endDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")));
-            
-            logger.info("Fetching monthly mean data from: {}", urlStr);
-            
-            String response = makeHttpRequest(urlStr);
-            JSONObject jsonResponse = new JSONObject(response);
-            
-            if (jsonResponse.has("data")) {
-                JSONArray dataArray = jsonResponse.getJSONArray("data");
-                StationMetadata station = getOrFetchStationMetadata(stationId);
+            for (int i = 0; i < dataArray.length(); i++) {
+                JSONObject dataPoint = dataArray.getJSONObject(i);
                 
-                for (int i = 0; i < dataArray.length(); i++) {
-                    JSONObject dataPoint = dataArray.getJSONObject(i);
-                    
-                    // NOAA format: {"year": "YYYY", "month": "MM", "MSL": "x.xxx"}
-                    int year = Integer.parseInt(dataPoint.getString("year"));
-                    int monthNumber = Integer.parseInt(dataPoint.getString("month"));
-                    double meanLevel = Double.parseDouble(dataPoint.getString("MSL"));
-
-                    LocalDate month = LocalDate.of(year, monthNumber, 1);
-                    
-                    MonthlyMeanData mmd = new MonthlyMeanData(
-                        stationId,
-                        station.getStationName(),
-                        month,
-                        meanLevel,
-                        year,
-                        monthNumber,
-                        station.getLatitude(),
-                        station.getLongitude()
-                    );
-                    monthlyData.add(mmd);
-                }
+                // NOAA format: {"year": "YYYY", "month": "MM", "MSL": "x.xxx"}
+                String value = dataPoint.optString("MSL", "");
+                if (value.isEmpty()) continue; // month without a mean
+                int year = Integer.parseInt(dataPoint.getString("year"));
+                int monthNumber = Integer.parseInt(dataPoint.getString("month"));
+                double meanLevel = Double.parseDouble(value);
+                
+                LocalDate month = LocalDate.of(year, monthNumber, 1);
+                
+                MonthlyMeanData mmd = new MonthlyMeanData(
+                    stationId,
+                    station.getStationName(),
+                    month,
+                    meanLevel,
+                    year,
+                    monthNumber,
+                    station.getLatitude(),
+                    station.getLongitude()
+                );
+                monthlyData.add(mmd);
             }
-            
-            logger.info("Fetched {} monthly mean readings for station {}", monthlyData.size(), stationId);
-            
-        } catch (Exception e) {
-            logger.error("Error fetching monthly mean data for station {}: {}", stationId, e.getMessage());
         }
         
+        recordRows(stationId, WatermarkStore.MONTHLY_MEAN, monthlyData.size());
         return monthlyData;
     }
     
     /**
-     * Get configured monitoring stations
+     * Make HTTP request to NOAA API
      */
-    public List<StationMetadata> getConfiguredStations() {
-        List<StationMetadata> stations = new ArrayList<>();
-        
-        String[] stationConfigs = stationsConfig.split(";");
-        for (String config : stationConfigs) {
-            String[] parts = config.split(",");
-            if (parts.length >= 6) {
-                StationMetadata station = StationMetadata.builder()
-                    .stationId(parts[0].trim())
-                    .stationName(parts[1].trim())
-                    .state(parts[2].trim())
-                    .latitude(Double.parseDouble(parts[3].trim()))
-                    .longitude(Double.parseDouble(parts[4].trim()))
-                    .isActive(Boolean.parseBoolean(parts[5].trim()))
-                    .build();
-                stations.add(station);
+    private String makeHttpRequest(String urlStr, String stationId, String product) throws Exception {
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try (HttpTransport.Response response = httpTransport.get(urlStr, REQUEST_HEADERS)) {
+            status = String.valueOf(response.status());
+            if (response.status() != 200) {
+                throw new RuntimeException("HTTP Error: " + response.status());
             }
+            
+            byte[] body = response.body().readAllBytes();
+            meterRegistry.summary("coastal.noaa.fetch.bytes", "station", stationId, "product", product).record(body.length);
+            
+            String responseStr = new String(body, StandardCharsets.UTF_8);
+            logger.debug("NOAA API Response for {}: {}", urlStr, responseStr);
+            if (responseStr.trim().isEmpty()) {
+                return "{}";
+            }
+            return responseStr;
+        } finally {
+            Timer.builder("coastal.noaa.fetch")
+                .tags(Tags.of("station", stationId, "product", product, "status", status))
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        
-        return stations;
-    }
-    
-    /**
-     * Get or fetch station metadata
-     */
-    private StationMetadata getOrFetchStationMetadata(String stationId) {
-        if (stationCache.containsKey(stationId)) {
-            return stationCache.get(stationId);
-        }
-        
-        // Return default station info if not in cache
-        StationMetadata station = StationMetadata.builder()
-            .stationId(stationId)
-            .stationName("Station " + stationId)
-            .latitude(40.0) // Default coordinates
-            .longitude(-74.0)
-            .build();
-        stationCache.put(stationId, station);
-        
-        return station;
     }
     
-    /**
-     * Make HTTP request to NOAA API
-     */
-    private String makeHttpRequest(String urlStr) throws Exception {
-        URL url = new URL(urlStr);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("User-Agent", "GridDB-CoastalMonitor/1.0");
-        
-        int responseCode = conn.getResponseCode();
-        if (responseCode != 200) {
-            throw new RuntimeException("HTTP Error: " + responseCode);
-        }
-        
-        BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        StringBuilder response = new StringBuilder();
-        String line;
-        
-        while ((line = reader.readLine()) != null) {
-            response.append(line);
-        }
-        reader.close();
-        
-        String responseStr = response.toString();
-        logger.info("NOAA API Response for {}: {}", urlStr, responseStr);
-        if (responseStr.trim().isEmpty()) {
-            return "{}";
-        }
-        return responseStr;
+    private void recordRows(String stationId, String product, int rows) {
+        meterRegistry.summary("coastal.noaa.fetch.rows", "station", stationId, "product", product).record(rows);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.service.GridDBSchemaRegistry.ContainerKind;
+
+/**
+ * Resolutions water levels can be read at: raw 6-minute readings or the rollups
+ */
+public enum RollupResolution {
+    RAW(360_000L, ContainerKind.WATER_LEVEL),
+    HOURLY(3_600_000L, ContainerKind.WATER_LEVEL_HOURLY),
+    DAILY(86_400_000L, ContainerKind.WATER_LEVEL_DAILY);
+
+    private final long bucketMillis;
+    private final ContainerKind kind;
+
+    RollupResolution(long bucketMillis, ContainerKind kind) {
+        this.bucketMillis = bucketMillis;
+        this.kind = kind;
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+
+    public ContainerKind kind() {
+        return kind;
+    }
+
+    public long floor(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketMillis) * bucketMillis;
+    }
+
+    public long ceil(long epochMillis) {
+        return -Math.floorDiv(-epochMillis, bucketMillis) * bucketMillis;
+    }
+
+    /**
+     * The coarsest resolution that still gives at least {@code minPoints} points over the window
+     */
+    public static RollupResolution coarsest(long windowMillis, int minPoints) {
+        if (windowMillis / DAILY.bucketMillis >= minPoints) return DAILY;
+        if (windowMillis / HOURLY.bucketMillis >= minPoints) return HOURLY;
+        return RAW;
+    }
+}
@@ -0,0 +1,160 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.SeaLevelTrend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ordinary-least-squares sea level trend per station, over its monthly means.
+ *
+ * Each station keeps the running sums n, Σx, Σy, Σx², Σxy, Σy² (x in years since
+ * 2000, y in meters), so a new month is an O(1) update and a trend is read off the
+ * sums without refitting. A month seen again with a corrected value replaces its old
+ * contribution. The confidence interval assumes independent residuals; monthly sea
+ * level is autocorrelated, so treat it as a lower bound on the real uncertainty.
+ */
+@Service
+public class SeaLevelTrendService {
+
+    private static final long EPOCH_2000 = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final double DAYS_PER_YEAR = 365.2425;
+    private static final double Z_95 = 1.959963984540054;
+
+    @Value("${trends.history.years:100}")
+    private int historyYears;
+
+    private final Map<String, Fit> fits = new ConcurrentHashMap<>();
+
+    private static final class Fit {
+        // Month (epoch day of its first day) -> value in the sums, for de-duplication
+        final Map<Long, Double> values = new HashMap<>();
+        String stationName;
+        long n;
+        double sumX, sumY, sumXX, sumXY, sumYY;
+        long firstDay = Long.MAX_VALUE, lastDay = Long.MIN_VALUE;
+
+        void put(long epochDay, double y) {
+            Double previous = values.put(epochDay, y);
+            if (previous != null) {
+                if (previous == y) return;
+                add(epochDay, previous, -1);
+            }
+            add(epochDay, y, 1);
+            firstDay = Math.min(firstDay, epochDay);
+            lastDay = Math.max(lastDay, epochDay);
+        }
+
+        private void add(long epochDay, double y, int sign) {
+            double x = (epochDay - EPOCH_2000) / DAYS_PER_YEAR;
+            n += sign;
+            sumX += sign * x;
+            sumY += sign * y;
+            sumXX += sign * x * x;
+            sumXY += sign * x * y;
+            sumYY += sign * y * y;
+        }
+    }
+
+    /**
+     * Years of stored monthly means to seed each station's sums from at startup
+     */
+    public int getHistoryYears() {
+        return historyYears;
+    }
+
+    /**
+     * Adds stored monthly means; months already counted are updated in place
+     */
+    public void accept(List<MonthlyMeanData> monthlyData) {
+        for (MonthlyMeanData mm : monthlyData) {
+            if (mm.getMeanSeaLevel() == null || mm.getMeanSeaLevel().isNaN()) continue;
+            Fit fit = fits.computeIfAbsent(mm.getStationId(), id -> new Fit());
+            synchronized (fit) {
+                if (mm.getStationName() != null) fit.stationName = mm.getStationName();
+                fit.put(mm.getMonth().toEpochDay(), mm.getMeanSeaLevel());
+            }
+        }
+    }
+
+    /**
+     * Seeds a station's sums from its stored history
+     */
+    public void accept(MonthlyMeanSeries series) {
+        if (series.getSize() == 0) return;
+        Fit fit = fits.computeIfAbsent(series.getStationId(), id -> new Fit());
+        synchronized (fit) {
+            if (series.getStationName() != null) fit.stationName = series.getStationName();
+            for (int i = 0; i < series.getSize(); i++) {
+                double y = series.getMeanSeaLevels()[i];
+                if (!Double.isNaN(y)) {
+                    fit.put(Math.floorDiv(series.getMonths()[i], 86_400_000L), y);
+                }
+            }
+        }
+    }
+
+    /**
+     * The station's current trend, or null with fewer than three months
+     */
+    public SeaLevelTrend trend(String stationId) {
+        Fit fit = fits.get(stationId);
+        if (fit == null) return null;
+
+        synchronized (fit) {
+            long n = fit.n;
+            if (n < 3) return null;
+
+            double sxx = fit.sumXX - fit.sumX * fit.sumX / n;
+            double sxy = fit.sumXY - fit.sumX * fit.sumY / n;
+            double syy = fit.sumYY - fit.sumY * fit.sumY / n;
+            if (sxx <= 0) return null;
+
+            double slope = sxy / sxx;
+            double intercept = (fit.sumY - slope * fit.sumX) / n;
+            double sse = Math.max(0, syy - slope * sxy);
+            double rSquared = syy > 0 ? 1 - sse / syy : 0;
+            double slopeError = Math.sqrt(sse / (n - 2) / sxx);
+            double halfWidth = studentT95(n - 2) * slopeError;
+
+            return SeaLevelTrend.builder()
+                .stationId(stationId)
+                .stationName(fit.stationName)
+                .months((int) n)
+                .firstMonth(LocalDate.ofEpochDay(fit.firstDay))
+                .lastMonth(LocalDate.ofEpochDay(fit.lastDay))
+                .slopeMmPerYear(slope * 1000)
+                .interceptMm(intercept * 1000)
+                .rSquared(rSquared)
+                .confidenceLevel(0.95)
+                .slopeLowMmPerYear((slope - halfWidth) * 1000)
+                .slopeHighMmPerYear((slope + halfWidth) * 1000)
+                .build();
+        }
+    }
+
+    /**
+     * Two-sided 95% quantile of Student's t: table values below three degrees of
+     * freedom, otherwise the Cornish-Fisher expansion around the normal quantile
+     * (within 1% at three, 0.01% from ten up)
+     */
+    static double studentT95(long degreesOfFreedom) {
+        if (degreesOfFreedom == 1) return 12.706;
+        if (degreesOfFreedom == 2) return 4.303;
+        double z = Z_95;
+        double df = degreesOfFreedom;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double z7 = z5 * z * z;
+        return z + (z3 + z) / (4 * df)
+            + (5 * z5 + 16 * z3 + 3 * z) / (96 * df * df)
+            + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * df * df * df);
+    }
+}
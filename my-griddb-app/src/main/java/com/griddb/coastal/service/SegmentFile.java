@@ -0,0 +1,328 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.service.GorillaCodec.Points;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * One series of the embedded store: Gorilla blocks appended to a memory-mapped
+ * segment file ({@code <name>.<generation>.seg}), and an index ({@code <name>.idx})
+ * of the blocks by first timestamp, with the series attributes and label dictionary.
+ *
+ * Blocks never change once written. A write re-encodes the blocks it overlaps (or the
+ * partly filled last block, for appends) merged with the new points, appends the
+ * result, then atomically replaces the index, so a crash leaves either the old or the
+ * new version. Superseded blocks stay in the segment as dead bytes until they
+ * outweigh the live ones, at which point the live blocks are copied to the next
+ * generation. A series is mapped in one piece, so it is limited to 2 GB of blocks.
+ */
+final class SegmentFile implements Closeable {
+
+    private static final int INDEX_MAGIC = 0x43535449; // "CSTI"
+    private static final int INDEX_VERSION = 1;
+    private static final long COMPACT_MIN_DEAD_BYTES = 1 << 20;
+
+    /**
+     * A block of {@code count} points from {@code first} to {@code last}, at {@code [offset, offset + length)}
+     */
+    record Block(long first, long last, int count, long offset, int length) {
+    }
+
+    /**
+     * Rows read back, oldest first
+     */
+    record Rows(int size, long[] timestamps, double[][] columns, String[] labels) {
+    }
+
+    private final Path dir;
+    private final String name;
+    private final int columns;
+    private final boolean labelled;
+    private final int blockPoints;
+    private final boolean fsync;
+
+    private final TreeMap<Long, Block> blocks = new TreeMap<>();
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+    private int generation;
+    private long liveBytes;
+    private long deadBytes;
+
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+
+    private SegmentFile(Path dir, String name, int columns, boolean labelled, int blockPoints, boolean fsync) {
+        this.dir = dir;
+        this.name = name;
+        this.columns = columns;
+        this.labelled = labelled;
+        this.blockPoints = blockPoints;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens (or creates) the series {@code name} under {@code dir}
+     */
+    static SegmentFile open(Path dir, String name, int columns, boolean labelled, int blockPoints, boolean fsync) throws IOException {
+        Files.createDirectories(dir);
+        SegmentFile file = new SegmentFile(dir, name, columns, labelled, blockPoints, fsync);
+        if (Files.exists(file.indexPath())) file.readIndex();
+        file.channel = FileChannel.open(file.segmentPath(file.generation),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return file;
+    }
+
+    synchronized Map<String, String> attributes() {
+        return new HashMap<>(attributes);
+    }
+
+    synchronized long sizeInBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Upserts {@code size} points sorted by time with distinct timestamps, and merges in
+     * the series attributes
+     */
+    synchronized void write(int size, long[] timestamps, double[][] values, String[] labels,
+                            Map<String, String> attributes) throws IOException {
+        this.attributes.putAll(attributes);
+        if (size == 0) {
+            writeIndex();
+            return;
+        }
+
+        int[] labelIds = labelled ? intern(labels, size) : null;
+        Points incoming = new Points(size, timestamps, values, labelIds);
+
+        // Blocks the new points overlap, or for a pure append the last block if it has room
+        List<Block> affected = new ArrayList<>();
+        Map.Entry<Long, Block> lastEntry = blocks.lastEntry();
+        if (lastEntry == null || timestamps[0] > lastEntry.getValue().last()) {
+            if (lastEntry != null && lastEntry.getValue().count() < blockPoints) affected.add(lastEntry.getValue());
+        } else {
+            Long start = blocks.floorKey(timestamps[0]);
+            NavigableMap<Long, Block> candidates = start != null ? blocks.tailMap(start, true) : blocks;
+            for (Block block : candidates.values()) {
+                if (block.first() > timestamps[size - 1]) break;
+                if (block.last() >= timestamps[0]) affected.add(block);
+            }
+        }
+
+        Points merged = incoming;
+        if (!affected.isEmpty()) {
+            List<Points> existing = new ArrayList<>(affected.size());
+            for (Block block : affected) existing.add(decode(block));
+            merged = GorillaCodec.merge(GorillaCodec.concat(existing, columns, labelled, Long.MIN_VALUE, Long.MAX_VALUE), incoming);
+        }
+
+        long offset = channel.size();
+        List<Block> written = new ArrayList<>();
+        for (int from = 0; from < merged.size(); from += blockPoints) {
+            int to = Math.min(from + blockPoints, merged.size());
+            byte[] data = GorillaCodec.encode(merged, from, to);
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            written.add(new Block(merged.timestamps()[from], merged.timestamps()[to - 1], to - from, offset, data.length));
+            offset += data.length;
+        }
+        if (fsync) channel.force(false);
+
+        for (Block block : affected) {
+            blocks.remove(block.first());
+            liveBytes -= block.length();
+            deadBytes += block.length();
+        }
+        for (Block block : written) {
+            blocks.put(block.first(), block);
+            liveBytes += block.length();
+        }
+        writeIndex();
+
+        if (deadBytes > liveBytes && deadBytes > COMPACT_MIN_DEAD_BYTES) compact();
+    }
+
+    /**
+     * Points with from <= timestamp < to, oldest first
+     */
+    synchronized Rows read(long from, long to) throws IOException {
+        List<Points> runs = new ArrayList<>();
+        Long start = blocks.floorKey(from);
+        NavigableMap<Long, Block> candidates = start != null ? blocks.tailMap(start, true) : blocks;
+        for (Block block : candidates.values()) {
+            if (block.first() >= to) break;
+            if (block.last() >= from) runs.add(decode(block));
+        }
+        Points points = GorillaCodec.concat(runs, columns, labelled, from, to);
+
+        String[] labels = null;
+        if (labelled) {
+            labels = new String[points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                labels[i] = dictionary.get(points.labels()[i]);
+            }
+        }
+        return new Rows(points.size(), points.timestamps(), points.columns(), labels);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+
+    private Points decode(Block block) throws IOException {
+        return GorillaCodec.decode(view(), (int) block.offset(), block.length(), block.count(), columns, labelled);
+    }
+
+    /**
+     * The segment mapped read-only, remapped once it has grown past the mapping
+     */
+    private ByteBuffer view() throws IOException {
+        long size = channel.size();
+        if (mapped == null || mapped.capacity() < size) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        return mapped;
+    }
+
+    private int[] intern(String[] labels, int size) {
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            String label = labels[i] != null ? labels[i] : "";
+            Integer id = dictionaryIndex.get(label);
+            if (id == null) {
+                if (dictionary.size() >= GorillaCodec.MAX_LABELS) {
+                    throw new IllegalStateException("Series " + name + " has more than " + GorillaCodec.MAX_LABELS + " distinct labels");
+                }
+                id = dictionary.size();
+                dictionary.add(label);
+                dictionaryIndex.put(label, id);
+            }
+            ids[i] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * Copies the live blocks into the next generation's segment and drops the current one
+     */
+    private void compact() throws IOException {
+        int next = generation + 1;
+        ByteBuffer source = view();
+        TreeMap<Long, Block> moved = new TreeMap<>();
+        try (FileChannel out = FileChannel.open(segmentPath(next),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (Block block : blocks.values()) {
+                ByteBuffer slice = source.duplicate();
+                slice.limit((int) (block.offset() + block.length())).position((int) block.offset());
+                while (slice.hasRemaining()) {
+                    out.write(slice, offset + (block.length() - slice.remaining()));
+                }
+                moved.put(block.first(), new Block(block.first(), block.last(), block.count(), offset, block.length()));
+                offset += block.length();
+            }
+            if (fsync) out.force(true);
+        }
+
+        Path previous = segmentPath(generation);
+        close();
+        blocks.clear();
+        blocks.putAll(moved);
+        generation = next;
+        deadBytes = 0;
+        writeIndex();
+        channel = FileChannel.open(segmentPath(generation), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Files.deleteIfExists(previous);
+    }
+
+    private void writeIndex() throws IOException {
+        Path tmp = dir.resolve(name + ".idx.tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(generation);
+            out.writeLong(deadBytes);
+            out.writeInt(attributes.size());
+            for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+                out.writeUTF(attribute.getKey());
+                out.writeUTF(attribute.getValue());
+            }
+            out.writeInt(dictionary.size());
+            for (String label : dictionary) {
+                out.writeUTF(label);
+            }
+            out.writeInt(blocks.size());
+            for (Block block : blocks.values()) {
+                out.writeLong(block.first());
+                out.writeLong(block.last());
+                out.writeInt(block.count());
+                out.writeLong(block.offset());
+                out.writeInt(block.length());
+            }
+            out.flush();
+            if (fsync) file.getFD().sync();
+        }
+        Files.move(tmp, indexPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void readIndex() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath())))) {
+            if (in.readInt() != INDEX_MAGIC) throw new IOException("Not a series index: " + indexPath());
+            int version = in.readInt();
+            if (version != INDEX_VERSION) throw new IOException("Unsupported series index version " + version);
+            generation = in.readInt();
+            deadBytes = in.readLong();
+            int attributeCount = in.readInt();
+            for (int i = 0; i < attributeCount; i++) {
+                attributes.put(in.readUTF(), in.readUTF());
+            }
+            int labelCount = in.readInt();
+            for (int i = 0; i < labelCount; i++) {
+                String label = in.readUTF();
+                dictionaryIndex.put(label, dictionary.size());
+                dictionary.add(label);
+            }
+            int blockCount = in.readInt();
+            for (int i = 0; i < blockCount; i++) {
+                Block block = new Block(in.readLong(), in.readLong(), in.readInt(), in.readLong(), in.readInt());
+                blocks.put(block.first(), block);
+                liveBytes += block.length();
+            }
+        }
+    }
+
+    private Path indexPath() {
+        return dir.resolve(name + ".idx");
+    }
+
+    private Path segmentPath(int generation) {
+        return dir.resolve(name + "." + generation + ".seg");
+    }
+}
@@ -0,0 +1,410 @@
+package com.griddb.coastal.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.griddb.coastal.model.StationMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The stations the app knows about and the ones it monitors.
+ *
+ * Readers get an immutable {@link Snapshot}, indexed by id, state, region and active
+ * flag, from a volatile field, so lookups take no locks and never see a half-built
+ * list. A new snapshot is built and swapped in whenever the station list changes.
+ *
+ * Metadata comes from NOAA's station list ({@code noaa.api.metadata.url}), fetched
+ * at startup and every {@code stations.registry.refresh.hours} in the background,
+ * and kept in {@code stations.registry.snapshot.file} so restarts and offline runs
+ * start from the last good copy. A failed refresh keeps the current snapshot.
+ *
+ * {@code stations.registry.monitor} picks the monitored stations: {@code configured}
+ * (the {@code noaa.stations} list, whose names and coordinates win over NOAA's) or
+ * {@code all} (every active station in NOAA's list, plus the configured ones).
+ */
+@Component
+public class StationRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(StationRegistry.class);
+
+    private static final Map<String, String> REGION_BY_STATE = regionsByState();
+
+    private static final Map<String, String> REQUEST_HEADERS = Map.of("User-Agent", "GridDB-CoastalMonitor/1.0");
+
+    @Value("${noaa.api.metadata.url}")
+    private String noaaMetadataUrl;
+
+    @Value("${noaa.stations}")
+    private String stationsConfig;
+
+    @Value("${stations.registry.monitor:configured}")
+    private String monitor;
+
+    @Value("${stations.registry.refresh.hours:24}")
+    private long refreshHours;
+
+    @Value("${stations.registry.snapshot.file:data/stations.json}")
+    private String snapshotFile;
+
+    @Autowired
+    private HttpTransport httpTransport;
+
+    /**
+     * One consistent view of the registry; never modified once published
+     */
+    public static final class Snapshot {
+        private final List<StationMetadata> monitored;
+        private final List<StationMetadata> active;
+        private final Map<String, StationMetadata> byId;
+        private final Map<String, List<StationMetadata>> byState;
+        private final Map<String, List<StationMetadata>> byRegion;
+
+        private Snapshot(List<StationMetadata> monitored, Map<String, StationMetadata> byId) {
+            this.monitored = List.copyOf(monitored);
+            this.active = monitored.stream().filter(s -> !Boolean.FALSE.equals(s.getIsActive())).toList();
+            this.byId = Map.copyOf(byId);
+            this.byState = index(monitored, StationMetadata::getState);
+            this.byRegion = index(monitored, StationMetadata::getRegion);
+        }
+
+        private static Map<String, List<StationMetadata>> index(List<StationMetadata> stations,
+                                                                Function<StationMetadata, String> key) {
+            Map<String, List<StationMetadata>> index = new HashMap<>();
+            for (StationMetadata station : stations) {
+                String value = key.apply(station);
+                if (value == null || value.isEmpty()) continue;
+                index.computeIfAbsent(value.toUpperCase(Locale.ROOT), k -> new ArrayList<>()).add(station);
+            }
+            index.replaceAll((k, list) -> List.copyOf(list));
+            return Map.copyOf(index);
+        }
+
+        /**
+         * Monitored stations, in configuration order
+         */
+        public List<StationMetadata> monitored() {
+            return monitored;
+        }
+
+        /**
+         * Monitored stations not flagged inactive
+         */
+        public List<StationMetadata> active() {
+            return active;
+        }
+
+        /**
+         * Any known station, monitored or not; null if unknown
+         */
+        public StationMetadata get(String stationId) {
+            return byId.get(stationId);
+        }
+
+        public List<StationMetadata> byState(String state) {
+            return byState.getOrDefault(state.toUpperCase(Locale.ROOT), List.of());
+        }
+
+        public List<StationMetadata> byRegion(String region) {
+            return byRegion.getOrDefault(region.toUpperCase(Locale.ROOT), List.of());
+        }
+
+        public Set<String> states() {
+            return byState.keySet();
+        }
+
+        public Set<String> regions() {
+            return byRegion.keySet();
+        }
+
+        public int knownStations() {
+            return byId.size();
+        }
+    }
+
+    private volatile Snapshot snapshot;
+
+    // NOAA's list as last loaded, kept to rebuild from
+    private volatile List<StationMetadata> noaaStations = List.of();
+
+    private List<StationMetadata> configuredStations;
+
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    public void init() {
+        configuredStations = parseConfiguredStations(stationsConfig);
+
+        Path path = snapshotFile.isEmpty() ? null : Paths.get(snapshotFile);
+        if (path != null && Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                noaaStations = parseStationList(in, Files.getLastModifiedTime(path).toInstant().toString());
+                logger.info("Loaded {} stations from {}", noaaStations.size(), path);
+            } catch (Exception e) {
+                logger.error("Error loading station snapshot from {}: {}", path, e.getMessage());
+            }
+        }
+        publish();
+
+        if (refreshHours > 0) {
+            boolean stale = noaaStations.isEmpty() || isOlderThan(path, refreshHours);
+            if (stale) refresh();
+
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "station-registry");
+                t.setDaemon(true);
+                return t;
+            });
+            refresher.scheduleWithFixedDelay(this::refresh, refreshHours, refreshHours, TimeUnit.HOURS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) refresher.shutdownNow();
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Monitored stations, in configuration order
+     */
+    public List<StationMetadata> monitoredStations() {
+        return snapshot.monitored();
+    }
+
+    /**
+     * Metadata for any station, or a placeholder without coordinates for one NOAA does not list
+     */
+    public StationMetadata get(String stationId) {
+        StationMetadata station = snapshot.get(stationId);
+        if (station != null) return station;
+        return StationMetadata.builder()
+            .stationId(stationId)
+            .stationName("Station " + stationId)
+            .build();
+    }
+
+    /**
+     * Reloads NOAA's station list and publishes a new snapshot; keeps the current one on failure
+     */
+    public void refresh() {
+        try (HttpTransport.Response response = httpTransport.get(noaaMetadataUrl, REQUEST_HEADERS)) {
+            if (!response.isSuccess()) {
+                throw new IOException("HTTP Error: " + response.status());
+            }
+            List<StationMetadata> stations = parseStationList(response.body(), Instant.now().toString());
+            if (stations.isEmpty()) {
+                throw new IOException("no stations in response");
+            }
+            noaaStations = stations;
+            publish();
+            save(stations);
+            logger.info("Station registry refreshed: {} NOAA stations, {} monitored",
+                stations.size(), snapshot.monitored().size());
+        } catch (Exception e) {
+            logger.warn("Could not refresh station list from {}: {}", noaaMetadataUrl, e.getMessage());
+        }
+    }
+
+    private synchronized void publish() {
+        Map<String, StationMetadata> byId = new HashMap<>();
+        for (StationMetadata station : noaaStations) {
+            byId.put(station.getStationId(), station);
+        }
+
+        // Configured names and coordinates win; NOAA fills in what the config leaves out
+        Map<String, StationMetadata> monitored = new LinkedHashMap<>();
+        for (StationMetadata configured : configuredStations) {
+            StationMetadata known = byId.get(configured.getStationId());
+            StationMetadata station = known == null ? configured : StationMetadata.builder()
+                .stationId(configured.getStationId())
+                .stationName(configured.getStationName())
+                .state(configured.getState() != null ? configured.getState() : known.getState())
+                .latitude(configured.getLatitude())
+                .longitude(configured.getLongitude())
+                .region(configured.getRegion() != null ? configured.getRegion() : known.getRegion())
+                .isActive(configured.getIsActive())
+                .lastUpdated(known.getLastUpdated())
+                .build();
+            monitored.put(station.getStationId(), station);
+            byId.put(station.getStationId(), station);
+        }
+        if ("all".equalsIgnoreCase(monitor)) {
+            for (StationMetadata station : noaaStations) {
+                if (Boolean.FALSE.equals(station.getIsActive())) continue;
+                monitored.putIfAbsent(station.getStationId(), station);
+            }
+        }
+
+        snapshot = new Snapshot(new ArrayList<>(monitored.values()), byId);
+    }
+
+    /**
+     * Reads the {@code stations} array of an mdapi station list (or of our own snapshot
+     * file, which keeps the same shape) with a streaming parser, so a list of several
+     * thousand fully expanded stations never sits in memory as a tree
+     */
+    static List<StationMetadata> parseStationList(InputStream in, String lastUpdated) throws IOException {
+        List<StationMetadata> stations = new ArrayList<>();
+        try (JsonParser parser = GridDBRowCodec.JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return stations;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"stations".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    StationMetadata station = parseStation(parser, lastUpdated);
+                    if (station.getStationId() != null) stations.add(station);
+                }
+            }
+        }
+        return stations;
+    }
+
+    private static StationMetadata parseStation(JsonParser parser, String lastUpdated) throws IOException {
+        StationMetadata.StationMetadataBuilder station = StationMetadata.builder().isActive(true).lastUpdated(lastUpdated);
+        String state = null;
+        boolean greatLakes = false;
+        String region = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> station.stationId(parser.getValueAsString());
+                case "name" -> station.stationName(parser.getValueAsString());
+                case "state" -> state = parser.getValueAsString();
+                case "lat" -> station.latitude(value == JsonToken.VALUE_NULL ? null : parser.getValueAsDouble());
+                case "lng" -> station.longitude(value == JsonToken.VALUE_NULL ? null : parser.getValueAsDouble());
+                case "greatlakes" -> greatLakes = parser.getValueAsBoolean();
+                case "region" -> region = parser.getValueAsString();
+                case "isActive" -> station.isActive(parser.getValueAsBoolean(true));
+                default -> parser.skipChildren();
+            }
+        }
+        if (state != null && state.isEmpty()) state = null;
+        if (region == null && greatLakes) region = "Great Lakes";
+        if (region == null && state != null) region = REGION_BY_STATE.get(state);
+        return station.state(state).region(region).build();
+    }
+
+    /**
+     * Writes NOAA's list atomically in the mdapi shape, with only the fields the registry reads
+     */
+    private void save(List<StationMetadata> stations) {
+        if (snapshotFile.isEmpty()) return;
+
+        Path path = Paths.get(snapshotFile);
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "stations", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp);
+                 JsonGenerator gen = GridDBRowCodec.JSON_FACTORY.createGenerator(out)) {
+                gen.writeStartObject();
+                gen.writeNumberField("count", stations.size());
+                gen.writeArrayFieldStart("stations");
+                for (StationMetadata station : stations) {
+                    gen.writeStartObject();
+                    gen.writeStringField("id", station.getStationId());
+                    gen.writeStringField("name", station.getStationName());
+                    gen.writeStringField("state", station.getState());
+                    if (station.getLatitude() != null) gen.writeNumberField("lat", station.getLatitude());
+                    if (station.getLongitude() != null) gen.writeNumberField("lng", station.getLongitude());
+                    gen.writeStringField("region", station.getRegion());
+                    if (station.getIsActive() != null) gen.writeBooleanField("isActive", station.getIsActive());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Error saving station snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static boolean isOlderThan(Path path, long hours) {
+        try {
+            return path == null || Files.getLastModifiedTime(path).toInstant()
+                .isBefore(Instant.now().minus(hours, ChronoUnit.HOURS));
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Parses {@code noaa.stations}: "id, name, state, lat, lon, active;..."
+     */
+    static List<StationMetadata> parseConfiguredStations(String config) {
+        List<StationMetadata> stations = new ArrayList<>();
+        for (String entry : config.split(";")) {
+            String[] parts = entry.split(",");
+            if (parts.length >= 6) {
+                String state = parts[2].trim();
+                stations.add(StationMetadata.builder()
+                    .stationId(parts[0].trim())
+                    .stationName(parts[1].trim())
+                    .state(state)
+                    .latitude(Double.parseDouble(parts[3].trim()))
+                    .longitude(Double.parseDouble(parts[4].trim()))
+                    .region(REGION_BY_STATE.get(state))
+                    .isActive(Boolean.parseBoolean(parts[5].trim()))
+                    .build());
+            }
+        }
+        return stations;
+    }
+
+    /**
+     * Coastal regions as NOAA groups its tide stations; Great Lakes stations are
+     * flagged separately in the station list
+     */
+    private static Map<String, String> regionsByState() {
+        Map<String, String> regions = new HashMap<>();
+        put(regions, "Northeast", "ME", "NH", "MA", "RI", "CT", "NY", "NJ", "PA", "DE", "MD", "VA", "DC");
+        put(regions, "Southeast", "NC", "SC", "GA", "FL");
+        put(regions, "Gulf Coast", "AL", "MS", "LA", "TX");
+        put(regions, "West Coast", "CA", "OR", "WA");
+        put(regions, "Alaska", "AK");
+        put(regions, "Pacific Islands", "HI", "GU", "AS", "MP", "UM");
+        put(regions, "Caribbean", "PR", "VI");
+        put(regions, "Great Lakes", "OH", "MI", "IN", "IL", "WI", "MN");
+        return Map.copyOf(regions);
+    }
+
+    private static void put(Map<String, String> regions, String region, String... states) {
+        for (String state : states) regions.put(state, region);
+    }
+}
@@ -0,0 +1,225 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.StationMetadata;
+import com.griddb.coastal.model.WaterLevelAggregateSeries;
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelRollupSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entry point for everything the app stores and reads.
+ *
+ * Delegates to the engine chosen by {@code storage.engine}: {@code griddb} (GridDB
+ * Cloud, the default) or {@code embedded} (local compressed segment files, for
+ * offline and CI runs). On top of the engine it serves recent readings from the hot
+ * window, reads rollups for long windows when asked to, validates aggregation requests, and tells
+ * the rollups and sea level trends about stored rows.
+ */
+@Service
+public class StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageService.class);
+
+    public static final String ENGINE_GRIDDB = "griddb";
+    public static final String ENGINE_EMBEDDED = "embedded";
+
+    public static final String RESOLUTION_RAW = "raw";
+    public static final String RESOLUTION_AUTO = "auto";
+
+    private static final Set<String> AGGREGATES = Set.of("avg", "min", "max", "sum", "count");
+
+    @Value("${storage.engine:griddb}")
+    private String engine;
+
+    @Autowired
+    private GridDBService gridDBService;
+
+    @Autowired(required = false)
+    private EmbeddedSeriesStore embeddedStore;
+
+    @Autowired
+    private HotWindowCache hotWindowCache;
+
+    @Autowired
+    private SeaLevelTrendService seaLevelTrendService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${griddb.rollup.enabled:true}")
+    private boolean rollupsEnabled;
+
+    @Value("${griddb.rollup.min.points:1000}")
+    private int rollupMinPoints;
+
+    @Value("${griddb.query.max.rows:20000}")
+    private int maxQueryRows;
+
+    private CoastalDataStore store;
+
+    @PostConstruct
+    public void init() {
+        if (ENGINE_EMBEDDED.equals(engine)) {
+            store = embeddedStore;
+        } else if (ENGINE_GRIDDB.equals(engine)) {
+            store = gridDBService;
+        } else {
+            throw new IllegalStateException("Unknown storage.engine: " + engine);
+        }
+        logger.info("Storage engine: {}", engine);
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return true if every row was stored
+     */
+    public boolean storeWaterLevelData(List<WaterLevelData> waterLevels) {
+        if (waterLevels.isEmpty()) return true;
+
+        boolean stored = store.storeWaterLevelData(waterLevels);
+        if (stored) eventPublisher.publishEvent(new WaterLevelsStoredEvent(waterLevels));
+        return stored;
+    }
+
+    /**
+     * @return true if every row was stored
+     */
+    public boolean storeMonthlyMeanData(List<MonthlyMeanData> monthlyData) {
+        if (monthlyData.isEmpty()) return true;
+
+        boolean stored = store.storeMonthlyMeanData(monthlyData);
+        if (stored) seaLevelTrendService.accept(monthlyData);
+        return stored;
+    }
+
+    public void storeStationMetadata(List<StationMetadata> stations) {
+        store.storeStationMetadata(stations);
+    }
+
+    /**
+     * Water level readings of the last {@code hours} for a station, oldest first.
+     * Served from the hot-window cache when it covers the range.
+     */
+    public WaterLevelSeries queryWaterLevelSeries(String stationId, int hours) throws Exception {
+        long sinceMillis = System.currentTimeMillis() - hours * 3_600_000L;
+        WaterLevelSeries cached = hotWindowCache.read(stationId, sinceMillis);
+        if (cached != null) return cached;
+        return store.loadWaterLevelSeries(stationId, hours);
+    }
+
+    /**
+     * Water levels of the last {@code hours} at the given {@code resolution}: {@code raw}
+     * readings, {@code hourly} or {@code daily} means from the rollups, or {@code auto} for
+     * the coarsest of those that still gives {@code griddb.rollup.min.points} points. Falls
+     * back to raw readings when the rollups don't cover the window, e.g. for rows stored
+     * before rollups existed.
+     */
+    public WaterLevelSeries queryWaterLevelSeries(String stationId, int hours, String resolution) throws Exception {
+        RollupResolution chosen = resolveResolution(hours, resolution);
+        if (chosen == RollupResolution.RAW) {
+            return queryWaterLevelSeries(stationId, hours);
+        }
+
+        long to = System.currentTimeMillis();
+        long from = to - hours * 3_600_000L;
+        WaterLevelRollupSeries rollups = store.queryRollups(stationId, chosen, from, to);
+        if (rollups.getSize() == 0 || rollups.getBuckets()[0] > chosen.floor(from) + chosen.bucketMillis()) {
+            logger.debug("{} rollups of station {} don't cover the last {} hours; reading raw rows",
+                chosen, stationId, hours);
+            return queryWaterLevelSeries(stationId, hours);
+        }
+
+        WaterLevelSeries latest = queryWaterLevelSeries(stationId, 1);
+        return WaterLevelSeries.builder()
+            .stationId(stationId)
+            .stationName(latest.getStationName())
+            .datum(latest.getDatum())
+            .latitude(latest.getLatitude())
+            .longitude(latest.getLongitude())
+            .size(rollups.getSize())
+            .timestamps(rollups.getBuckets())
+            .waterLevels(rollups.getMeanLevels())
+            .flags(new String[rollups.getSize()])
+            .build();
+    }
+
+    private RollupResolution resolveResolution(int hours, String resolution) {
+        if (RESOLUTION_AUTO.equalsIgnoreCase(resolution)) {
+            return rollupsEnabled ? RollupResolution.coarsest(hours * 3_600_000L, rollupMinPoints) : RollupResolution.RAW;
+        }
+        RollupResolution chosen;
+        try {
+            chosen = RollupResolution.valueOf(resolution.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown resolution: " + resolution + " (use raw, hourly, daily or auto)");
+        }
+        if (chosen != RollupResolution.RAW && !rollupsEnabled) {
+            throw new IllegalArgumentException("Rollups are disabled (griddb.rollup.enabled=false)");
+        }
+        return chosen;
+    }
+
+    /**
+     * Same as {@link #queryWaterLevelSeries(String, int)} but always reads from the engine
+     */
+    public WaterLevelSeries loadWaterLevelSeries(String stationId, int hours) throws Exception {
+        return store.loadWaterLevelSeries(stationId, hours);
+    }
+
+    public WaterLevelSeries loadWaterLevelRange(String stationId, long fromMillis, long toMillis) throws Exception {
+        return store.loadWaterLevelRange(stationId, fromMillis, toMillis);
+    }
+
+    public MonthlyMeanSeries queryMonthlyMeanSeries(String stationId, int years) throws Exception {
+        return store.queryMonthlyMeanSeries(stationId, years);
+    }
+
+    public WaterLevelRollupSeries queryRollups(String stationId, RollupResolution resolution,
+                                               long fromMillis, long toMillis) throws Exception {
+        return store.queryRollups(stationId, resolution, fromMillis, toMillis);
+    }
+
+    public void storeRollups(RollupResolution resolution, WaterLevelRollupSeries rollups) throws Exception {
+        if (rollups.getSize() == 0) return;
+        store.storeRollups(resolution, rollups);
+    }
+
+    /**
+     * Water levels in [from, to) aggregated into {@code bucket}-wide intervals (e.g. "15m",
+     * "1h", "1d") with the given functions (avg, min, max, sum, count). Empty buckets are
+     * left out.
+     */
+    public WaterLevelAggregateSeries aggregateWaterLevels(String stationId, LocalDateTime from, LocalDateTime to,
+                                                          String bucket, List<String> functions) throws Exception {
+        TimeBucket width = TimeBucket.parse(bucket);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Need from < to");
+        }
+        long bucketCount = Duration.between(from, to).toMillis() / width.millis();
+        if (bucketCount > maxQueryRows) {
+            throw new IllegalArgumentException("Too many buckets (" + bucketCount + "); use a wider bucket or a shorter range");
+        }
+        List<String> fns = functions.stream().map(fn -> fn.trim().toLowerCase()).distinct().toList();
+        if (fns.isEmpty() || !AGGREGATES.containsAll(fns)) {
+            throw new IllegalArgumentException("Functions must be among " + AGGREGATES);
+        }
+        return store.aggregateWaterLevels(stationId, from, to, width, fns);
+    }
+}
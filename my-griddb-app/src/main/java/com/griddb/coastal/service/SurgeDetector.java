@@ -0,0 +1,280 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.SurgeAlert;
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flags storm surges (and drawdowns) as readings arrive.
+ *
+ * Each station's readings are binned by phase of the M2 lunar tide, and every bin
+ * keeps a running mean and variance (Welford's update, turning into an exponentially
+ * weighted one once a bin holds {@code alerts.surge.window} samples so it follows
+ * seasonal and long-term drift). A reading is checked against its bin before it is
+ * added: an alert is raised once {@code confirm.readings} consecutive readings are
+ * both {@code sigma} standard deviations and {@code min.residual.m} meters away from
+ * their bin mean, and cleared once as many are back within half of either. Checking a
+ * reading is a few array reads and writes, with no allocation unless an alert changes
+ * state.
+ *
+ * Binning by M2 phase alone leaves the spring/neap cycle and diurnal inequality in the
+ * variance, so the detector is deliberately conservative about small surges.
+ */
+@Service
+public class SurgeDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(SurgeDetector.class);
+
+    // Principal lunar semidiurnal constituent, 12.4206012 hours
+    private static final double M2_PERIOD_SECONDS = 12.4206012 * 3600;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${alerts.surge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alerts.surge.phase.bins:24}")
+    private int phaseBins;
+
+    @Value("${alerts.surge.sigma:3.0}")
+    private double sigma;
+
+    @Value("${alerts.surge.min.residual.m:0.3}")
+    private double minResidual;
+
+    @Value("${alerts.surge.min.samples:20}")
+    private int minSamples;
+
+    @Value("${alerts.surge.confirm.readings:3}")
+    private int confirmReadings;
+
+    @Value("${alerts.surge.window:60}")
+    private int window;
+
+    @Value("${alerts.surge.seed.days:30}")
+    private int seedDays;
+
+    @Value("${alerts.history.size:500}")
+    private int historySize;
+
+    private final Map<String, Station> stations = new ConcurrentHashMap<>();
+
+    private final Deque<SurgeAlert> history = new ArrayDeque<>();
+
+    private static final class Station {
+        final double[] counts;
+        final double[] means;
+        final double[] variances; // population variance
+        String stationName;
+        boolean surging;
+        int streak; // consecutive readings pointing the other way
+
+        Station(int bins) {
+            counts = new double[bins];
+            means = new double[bins];
+            variances = new double[bins];
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Days of stored readings to seed each station's statistics from at startup
+     */
+    public int getSeedDays() {
+        return seedDays;
+    }
+
+    /**
+     * Checks new readings, in time order, and adds them to the statistics
+     */
+    public void accept(List<WaterLevelData> readings) {
+        observe(readings, true);
+    }
+
+    /**
+     * Adds readings to the statistics without alerting, e.g. history loaded by a backfill
+     */
+    public void train(List<WaterLevelData> readings) {
+        observe(readings, false);
+    }
+
+    /**
+     * Seeds a station's statistics from its stored history
+     */
+    public void train(WaterLevelSeries series) {
+        if (!enabled || series.getSize() == 0) return;
+
+        Station station = station(series.getStationId());
+        synchronized (station) {
+            if (series.getStationName() != null) station.stationName = series.getStationName();
+            for (int i = 0; i < series.getSize(); i++) {
+                double level = series.getWaterLevels()[i];
+                if (!Double.isNaN(level)) {
+                    update(station, phaseBin(Math.floorDiv(series.getTimestamps()[i], 1000L)), level);
+                }
+            }
+        }
+    }
+
+    /**
+     * Most recent alert changes, newest first, optionally limited to some stations
+     */
+    public List<SurgeAlert> recentAlerts(Collection<String> stationIds, int limit) {
+        List<SurgeAlert> alerts = new ArrayList<>();
+        synchronized (history) {
+            Iterator<SurgeAlert> newestFirst = history.descendingIterator();
+            while (newestFirst.hasNext() && alerts.size() < limit) {
+                SurgeAlert alert = newestFirst.next();
+                if (stationIds == null || stationIds.isEmpty() || stationIds.contains(alert.getStationId())) {
+                    alerts.add(alert);
+                }
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Stations currently in a surge or drawdown
+     */
+    public List<String> activeStations() {
+        List<String> active = new ArrayList<>();
+        stations.forEach((id, station) -> {
+            synchronized (station) {
+                if (station.surging) active.add(id);
+            }
+        });
+        return active;
+    }
+
+    private void observe(List<WaterLevelData> readings, boolean alert) {
+        if (!enabled) return;
+
+        List<SurgeAlert> raised = null;
+        Station station = null;
+        String stationId = null;
+        for (int i = 0; i < readings.size(); i++) {
+            WaterLevelData wl = readings.get(i);
+            if (wl.getWaterLevel() == null || wl.getWaterLevel().isNaN()) continue;
+
+            // Batches are normally a single station, so the lookup runs once per batch
+            if (!wl.getStationId().equals(stationId)) {
+                stationId = wl.getStationId();
+                station = station(stationId);
+            }
+            synchronized (station) {
+                if (wl.getStationName() != null) station.stationName = wl.getStationName();
+                double level = wl.getWaterLevel();
+                int bin = phaseBin(wl.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+                SurgeAlert change = alert ? check(station, stationId, bin, level, wl.getTimestamp()) : null;
+                update(station, bin, level);
+                if (change != null) {
+                    if (raised == null) raised = new ArrayList<>();
+                    raised.add(change);
+                }
+            }
+        }
+
+        if (raised != null) {
+            for (SurgeAlert change : raised) {
+                publish(change);
+            }
+        }
+    }
+
+    /**
+     * Compares a reading with its bin and flips the station's state if warranted
+     *
+     * @return the alert for a state change, otherwise null
+     */
+    private SurgeAlert check(Station station, String stationId, int bin, double level, LocalDateTime timestamp) {
+        if (station.counts[bin] < minSamples) return null;
+
+        double expected = station.means[bin];
+        double residual = level - expected;
+        double deviation = Math.sqrt(station.variances[bin]);
+        double z = deviation > 0 ? residual / deviation : 0;
+
+        boolean surging;
+        if (station.surging) {
+            surging = Math.abs(residual) >= minResidual / 2 && Math.abs(z) >= sigma / 2;
+        } else {
+            surging = Math.abs(residual) >= minResidual && Math.abs(z) >= sigma;
+        }
+        if (surging == station.surging) {
+            station.streak = 0;
+            return null;
+        }
+        if (++station.streak < confirmReadings) return null;
+
+        station.surging = surging;
+        station.streak = 0;
+        return SurgeAlert.builder()
+            .stationId(stationId)
+            .stationName(station.stationName)
+            .state(surging ? "RAISED" : "CLEARED")
+            .direction(residual >= 0 ? "HIGH" : "LOW")
+            .timestamp(timestamp)
+            .waterLevel(level)
+            .expectedLevel(expected)
+            .residual(residual)
+            .sigmas(z)
+            .build();
+    }
+
+    /**
+     * Welford's update with weight 1/n, capped at 1/window; with w = 1/n the variance
+     * recursion below is exactly the population variance
+     */
+    private void update(Station station, int bin, double level) {
+        double n = Math.min(station.counts[bin] + 1, window);
+        double w = 1 / n;
+        double delta = level - station.means[bin];
+        station.means[bin] += w * delta;
+        station.variances[bin] = (1 - w) * (station.variances[bin] + w * delta * delta);
+        station.counts[bin] = n;
+    }
+
+    private int phaseBin(long epochSecond) {
+        double cycles = epochSecond / M2_PERIOD_SECONDS;
+        int bin = (int) ((cycles - Math.floor(cycles)) * phaseBins);
+        return Math.min(bin, phaseBins - 1);
+    }
+
+    private Station station(String stationId) {
+        Station station = stations.get(stationId);
+        return station != null ? station : stations.computeIfAbsent(stationId, id -> new Station(phaseBins));
+    }
+
+    private void publish(SurgeAlert alert) {
+        logger.warn("🌀 Surge alert {} for station {} at {}: {} m vs {} m expected ({} sigma)",
+            alert.getState(), alert.getStationId(), alert.getTimestamp(),
+            String.format("%.3f", alert.getWaterLevel()), String.format("%.3f", alert.getExpectedLevel()),
+            String.format("%.1f", alert.getSigmas()));
+        synchronized (history) {
+            history.addLast(alert);
+            if (history.size() > historySize) history.removeFirst();
+        }
+        eventPublisher.publishEvent(alert);
+    }
+}
@@ -0,0 +1,44 @@
+package com.griddb.coastal.service;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Width of an aggregation bucket, e.g. 15m: an amount of seconds, minutes, hours or days
+ */
+public record TimeBucket(long amount, String unit) {
+
+    private static final Pattern PATTERN = Pattern.compile("(\\d+)([smhd])");
+
+    private static final Map<String, Long> UNIT_MILLIS = Map.of("s", 1_000L, "m", 60_000L, "h", 3_600_000L, "d", 86_400_000L);
+
+    private static final Map<String, String> SQL_UNITS = Map.of("s", "SECOND", "m", "MINUTE", "h", "HOUR", "d", "DAY");
+
+    /**
+     * Parses "30s", "15m", "1h", "1d" and the like
+     */
+    public static TimeBucket parse(String text) {
+        Matcher matcher = PATTERN.matcher(text.trim().toLowerCase());
+        if (!matcher.matches() || Long.parseLong(matcher.group(1)) == 0) {
+            throw new IllegalArgumentException("Bucket must look like 30s, 15m, 1h or 1d");
+        }
+        return new TimeBucket(Long.parseLong(matcher.group(1)), matcher.group(2));
+    }
+
+    public long millis() {
+        return amount * UNIT_MILLIS.get(unit);
+    }
+
+    /**
+     * Unit name as used in GridDB SQL, e.g. MINUTE
+     */
+    public String sqlUnit() {
+        return SQL_UNITS.get(unit);
+    }
+
+    @Override
+    public String toString() {
+        return amount + unit;
+    }
+}
@@ -0,0 +1,46 @@
+package com.griddb.coastal.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket: refills at a fixed rate up to a burst capacity.
+ *
+ * A caller that finds the bucket empty reserves the next token anyway and sleeps
+ * until it is due, so concurrent callers queue up fairly instead of spinning.
+ */
+public final class TokenBucketRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, double capacity) {
+        if (permitsPerSecond <= 0) throw new IllegalArgumentException("permitsPerSecond must be positive");
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until a token is available and takes it
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerSecond / 1e9);
+            lastRefillNanos = now;
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / permitsPerSecond * 1e9);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+}
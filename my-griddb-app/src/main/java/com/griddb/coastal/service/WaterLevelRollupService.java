@@ -0,0 +1,325 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelRollupSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the hourly and daily water level rollups of each station.
+ *
+ * Every stored batch marks the hours it touches; those hours are recomputed from the
+ * raw rows, run by run of consecutive hours, and the days containing them from the
+ * hourly rollups, then upserted. Since buckets are recomputed from the source rather
+ * than patched, late and corrected readings end up in the right aggregates.
+ *
+ * Stores only mark the hours: the recomputes run on {@code griddb.rollup.concurrency}
+ * threads of their own, so the write-behind flushers never wait on rollup reads and
+ * writes. Hours marked while a station is waiting or being updated are merged into its
+ * next pass, and a station is updated by one thread at a time.
+ * {@link #rebuild} does the same for an arbitrary range, e.g. after a backfill from
+ * before rollups existed.
+ */
+@Service
+public class WaterLevelRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaterLevelRollupService.class);
+
+    // Days recomputed per round trip when rebuilding; 30 days of raw readings stay well under the row limit
+    private static final int REBUILD_CHUNK_DAYS = 30;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Value("${griddb.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${griddb.query.max.rows:20000}")
+    private int maxQueryRows;
+
+    @Value("${griddb.rollup.concurrency:2}")
+    private int concurrency;
+
+    // Station -> hours (bucket starts) stored since its last update
+    private final Map<String, Set<Long>> dirtyHours = new ConcurrentHashMap<>();
+
+    // Stations with an update queued or running
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService updater;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        updater = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread t = new Thread(r, "rollup-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        updater.shutdown();
+        try {
+            if (!updater.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Rollup updates did not finish within 10s; {} stations left stale", dirtyHours.size());
+                updater.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Marks the hours the rows fall in and queues their stations for an update; runs on
+     * the storing thread, so it does no I/O
+     */
+    @EventListener
+    public void onWaterLevelsStored(WaterLevelsStoredEvent event) {
+        if (!enabled) return;
+
+        Map<String, List<WaterLevelData>> byStation = event.rows().stream()
+            .collect(Collectors.groupingBy(WaterLevelData::getStationId, LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<String, List<WaterLevelData>> entry : byStation.entrySet()) {
+            String stationId = entry.getKey();
+            List<WaterLevelData> rows = entry.getValue();
+            dirtyHours.compute(stationId, (id, hours) -> {
+                Set<Long> marked = hours != null ? hours : new TreeSet<>();
+                for (WaterLevelData row : rows) {
+                    marked.add(RollupResolution.HOURLY.floor(row.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()));
+                }
+                return marked;
+            });
+            schedule(stationId);
+        }
+    }
+
+    private void schedule(String stationId) {
+        if (!scheduled.add(stationId)) return;
+        try {
+            updater.execute(() -> update(stationId));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the hours stay stale until they are stored again or rebuilt
+            scheduled.remove(stationId);
+        }
+    }
+
+    /**
+     * Recomputes the station's marked hours and their days, pass after pass until no more
+     * are marked
+     */
+    private void update(String stationId) {
+        while (true) {
+            Set<Long> marked = dirtyHours.remove(stationId);
+            if (marked == null) {
+                scheduled.remove(stationId);
+                // Hours marked between the remove above and here found the station still scheduled
+                if (dirtyHours.containsKey(stationId) && scheduled.add(stationId)) continue;
+                return;
+            }
+
+            long[] hours = marked.stream().mapToLong(Long::longValue).toArray();
+            long[] days = Arrays.stream(hours).map(RollupResolution.DAILY::floor).distinct().toArray();
+            try {
+                forEachRun(hours, RollupResolution.HOURLY, (from, to) -> recomputeHours(stationId, from, to));
+                forEachRun(days, RollupResolution.DAILY, (from, to) -> recomputeDays(stationId, from, to));
+            } catch (Exception e) {
+                logger.error("Error updating rollups for station {}: {}", stationId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recomputes every hourly and daily bucket of the station over [from, to)
+     *
+     * @return number of hourly buckets written
+     */
+    public int rebuild(String stationId, LocalDate from, LocalDate to) throws Exception {
+        int buckets = 0;
+        for (LocalDate chunk = from; chunk.isBefore(to); chunk = chunk.plusDays(REBUILD_CHUNK_DAYS)) {
+            LocalDate chunkEnd = chunk.plusDays(REBUILD_CHUNK_DAYS).isBefore(to) ? chunk.plusDays(REBUILD_CHUNK_DAYS) : to;
+            long chunkFrom = chunk.toEpochDay() * 86_400_000L;
+            long chunkTo = chunkEnd.toEpochDay() * 86_400_000L;
+            buckets += recomputeHours(stationId, chunkFrom, chunkTo);
+            recomputeDays(stationId, chunkFrom, chunkTo);
+        }
+        logger.info("Rebuilt {} hourly rollups for station {} from {} to {}", buckets, stationId, from, to);
+        return buckets;
+    }
+
+    /**
+     * Recomputes the hourly buckets over [from, to), both hour-aligned, from the raw rows.
+     * Reads are capped at {@code griddb.query.max.rows}, oldest first, so a full read is
+     * taken as truncated: only the hours before its last one are stored, and the next read
+     * starts there.
+     *
+     * @return number of hourly buckets written
+     */
+    private int recomputeHours(String stationId, long fromMillis, long toMillis) throws Exception {
+        int buckets = 0;
+        for (long cursor = fromMillis; cursor < toMillis; ) {
+            WaterLevelSeries raw = storageService.loadWaterLevelRange(stationId, cursor, toMillis);
+            long end = toMillis;
+            if (raw.getSize() >= maxQueryRows) {
+                end = RollupResolution.HOURLY.floor(raw.getTimestamps()[raw.getSize() - 1]);
+                if (end <= cursor) {
+                    throw new IllegalStateException("More than " + maxQueryRows + " readings in one hour");
+                }
+            }
+            WaterLevelRollupSeries hourly = aggregate(stationId, raw, end);
+            storageService.storeRollups(RollupResolution.HOURLY, hourly);
+            buckets += hourly.getSize();
+            cursor = end;
+        }
+        logger.debug("Updated {} hourly rollups for station {}", buckets, stationId);
+        return buckets;
+    }
+
+    /**
+     * Recomputes the daily buckets over [from, to), both day-aligned, from the hourly ones,
+     * {@link #REBUILD_CHUNK_DAYS} days per read
+     */
+    private void recomputeDays(String stationId, long fromMillis, long toMillis) throws Exception {
+        long chunkMillis = REBUILD_CHUNK_DAYS * RollupResolution.DAILY.bucketMillis();
+        for (long cursor = fromMillis; cursor < toMillis; cursor += chunkMillis) {
+            long end = Math.min(cursor + chunkMillis, toMillis);
+            WaterLevelRollupSeries daily = combine(stationId, RollupResolution.DAILY,
+                storageService.queryRollups(stationId, RollupResolution.HOURLY, cursor, end));
+            storageService.storeRollups(RollupResolution.DAILY, daily);
+        }
+    }
+
+    /**
+     * Calls {@code action} with [from, to) of each run of consecutive buckets in
+     * {@code buckets}, which must be sorted, distinct and aligned to {@code resolution}
+     */
+    private static void forEachRun(long[] buckets, RollupResolution resolution, RangeAction action) throws Exception {
+        long step = resolution.bucketMillis();
+        for (int i = 0; i < buckets.length; ) {
+            int j = i + 1;
+            while (j < buckets.length && buckets[j] == buckets[j - 1] + step) j++;
+            action.apply(buckets[i], buckets[j - 1] + step);
+            i = j;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeAction {
+        void apply(long fromMillis, long toMillis) throws Exception;
+    }
+
+    /**
+     * Hourly min/max/mean/count of raw readings sorted by time, up to {@code toMillis}.
+     * Duplicate timestamps (possible in the shared collection) count once, with the last
+     * value read.
+     */
+    static WaterLevelRollupSeries aggregate(String stationId, WaterLevelSeries raw, long toMillis) {
+        RollupBuilder builder = new RollupBuilder(stationId, raw.getSize() / 10 + 2);
+        long[] t = raw.getTimestamps();
+        double[] v = raw.getWaterLevels();
+        for (int i = 0; i < raw.getSize() && t[i] < toMillis; i++) {
+            if (i + 1 < raw.getSize() && t[i + 1] == t[i]) continue;
+            if (Double.isNaN(v[i])) continue;
+            builder.add(RollupResolution.HOURLY.floor(t[i]), v[i], v[i], v[i], 1);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Folds finer buckets sorted by time into coarser ones, weighting means by count
+     */
+    static WaterLevelRollupSeries combine(String stationId, RollupResolution resolution, WaterLevelRollupSeries finer) {
+        RollupBuilder builder = new RollupBuilder(stationId, finer.getSize() / 24 + 2);
+        for (int i = 0; i < finer.getSize(); i++) {
+            if (finer.getCounts()[i] == 0) continue;
+            builder.add(resolution.floor(finer.getBuckets()[i]), finer.getMinLevels()[i], finer.getMaxLevels()[i],
+                finer.getMeanLevels()[i], finer.getCounts()[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Accumulates consecutive inputs into buckets; inputs must arrive in bucket order
+     */
+    private static final class RollupBuilder {
+        final String stationId;
+        long[] buckets;
+        double[] mins, maxs, sums;
+        int[] counts;
+        int size;
+
+        RollupBuilder(String stationId, int capacity) {
+            this.stationId = stationId;
+            buckets = new long[capacity];
+            mins = new double[capacity];
+            maxs = new double[capacity];
+            sums = new double[capacity];
+            counts = new int[capacity];
+        }
+
+        void add(long bucket, double min, double max, double mean, int count) {
+            if (size == 0 || buckets[size - 1] != bucket) {
+                if (size == buckets.length) {
+                    int grown = size * 2;
+                    buckets = Arrays.copyOf(buckets, grown);
+                    mins = Arrays.copyOf(mins, grown);
+                    maxs = Arrays.copyOf(maxs, grown);
+                    sums = Arrays.copyOf(sums, grown);
+                    counts = Arrays.copyOf(counts, grown);
+                }
+                buckets[size] = bucket;
+                mins[size] = min;
+                maxs[size] = max;
+                sums[size] = mean * count;
+                counts[size] = count;
+                size++;
+                return;
+            }
+            int last = size - 1;
+            mins[last] = Math.min(mins[last], min);
+            maxs[last] = Math.max(maxs[last], max);
+            sums[last] += mean * count;
+            counts[last] += count;
+        }
+
+        WaterLevelRollupSeries build() {
+            double[] means = new double[size];
+            for (int i = 0; i < size; i++) {
+                means[i] = sums[i] / counts[i];
+            }
+            return WaterLevelRollupSeries.builder()
+                .stationId(stationId)
+                .size(size)
+                .buckets(buckets)
+                .minLevels(mins)
+                .maxLevels(maxs)
+                .meanLevels(means)
+                .counts(counts)
+                .build();
+        }
+    }
+}
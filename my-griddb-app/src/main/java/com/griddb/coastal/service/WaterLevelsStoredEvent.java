@@ -0,0 +1,11 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.WaterLevelData;
+
+import java.util.List;
+
+/**
+ * Published by {@link StorageService} after water level rows were stored
+ */
+public record WaterLevelsStoredEvent(List<WaterLevelData> rows) {
+}
@@ -0,0 +1,175 @@
+package com.griddb.coastal.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Remembers the newest reading already ingested for each station and product, so
+ * fetches only ask NOAA for what is new and restarts don't re-download history.
+ *
+ * Watermarks advance in memory and are written to a small properties file
+ * ({@code ingestion.watermark.file}) by {@link #flush()}: at the end of each ingestion
+ * cycle, every {@code ingestion.watermark.flush.ms} while any have changed, and at
+ * shutdown. The file is replaced atomically. A watermark lost to a crash between
+ * flushes only means its readings are fetched and upserted again.
+ *
+ * Each watermark is also published as a {@code coastal.data.age} gauge, tagged by
+ * station and product: how long ago the newest ingested reading was taken, which
+ * is what to alert on for stale stations. Monthly means are dated by the start of
+ * their month, so their age runs up to two months even when nothing is missing.
+ */
+@Component
+public class WatermarkStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatermarkStore.class);
+
+    public static final String WATER_LEVEL = "water_level";
+    public static final String MONTHLY_MEAN = "monthly_mean";
+
+    @Value("${ingestion.watermark.file:data/watermarks.properties}")
+    private String watermarkFile;
+
+    @Value("${ingestion.watermark.flush.ms:5000}")
+    private long flushIntervalMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, LocalDateTime> watermarks = new ConcurrentHashMap<>();
+
+    // Set when a watermark advanced since the file was last written
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void load() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "watermark-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+
+        Path path = Paths.get(watermarkFile);
+        if (!Files.exists(path)) return;
+
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            props.load(reader);
+            props.forEach((key, value) -> watermarks.put((String) key, LocalDateTime.parse((String) value)));
+            watermarks.keySet().forEach(this::registerAgeGauge);
+            logger.info("Loaded {} ingestion watermarks from {}", watermarks.size(), path);
+        } catch (Exception e) {
+            logger.error("Error loading watermarks from {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Timestamp (UTC) of the newest ingested reading, or null if nothing was ingested yet
+     */
+    public LocalDateTime get(String stationId, String product) {
+        return watermarks.get(key(stationId, product));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * Moves the watermark forward to {@code timestamp}; older values are ignored. The
+     * change reaches the file on the next {@link #flush()}.
+     */
+    public void advance(String stationId, String product, LocalDateTime timestamp) {
+        String key = key(stationId, product);
+        LocalDateTime previous = watermarks.get(key);
+        LocalDateTime updated = watermarks.merge(key, timestamp,
+            (current, proposed) -> proposed.isAfter(current) ? proposed : current);
+        if (updated == timestamp) {
+            if (previous == null) registerAgeGauge(key);
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Writes the watermarks to the file if any advanced since the last write
+     */
+    public void flush() {
+        if (!dirty.getAndSet(false)) return;
+        if (!save()) dirty.set(true);
+    }
+
+    public Map<String, LocalDateTime> snapshot() {
+        return new TreeMap<>(watermarks);
+    }
+
+    private synchronized boolean save() {
+        Path path = Paths.get(watermarkFile);
+        Properties props = new Properties();
+        watermarks.forEach((key, value) -> props.setProperty(key, value.toString()));
+
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "watermarks", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(writer, "Last ingested reading per station/product (UTC)");
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            logger.error("Error saving watermarks to {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String key(String stationId, String product) {
+        return stationId + "." + product;
+    }
+
+    /**
+     * Registering again for a key that already has a gauge is a no-op
+     */
+    private void registerAgeGauge(String key) {
+        int dot = key.indexOf('.');
+        Gauge.builder("coastal.data.age", watermarks, marks -> ageSeconds(marks.get(key)))
+            .tags("station", key.substring(0, dot), "product", key.substring(dot + 1))
+            .baseUnit("seconds")
+            .description("Time since the newest ingested reading")
+            .register(meterRegistry);
+    }
+
+    private static double ageSeconds(LocalDateTime watermark) {
+        if (watermark == null) return Double.NaN;
+        return Duration.between(watermark, LocalDateTime.now(ZoneOffset.UTC)).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,323 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.WaterLevelData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Write-behind stage between the NOAA fetchers and GridDB.
+ *
+ * Fetchers hand their rows over and move on; rows are collected per target container
+ * and written in one batch once a container holds {@code ingestion.buffer.flush.rows}
+ * rows or its oldest row has waited {@code ingestion.buffer.flush.interval.ms}. The
+ * buffer holds at most {@code ingestion.buffer.capacity.rows} rows: submitters block
+ * when it is full. Whatever is buffered is flushed on shutdown.
+ *
+ * Batches are appended to the {@link IngestionJournal} before they are buffered, so
+ * each submission is safe as soon as its rows are durable on local disk. Failed writes
+ * stay in the journal and are retried every {@code ingestion.journal.retry.interval.ms};
+ * batches left over from a previous run are replayed on startup. With the journal
+ * disabled a submission is safe once all of its rows are stored.
+ */
+@Component
+public class WriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private GridDBSchemaRegistry schemaRegistry;
+
+    @Autowired
+    private IngestionJournal journal;
+
+    @Value("${ingestion.buffer.capacity.rows:50000}")
+    private int capacityRows;
+
+    @Value("${ingestion.buffer.flush.rows:5000}")
+    private int flushRows;
+
+    @Value("${ingestion.buffer.flush.interval.ms:2000}")
+    private long flushIntervalMs;
+
+    @Value("${ingestion.buffer.flush.concurrency:4}")
+    private int flushConcurrency;
+
+    @Value("${ingestion.journal.retry.interval.ms:30000}")
+    private long retryIntervalMs;
+
+    private Semaphore freeRows;
+
+    private ScheduledExecutorService ticker;
+
+    private ExecutorService flushers;
+
+    private ScheduledExecutorService replayer;
+
+    private volatile boolean closed;
+
+    private final Map<String, Pending<?>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Progress of a submission: {@code safe} completes with true once the rows are durable
+     * (journaled or stored), {@code stored} once their first write to the store is done,
+     * with false if any of it failed
+     */
+    public record Submission(CompletableFuture<Boolean> safe, CompletableFuture<Boolean> stored) {
+    }
+
+    private interface Appender<T> {
+        long append(List<T> rows) throws IOException;
+    }
+
+    /**
+     * Rows waiting for one container, plus the futures of the submissions they came from
+     */
+    private static final class Pending<T> {
+        final String container;
+        final Function<List<T>, Boolean> store;
+        List<T> rows = new ArrayList<>();
+        List<CompletableFuture<Boolean>> waiters = new ArrayList<>();
+        int permits;
+        long oldestNanos;
+
+        Pending(String container, Function<List<T>, Boolean> store) {
+            this.container = container;
+            this.store = store;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        freeRows = new Semaphore(capacityRows, true);
+        AtomicInteger threadCount = new AtomicInteger();
+        flushers = Executors.newFixedThreadPool(flushConcurrency, r -> {
+            Thread t = new Thread(r, "write-behind-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+        long tick = Math.max(50, flushIntervalMs / 4);
+        ticker.scheduleWithFixedDelay(this::flushExpired, tick, tick, TimeUnit.MILLISECONDS);
+
+        if (journal.isEnabled()) {
+            // Replays block on buffer capacity, so they get their own thread
+            replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "write-behind-replay");
+                t.setDaemon(true);
+                return t;
+            });
+            replayer.execute(() -> replay(journal.takeRecovered()));
+            replayer.scheduleWithFixedDelay(() -> replay(journal.takeFailed()),
+                retryIntervalMs, retryIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops accepting rows and writes out everything still buffered
+     */
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        ticker.shutdown();
+        if (replayer != null) replayer.shutdownNow();
+        flushMatching(p -> true);
+        flushers.shutdown();
+        try {
+            if (!flushers.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Write-behind buffer did not drain within 30s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Submission submitWaterLevels(List<WaterLevelData> rows) {
+        return submit(rows, journal::appendWaterLevels, this::bufferWaterLevels);
+    }
+
+    public Submission submitMonthlyMeans(List<MonthlyMeanData> rows) {
+        return submit(rows, journal::appendMonthlyMeans, this::bufferMonthlyMeans);
+    }
+
+    /**
+     * Rows currently buffered and not yet handed to GridDB
+     */
+    public int bufferedRows() {
+        return capacityRows - freeRows.availablePermits();
+    }
+
+    private <T> Submission submit(List<T> rows, Appender<T> appender,
+                                  Function<List<T>, CompletableFuture<Boolean>> buffer) {
+        if (rows.isEmpty()) {
+            CompletableFuture<Boolean> done = CompletableFuture.completedFuture(true);
+            return new Submission(done, done);
+        }
+        if (closed || !journal.isEnabled()) {
+            CompletableFuture<Boolean> stored = buffer.apply(rows);
+            return new Submission(stored, stored);
+        }
+
+        long offset;
+        try {
+            offset = appender.append(rows);
+        } catch (IOException e) {
+            logger.error("Error journaling {} rows, buffering them unjournaled: {}", rows.size(), e.getMessage());
+            CompletableFuture<Boolean> stored = buffer.apply(rows);
+            return new Submission(stored, stored);
+        }
+        CompletableFuture<Boolean> stored = buffer.apply(rows);
+        track(offset, stored);
+        return new Submission(CompletableFuture.completedFuture(true), stored);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replay(List<IngestionJournal.Entry> entries) {
+        for (IngestionJournal.Entry entry : entries) {
+            CompletableFuture<Boolean> stored = entry.kind() == IngestionJournal.WATER_LEVEL
+                ? bufferWaterLevels((List<WaterLevelData>) entry.rows())
+                : bufferMonthlyMeans((List<MonthlyMeanData>) entry.rows());
+            track(entry.offset(), stored);
+        }
+        if (!entries.isEmpty()) {
+            logger.info("Replayed {} journaled batches into the write-behind buffer", entries.size());
+        }
+    }
+
+    private void track(long offset, CompletableFuture<Boolean> stored) {
+        stored.thenAccept(ok -> {
+            if (ok) journal.ack(offset);
+            else journal.fail(offset);
+        });
+    }
+
+    private CompletableFuture<Boolean> bufferWaterLevels(List<WaterLevelData> rows) {
+        return buffer(rows, wl -> schemaRegistry.waterLevelContainer(wl.getStationId()),
+            storageService::storeWaterLevelData);
+    }
+
+    private CompletableFuture<Boolean> bufferMonthlyMeans(List<MonthlyMeanData> rows) {
+        return buffer(rows, mm -> schemaRegistry.monthlyMeanContainer(mm.getStationId()),
+            storageService::storeMonthlyMeanData);
+    }
+
+    private <T> CompletableFuture<Boolean> buffer(List<T> rows, Function<T, String> containerOf,
+                                                 Function<List<T>, Boolean> store) {
+        if (closed) {
+            // Late arrivals during shutdown go straight through
+            return CompletableFuture.completedFuture(store.apply(rows));
+        }
+
+        Map<String, List<T>> byContainer = new LinkedHashMap<>();
+        for (T row : rows) {
+            byContainer.computeIfAbsent(containerOf.apply(row), c -> new ArrayList<>()).add(row);
+        }
+
+        List<CompletableFuture<Boolean>> parts = new ArrayList<>(byContainer.size());
+        for (Map.Entry<String, List<T>> entry : byContainer.entrySet()) {
+            parts.add(enqueue(entry.getKey(), entry.getValue(), store));
+        }
+        if (parts.size() == 1) return parts.get(0);
+
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+            .thenApply(v -> parts.stream().allMatch(CompletableFuture::join));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<Boolean> enqueue(String container, List<T> rows, Function<List<T>, Boolean> store) {
+        // A batch larger than the whole buffer only waits for the buffer to be empty
+        int permits = Math.min(rows.size(), capacityRows);
+        freeRows.acquireUninterruptibly(permits);
+
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        Pending<T> target = (Pending<T>) pending.computeIfAbsent(container, c -> new Pending<>(c, store));
+        boolean full;
+        synchronized (target) {
+            if (target.rows.isEmpty()) target.oldestNanos = System.nanoTime();
+            target.rows.addAll(rows);
+            target.waiters.add(done);
+            target.permits += permits;
+            full = target.rows.size() >= flushRows;
+        }
+        if (full) {
+            flush(target);
+        }
+        return done;
+    }
+
+    private void flushExpired() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        flushMatching(p -> p.oldestNanos - cutoff <= 0);
+    }
+
+    private void flushMatching(Predicate<Pending<?>> due) {
+        for (Pending<?> p : pending.values()) {
+            boolean flush;
+            synchronized (p) {
+                flush = !p.rows.isEmpty() && due.test(p);
+            }
+            if (flush) flush(p);
+        }
+    }
+
+    /**
+     * Takes the container's buffered rows and writes them on a flusher thread
+     */
+    private <T> void flush(Pending<T> p) {
+        List<T> rows;
+        List<CompletableFuture<Boolean>> waiters;
+        int permits;
+        synchronized (p) {
+            if (p.rows.isEmpty()) return;
+            rows = p.rows;
+            waiters = p.waiters;
+            permits = p.permits;
+            p.rows = new ArrayList<>();
+            p.waiters = new ArrayList<>();
+            p.permits = 0;
+        }
+
+        flushers.execute(() -> {
+            boolean stored = false;
+            try {
+                stored = p.store.apply(rows);
+                logger.debug("Flushed {} rows to {}", rows.size(), p.container);
+            } catch (Exception e) {
+                logger.error("Error flushing {} rows to {}: {}", rows.size(), p.container, e.getMessage());
+            } finally {
+                freeRows.release(permits);
+                for (CompletableFuture<Boolean> waiter : waiters) {
+                    waiter.complete(stored);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,202 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarCodecTest {
+
+    private static final long START = 1_735_689_600_000L; // 2025-01-01T00:00Z
+    private static final long STEP = 360_000L;
+
+    @Test
+    void roundTripsWaterLevelsWithGaps() throws IOException {
+        long[] t = new long[10];
+        for (int i = 0; i < t.length; i++) t[i] = START + i * STEP;
+        double[] levels = {1.234, Double.NaN, Double.NaN, 1.236, -0.5, Double.NaN, 0, 12.001, -12.001, Double.NaN};
+        String[] flags = {"0,0,0,0", "0,0,0,0", null, "1,0,0,0", "0,0,0,0", null, "0,0,0,0", "0,0,0,0", "0,0,0,0", "1,0,0,0"};
+        WaterLevelSeries series = waterLevels(t, levels, flags, t.length);
+
+        WaterLevelSeries decoded = roundTrip(series);
+
+        assertEquals("8518750", decoded.getStationId());
+        assertEquals("The Battery", decoded.getStationName());
+        assertEquals("MLLW", decoded.getDatum());
+        assertEquals(40.7006, decoded.getLatitude());
+        assertEquals(-74.0142, decoded.getLongitude());
+        assertEquals(t.length, decoded.getSize());
+        assertArrayEquals(t, decoded.getTimestamps());
+        assertArrayEquals(levels, decoded.getWaterLevels());
+        // Missing flags come back empty
+        assertArrayEquals(new String[] {"0,0,0,0", "0,0,0,0", "", "1,0,0,0", "0,0,0,0", "", "0,0,0,0", "0,0,0,0",
+            "0,0,0,0", "1,0,0,0"}, decoded.getFlags());
+    }
+
+    @Test
+    void roundTripsIrregularTimestamps() throws IOException {
+        // Gaps, a repeat, a step backwards and a jump across 1970, so every delta-of-delta sign shows up
+        long[] t = {START, START + STEP, START + 2 * STEP, START + 2 * STEP, START + STEP + 1,
+            START + 40 * STEP, START + 40 * STEP + 7, -86_400_000L, -1L, 0L, Long.MAX_VALUE / 4};
+        double[] levels = new double[t.length];
+        Arrays.fill(levels, 0.25);
+
+        WaterLevelSeries decoded = roundTrip(waterLevels(t, levels, null, t.length));
+
+        assertArrayEquals(t, decoded.getTimestamps());
+        assertArrayEquals(levels, decoded.getWaterLevels());
+        String[] noFlags = new String[t.length];
+        Arrays.fill(noFlags, "");
+        assertArrayEquals(noFlags, decoded.getFlags());
+    }
+
+    @Test
+    void roundTripsAnEmptySeries() throws IOException {
+        WaterLevelSeries decoded = roundTrip(waterLevels(new long[0], new double[0], new String[0], 0));
+
+        assertEquals(0, decoded.getSize());
+        assertEquals(0, decoded.getTimestamps().length);
+        assertEquals(0, decoded.getWaterLevels().length);
+        assertEquals(0, decoded.getFlags().length);
+        assertEquals("MLLW", decoded.getDatum());
+    }
+
+    @Test
+    void roundTripsASeriesWithNoValues() throws IOException {
+        long[] t = {START, START + STEP, START + 2 * STEP};
+        double[] levels = {Double.NaN, Double.NaN, Double.NaN};
+
+        WaterLevelSeries decoded = roundTrip(waterLevels(t, levels, null, t.length));
+
+        assertArrayEquals(t, decoded.getTimestamps());
+        assertArrayEquals(levels, decoded.getWaterLevels());
+    }
+
+    @Test
+    void writesOnlyTheFirstSizeRows() throws IOException {
+        long[] t = {START, START + STEP, START + 2 * STEP, 0, 0};
+        double[] levels = {1, 2, 3, 99, 99};
+        String[] flags = {"a", "b", "a", "z", "z"};
+
+        WaterLevelSeries decoded = roundTrip(waterLevels(t, levels, flags, 3));
+
+        assertEquals(3, decoded.getSize());
+        assertArrayEquals(Arrays.copyOf(t, 3), decoded.getTimestamps());
+        assertArrayEquals(new double[] {1, 2, 3}, decoded.getWaterLevels());
+        assertArrayEquals(new String[] {"a", "b", "a"}, decoded.getFlags());
+    }
+
+    @Test
+    void readsAbsentAttributesAsEmptyOrNull() throws IOException {
+        WaterLevelSeries series = WaterLevelSeries.builder()
+            .size(1)
+            .timestamps(new long[] {START})
+            .waterLevels(new double[] {0.5})
+            .build();
+
+        WaterLevelSeries decoded = roundTrip(series);
+
+        assertEquals("", decoded.getStationId());
+        assertEquals("", decoded.getStationName());
+        assertEquals("", decoded.getDatum());
+        assertNull(decoded.getLatitude());
+        assertNull(decoded.getLongitude());
+        assertArrayEquals(new String[] {""}, decoded.getFlags());
+    }
+
+    @Test
+    void roundTripsMonthlyMeansBeforeAndAfter1970() throws IOException {
+        LocalDate[] months = {LocalDate.of(1899, 12, 1), LocalDate.of(1900, 1, 1), LocalDate.of(1969, 12, 1),
+            LocalDate.of(1970, 1, 1), LocalDate.of(2000, 2, 1), LocalDate.of(2000, 3, 1), LocalDate.of(2024, 2, 1)};
+        long[] t = Arrays.stream(months).mapToLong(m -> m.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli())
+            .toArray();
+        double[] levels = {-0.212, -0.21, Double.NaN, 0.004, 0.1, 0.101, 0.243};
+        MonthlyMeanSeries series = MonthlyMeanSeries.builder()
+            .stationId("8518750")
+            .stationName("The Battery")
+            .latitude(40.7006)
+            .longitude(-74.0142)
+            .size(t.length)
+            .months(t)
+            .meanSeaLevels(levels)
+            .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarCodec.write(series, out);
+        MonthlyMeanSeries decoded = ColumnarCodec.readMonthlyMeans(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals("8518750", decoded.getStationId());
+        assertEquals("The Battery", decoded.getStationName());
+        assertEquals(40.7006, decoded.getLatitude());
+        assertEquals(t.length, decoded.getSize());
+        assertArrayEquals(t, decoded.getMonths());
+        assertArrayEquals(levels, decoded.getMeanSeaLevels());
+    }
+
+    @Test
+    void rejectsTheWrongKindAndTruncatedInput() throws IOException {
+        long[] t = {START, START + STEP};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarCodec.write(waterLevels(t, new double[] {1, 2}, null, 2), out);
+        byte[] bytes = out.toByteArray();
+
+        IOException wrongKind = assertThrows(IOException.class,
+            () -> ColumnarCodec.readMonthlyMeans(new ByteArrayInputStream(bytes)));
+        assertTrue(wrongKind.getMessage().contains("kind"), wrongKind.getMessage());
+        assertThrows(EOFException.class, () -> ColumnarCodec.readWaterLevels(
+            new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))));
+        assertThrows(IOException.class, () -> ColumnarCodec.readWaterLevels(
+            new ByteArrayInputStream("{\"results\":[]}".getBytes())));
+    }
+
+    @Test
+    void regularReadingsCostAboutThreeBytesARow() throws IOException {
+        int size = 10_000;
+        long[] t = new long[size];
+        double[] levels = new double[size];
+        String[] flags = new String[size];
+        for (int i = 0; i < size; i++) {
+            t[i] = START + i * STEP;
+            levels[i] = Math.round(Math.sin(i / 40.0) * 1000) / 1000.0 * 0.05 + 1.0;
+            flags[i] = "0,0,0,0";
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ColumnarCodec.write(waterLevels(t, levels, flags, size), out);
+
+        assertTrue(out.size() < size * 3.5, "encoded " + out.size() + " bytes");
+    }
+
+    private static WaterLevelSeries waterLevels(long[] t, double[] levels, String[] flags, int size) {
+        return WaterLevelSeries.builder()
+            .stationId("8518750")
+            .stationName("The Battery")
+            .datum("MLLW")
+            .latitude(40.7006)
+            .longitude(-74.0142)
+            .size(size)
+            .timestamps(t)
+            .waterLevels(levels)
+            .flags(flags)
+            .build();
+    }
+
+    private static WaterLevelSeries roundTrip(WaterLevelSeries series) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarCodec.write(series, out);
+        return ColumnarCodec.readWaterLevels(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,157 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DashboardSnapshotServiceTest {
+
+    private static final String STATIONS = "8518750, The Battery, NY, 40.7006, -74.0142, true;"
+        + "9414290, San Francisco, CA, 37.8063, -122.4659, true;"
+        + "8443970, Boston, MA, 42.3548, -71.0534, true";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final StubStorage storage = new StubStorage();
+
+    private DashboardSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        StationRegistry registry = new StationRegistry();
+        ReflectionTestUtils.setField(registry, "stationsConfig", STATIONS);
+        ReflectionTestUtils.setField(registry, "monitor", "configured");
+        ReflectionTestUtils.setField(registry, "refreshHours", 0L);
+        ReflectionTestUtils.setField(registry, "snapshotFile", "");
+        registry.init();
+
+        service = new DashboardSnapshotService();
+        ReflectionTestUtils.setField(service, "stationRegistry", registry);
+        ReflectionTestUtils.setField(service, "storageService", storage);
+        ReflectionTestUtils.setField(service, "queryConcurrency", 4);
+        ReflectionTestUtils.setField(service, "queryTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "buildTimeoutMs", 30_000L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void keepsTheSnapshotWhileTheDataIsUnchanged() throws Exception {
+        DashboardSnapshotService.Snapshot first = service.rebuild();
+
+        DashboardSnapshotService.Snapshot second = service.rebuild();
+
+        assertSame(first, second);
+        assertSame(first, service.current());
+
+        storage.level = 1.5;
+        DashboardSnapshotService.Snapshot changed = service.rebuild();
+
+        assertNotEquals(first.etag(), changed.etag());
+        assertEquals(1.5, stations(changed).get(0).get("latestWaterLevel").get("results").get(0).get(3).asDouble());
+    }
+
+    @Test
+    void servesSubsetsFromTheCurrentSnapshot() throws Exception {
+        DashboardSnapshotService.Snapshot full = service.current();
+        int queries = storage.queries.get();
+
+        DashboardSnapshotService.Snapshot subset = service.build(List.of("8443970", "8518750", "unknown"));
+
+        assertEquals(queries, storage.queries.get(), "a subset runs no queries");
+        JsonNode body = JSON.readTree(subset.body());
+        // Monitored order, not request order
+        assertEquals("8518750", body.get("stations").get(0).get("stationId").asText());
+        assertEquals("8443970", body.get("stations").get(1).get("stationId").asText());
+        assertEquals(2, body.get("totalStations").asInt());
+        assertEquals(0, body.get("degradedStations").asInt());
+        assertEquals(full.builtAt(), body.get("lastUpdated").asLong());
+        assertEquals(stations(full).get(2), body.get("stations").get(1));
+
+        DashboardSnapshotService.Snapshot again = service.build(List.of("8518750", "8443970"));
+        assertEquals(subset.etag(), again.etag());
+        assertArrayEquals(subset.body(), again.body());
+    }
+
+    @Test
+    void buildsOnceForConcurrentFirstRequests() throws Exception {
+        int requests = 8;
+        ExecutorService clients = Executors.newFixedThreadPool(requests);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<DashboardSnapshotService.Snapshot>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            results.add(clients.submit(() -> {
+                ready.await();
+                return service.current();
+            }));
+        }
+
+        ready.countDown();
+        DashboardSnapshotService.Snapshot first = results.get(0).get();
+        for (Future<DashboardSnapshotService.Snapshot> result : results) {
+            assertSame(first, result.get());
+        }
+        clients.shutdown();
+
+        assertEquals(6, storage.queries.get(), "one query of each kind per station");
+    }
+
+    private static JsonNode stations(DashboardSnapshotService.Snapshot snapshot) throws IOException {
+        return JSON.readTree(snapshot.body()).get("stations");
+    }
+
+    private static final class StubStorage extends StorageService {
+        final AtomicInteger queries = new AtomicInteger();
+        volatile double level = 1.25;
+
+        @Override
+        public WaterLevelSeries queryWaterLevelSeries(String stationId, int hours) throws Exception {
+            queries.incrementAndGet();
+            Thread.sleep(20);
+            return WaterLevelSeries.builder()
+                .stationId(stationId)
+                .stationName("Station " + stationId)
+                .datum("MLLW")
+                .size(1)
+                .timestamps(new long[] {1_735_689_600_000L})
+                .waterLevels(new double[] {level})
+                .flags(new String[] {"0,0,0,0"})
+                .build();
+        }
+
+        @Override
+        public MonthlyMeanSeries queryMonthlyMeanSeries(String stationId, int years) {
+            queries.incrementAndGet();
+            return MonthlyMeanSeries.builder()
+                .stationId(stationId)
+                .stationName("Station " + stationId)
+                .size(1)
+                .months(new long[] {1_733_011_200_000L})
+                .meanSeaLevels(new double[] {0.12})
+                .build();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownsamplerTest {
+
+    private static final long START = 1_735_689_600_000L; // 2025-01-01T00:00Z
+    private static final long STEP = 360_000L;
+
+    @Test
+    void lttbKeepsTheRequestedPointsWithFirstAndLast() {
+        WaterLevelSeries series = tide(1000);
+
+        for (int points : new int[] {3, 4, 10, 100, 999}) {
+            WaterLevelSeries sampled = Downsampler.downsample(series, points, Downsampler.LTTB);
+
+            assertEquals(points, sampled.getSize(), "points=" + points);
+            assertEquals(points, sampled.getTimestamps().length);
+            assertEquals(series.getTimestamps()[0], sampled.getTimestamps()[0]);
+            assertEquals(series.getTimestamps()[999], sampled.getTimestamps()[points - 1]);
+            assertStrictlyIncreasing(sampled.getTimestamps());
+            assertKeptReadings(series, sampled);
+        }
+    }
+
+    @Test
+    void lttbKeepsOnlyFirstAndLastBelowThreePoints() {
+        long[] t = timestamps(50);
+        double[] y = tide(50).getWaterLevels();
+
+        assertArrayEquals(new int[] {0, 49}, Downsampler.lttb(t, y, 50, 2));
+        assertArrayEquals(new int[] {0, 49}, Downsampler.lttb(t, y, 50, 1));
+        assertArrayEquals(new int[] {0}, Downsampler.lttb(t, y, 1, 1));
+        assertEquals(2, Downsampler.downsample(tide(50), 1, Downsampler.LTTB).getSize());
+    }
+
+    @Test
+    void lttbKeepsASpike() {
+        WaterLevelSeries series = tide(1000);
+        series.getWaterLevels()[501] = 5.0;
+
+        WaterLevelSeries sampled = Downsampler.downsample(series, 50, null);
+
+        assertTrue(Arrays.stream(sampled.getWaterLevels()).anyMatch(v -> v == 5.0));
+    }
+
+    @Test
+    void lttbSkipsMissingValues() {
+        WaterLevelSeries series = tide(1000);
+        for (int i = 1; i < 999; i += 2) series.getWaterLevels()[i] = Double.NaN;
+
+        WaterLevelSeries sampled = Downsampler.downsample(series, 100, Downsampler.LTTB);
+
+        assertEquals(100, sampled.getSize());
+        assertFalse(Arrays.stream(sampled.getWaterLevels()).anyMatch(Double::isNaN));
+    }
+
+    @Test
+    void minMaxKeepsAtMostTheRequestedPointsInTimeOrder() {
+        WaterLevelSeries series = tide(1000);
+
+        for (int points : new int[] {2, 3, 10, 101, 999}) {
+            WaterLevelSeries sampled = Downsampler.downsample(series, points, Downsampler.MIN_MAX);
+
+            assertTrue(sampled.getSize() <= points, "points=" + points + " kept " + sampled.getSize());
+            assertTrue(sampled.getSize() >= points / 2, "points=" + points + " kept " + sampled.getSize());
+            assertStrictlyIncreasing(sampled.getTimestamps());
+            assertKeptReadings(series, sampled);
+        }
+    }
+
+    @Test
+    void minMaxKeepsEachBucketsExtremes() {
+        // Rising, so each bucket's min is its first point and its max its last
+        assertArrayEquals(new int[] {0, 499, 500, 999}, Downsampler.minMax(rising(1000), 1000, 4));
+
+        double[] y = rising(1000);
+        y[250] = -3;
+        y[750] = 9_000;
+
+        assertArrayEquals(new int[] {250, 499, 500, 750}, Downsampler.minMax(y, y.length, 4));
+    }
+
+    @Test
+    void minMaxKeepsTheWholeRangeBelowThreePoints() {
+        assertArrayEquals(new int[] {0, 999}, Downsampler.minMax(rising(1000), 1000, 1));
+        assertArrayEquals(new int[] {0, 999}, Downsampler.minMax(rising(1000), 1000, 2));
+        // A flat bucket, or one with no readings, keeps a single point
+        assertArrayEquals(new int[] {0}, Downsampler.minMax(new double[] {1, 1, 1}, 3, 2));
+        assertArrayEquals(new int[] {0}, Downsampler.minMax(new double[] {Double.NaN, Double.NaN}, 2, 2));
+    }
+
+    @Test
+    void leavesShortSeriesAlone() {
+        WaterLevelSeries series = tide(10);
+
+        assertSame(series, Downsampler.downsample(series, 10, Downsampler.LTTB));
+        assertSame(series, Downsampler.downsample(series, 0, Downsampler.MIN_MAX));
+        assertThrows(IllegalArgumentException.class, () -> Downsampler.downsample(tide(20), 10, "median"));
+    }
+
+    @Test
+    void downsamplesMonthlyMeans() {
+        int size = 600;
+        double[] levels = new double[size];
+        for (int i = 0; i < size; i++) levels[i] = -0.2 + i * 0.0004 + Math.sin(i / 2.0) * 0.05;
+        MonthlyMeanSeries series = MonthlyMeanSeries.builder()
+            .stationId("8518750")
+            .size(size)
+            .months(timestamps(size))
+            .meanSeaLevels(levels)
+            .build();
+
+        MonthlyMeanSeries sampled = Downsampler.downsample(series, 60, Downsampler.LTTB);
+
+        assertEquals(60, sampled.getSize());
+        assertEquals(series.getMonths()[0], sampled.getMonths()[0]);
+        assertEquals(series.getMonths()[size - 1], sampled.getMonths()[59]);
+        assertEquals("8518750", sampled.getStationId());
+    }
+
+    private static void assertStrictlyIncreasing(long[] timestamps) {
+        for (int i = 1; i < timestamps.length; i++) {
+            assertTrue(timestamps[i] > timestamps[i - 1], "out of order at " + i);
+        }
+    }
+
+    /** Every kept point is an original reading with its own flag */
+    private static void assertKeptReadings(WaterLevelSeries series, WaterLevelSeries sampled) {
+        for (int i = 0; i < sampled.getSize(); i++) {
+            int index = (int) ((sampled.getTimestamps()[i] - START) / STEP);
+            assertEquals(series.getWaterLevels()[index], sampled.getWaterLevels()[i]);
+            assertEquals(series.getFlags()[index], sampled.getFlags()[i]);
+        }
+    }
+
+    private static WaterLevelSeries tide(int size) {
+        double[] levels = new double[size];
+        String[] flags = new String[size];
+        for (int i = 0; i < size; i++) {
+            levels[i] = 1.0 + Math.sin(i / 20.0) + 0.1 * Math.sin(i / 3.0);
+            flags[i] = i % 7 == 0 ? "1,0,0,0" : "0,0,0,0";
+        }
+        return WaterLevelSeries.builder()
+            .stationId("8518750")
+            .size(size)
+            .timestamps(timestamps(size))
+            .waterLevels(levels)
+            .flags(flags)
+            .build();
+    }
+
+    private static long[] timestamps(int size) {
+        long[] t = new long[size];
+        for (int i = 0; i < size; i++) t[i] = START + i * STEP;
+        return t;
+    }
+
+    private static double[] rising(int size) {
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) y[i] = i;
+        return y;
+    }
+}
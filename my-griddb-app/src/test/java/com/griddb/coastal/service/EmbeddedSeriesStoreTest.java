@@ -0,0 +1,122 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.WaterLevelAggregateSeries;
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedSeriesStoreTest {
+
+    private static final String STATION = "8518750";
+    private static final LocalDateTime MIDNIGHT = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    private EmbeddedSeriesStore store;
+
+    @BeforeEach
+    void open() {
+        store = new EmbeddedSeriesStore();
+        ReflectionTestUtils.setField(store, "storeDir", dir.toString());
+        ReflectionTestUtils.setField(store, "blockPoints", 16);
+        ReflectionTestUtils.setField(store, "fsync", false);
+        ReflectionTestUtils.setField(store, "maxQueryRows", 20_000);
+    }
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    @Test
+    void aggregatesIntoHalfOpenBucketsAlignedToFrom() throws Exception {
+        // 00:00, 00:30, 01:00, ... 03:00; the level is the number of half hours
+        List<WaterLevelData> rows = new ArrayList<>();
+        for (int i = 0; i <= 6; i++) {
+            rows.add(reading(MIDNIGHT.plusMinutes(30L * i), i));
+        }
+        assertTrue(store.storeWaterLevelData(rows));
+
+        WaterLevelAggregateSeries series = store.aggregateWaterLevels(STATION, MIDNIGHT, MIDNIGHT.plusHours(3),
+            TimeBucket.parse("1h"), List.of("avg", "min", "max", "sum", "count"));
+
+        // 01:00 opens the second bucket and 03:00 is past the end
+        assertArrayEquals(new long[] {millis(MIDNIGHT), millis(MIDNIGHT.plusHours(1)), millis(MIDNIGHT.plusHours(2))},
+            Arrays.copyOf(series.getBuckets(), series.getSize()));
+        assertArrayEquals(new double[] {0.5, 2.5, 4.5}, values(series, 0));
+        assertArrayEquals(new double[] {0, 2, 4}, values(series, 1));
+        assertArrayEquals(new double[] {1, 3, 5}, values(series, 2));
+        assertArrayEquals(new double[] {1, 5, 9}, values(series, 3));
+        assertArrayEquals(new double[] {2, 2, 2}, values(series, 4));
+
+        series = store.aggregateWaterLevels(STATION, MIDNIGHT.plusMinutes(30), MIDNIGHT.plusMinutes(150),
+            TimeBucket.parse("1h"), List.of("count"));
+
+        assertArrayEquals(new long[] {millis(MIDNIGHT.plusMinutes(30)), millis(MIDNIGHT.plusMinutes(90))},
+            Arrays.copyOf(series.getBuckets(), series.getSize()));
+        assertArrayEquals(new double[] {2, 2}, values(series, 0));
+    }
+
+    @Test
+    void skipsMissingLevelsAndEmptyBuckets() throws Exception {
+        store.storeWaterLevelData(List.of(
+            reading(MIDNIGHT, 1),
+            reading(MIDNIGHT.plusMinutes(6), null),
+            reading(MIDNIGHT.plusHours(1), null),
+            reading(MIDNIGHT.plusHours(3), 5)));
+
+        WaterLevelAggregateSeries series = store.aggregateWaterLevels(STATION, MIDNIGHT, MIDNIGHT.plusHours(4),
+            TimeBucket.parse("1h"), List.of("avg", "count"));
+
+        assertArrayEquals(new long[] {millis(MIDNIGHT), millis(MIDNIGHT.plusHours(3))},
+            Arrays.copyOf(series.getBuckets(), series.getSize()));
+        assertArrayEquals(new double[] {1, 5}, values(series, 0));
+        assertArrayEquals(new double[] {1, 1}, values(series, 1));
+    }
+
+    @Test
+    void keepsTheOldestRowsOfATruncatedRange() throws Exception {
+        ReflectionTestUtils.setField(store, "maxQueryRows", 5);
+        List<WaterLevelData> rows = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            rows.add(reading(MIDNIGHT.plusMinutes(6L * i), i));
+        }
+        store.storeWaterLevelData(rows);
+
+        WaterLevelSeries series = store.loadWaterLevelRange(STATION, millis(MIDNIGHT), millis(MIDNIGHT.plusHours(2)));
+
+        assertEquals(5, series.getSize());
+        assertEquals(millis(MIDNIGHT), series.getTimestamps()[0]);
+        assertArrayEquals(new double[] {0, 1, 2, 3, 4}, series.getWaterLevels());
+        assertEquals("The Battery", series.getStationName());
+    }
+
+    private static WaterLevelData reading(LocalDateTime timestamp, Integer level) {
+        return new WaterLevelData(STATION, "The Battery", timestamp, level != null ? level.doubleValue() : null,
+            "MLLW", 40.7006, -74.0142, "0,0,0,0");
+    }
+
+    private static long millis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static double[] values(WaterLevelAggregateSeries series, int function) {
+        return Arrays.copyOf(series.getValues()[function], series.getSize());
+    }
+}
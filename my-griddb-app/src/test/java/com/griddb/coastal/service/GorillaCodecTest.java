@@ -0,0 +1,163 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.service.GorillaCodec.Points;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GorillaCodecTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void roundTripsEveryDeltaOfDeltaWidth() {
+        // Zero, then both ends of the 7, 9, 12 and 32 bit ranges, one past each, and 64 bits
+        long[] deltaOfDeltas = {0, 0, 64, -63, 65, -64, 256, -255, 257, -256, 2048, -2047, 2049, -2048,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, (long) Integer.MAX_VALUE + 1, (long) Integer.MIN_VALUE - 1,
+            1L << 40, -(1L << 40), 0};
+        long[] t = new long[deltaOfDeltas.length + 1];
+        t[0] = START;
+        long delta = 360_000L;
+        for (int i = 0; i < deltaOfDeltas.length; i++) {
+            delta += deltaOfDeltas[i];
+            t[i + 1] = t[i] + delta;
+        }
+
+        Points decoded = roundTrip(points(t, new double[t.length]));
+
+        assertArrayEquals(t, decoded.timestamps());
+    }
+
+    @Test
+    void roundTripsValuesBitForBit() {
+        double[] v = {
+            1.0, 1.0, -1.0, 1.0,                           // repeat, sign flip (no leading zeros)
+            Math.nextUp(1.0), 1.0,                         // 63 leading zeros, capped at 31
+            Double.longBitsToDouble(Double.doubleToRawLongBits(1.0) ^ 0xFFFF_FFFFL), // exactly 32 leading zeros
+            Double.longBitsToDouble(~Double.doubleToRawLongBits(1.0)),               // all 64 bits meaningful
+            Double.NaN, Double.NaN, 0.5, Double.NaN,
+            0.0, -0.0, Double.MAX_VALUE, Double.MIN_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            1.234, 1.235, 1.236, 1.234                     // reuses the previous leading/trailing window
+        };
+        long[] t = new long[v.length];
+        for (int i = 0; i < t.length; i++) t[i] = START + i * 360_000L;
+
+        Points decoded = roundTrip(points(t, v));
+
+        assertArrayEquals(bits(v), bits(decoded.columns()[0]));
+    }
+
+    @Test
+    void roundTripsRandomSeriesWithSeveralColumnsAndLabels() {
+        Random random = new Random(42);
+        int size = 5_000;
+        long[] t = new long[size];
+        double[][] columns = new double[3][size];
+        int[] labels = new int[size];
+        long time = START;
+        double level = 0;
+        for (int i = 0; i < size; i++) {
+            time += random.nextInt(10) == 0 ? 360_000L + random.nextInt(1_000_000) : 360_000L;
+            t[i] = time;
+            level += Math.round(random.nextGaussian() * 20) / 1000.0;
+            columns[0][i] = level;
+            columns[1][i] = random.nextDouble();
+            columns[2][i] = random.nextInt(20) == 0 ? Double.NaN : i;
+            labels[i] = random.nextInt(5) == 0 ? random.nextInt(GorillaCodec.MAX_LABELS) : 0;
+        }
+        Points points = new Points(size, t, columns, labels);
+
+        Points decoded = roundTrip(points);
+
+        assertArrayEquals(t, decoded.timestamps());
+        for (int c = 0; c < columns.length; c++) {
+            assertArrayEquals(bits(columns[c]), bits(decoded.columns()[c]));
+        }
+        assertArrayEquals(labels, decoded.labels());
+    }
+
+    @Test
+    void roundTripsEveryLabelIndex() {
+        int size = GorillaCodec.MAX_LABELS * 2;
+        long[] t = new long[size];
+        int[] labels = new int[size];
+        for (int i = 0; i < size; i++) {
+            t[i] = START + i * 360_000L;
+            labels[i] = i / 2; // each label twice: once written, once as "same as previous"
+        }
+        Points points = new Points(size, t, new double[][] {new double[size]}, labels);
+
+        assertArrayEquals(labels, roundTrip(points).labels());
+    }
+
+    @Test
+    void encodesASubRange() {
+        long[] t = {START, START + 1, START + 5, START + 6, START + 100};
+        double[] v = {1, 2, 3, 4, 5};
+        Points points = points(t, v);
+
+        byte[] block = GorillaCodec.encode(points, 1, 4);
+        Points decoded = GorillaCodec.decode(ByteBuffer.wrap(block), 0, block.length, 3, 1, false);
+
+        assertArrayEquals(Arrays.copyOfRange(t, 1, 4), decoded.timestamps());
+        assertArrayEquals(new double[] {2, 3, 4}, decoded.columns()[0]);
+        assertNull(decoded.labels());
+    }
+
+    @Test
+    void decodesABlockAtAnOffset() {
+        long[] t = {START, START + 360_000L};
+        byte[] block = GorillaCodec.encode(points(t, new double[] {0.25, 0.5}), 0, 2);
+        byte[] padded = new byte[block.length + 10];
+        System.arraycopy(block, 0, padded, 7, block.length);
+
+        Points decoded = GorillaCodec.decode(ByteBuffer.wrap(padded), 7, block.length, 2, 1, false);
+
+        assertArrayEquals(t, decoded.timestamps());
+        assertArrayEquals(new double[] {0.25, 0.5}, decoded.columns()[0]);
+    }
+
+    @Test
+    void mergePrefersTheNewerRunOnEqualTimestamps() {
+        Points older = points(new long[] {1, 3, 5, 7}, new double[] {10, 30, 50, 70});
+        Points newer = points(new long[] {2, 3, 7, 9}, new double[] {-2, -3, -7, -9});
+
+        Points merged = GorillaCodec.merge(older, newer);
+
+        assertEquals(6, merged.size());
+        assertArrayEquals(new long[] {1, 2, 3, 5, 7, 9}, Arrays.copyOf(merged.timestamps(), 6));
+        assertArrayEquals(new double[] {10, -2, -3, 50, -7, -9}, Arrays.copyOf(merged.columns()[0], 6));
+    }
+
+    @Test
+    void concatKeepsOnlyTheRequestedRange() {
+        Points first = points(new long[] {1, 2, 3}, new double[] {1, 2, 3});
+        Points second = points(new long[] {4, 5, 6}, new double[] {4, 5, 6});
+
+        Points range = GorillaCodec.concat(List.of(first, second), 1, false, 2, 6);
+
+        assertEquals(4, range.size());
+        assertArrayEquals(new long[] {2, 3, 4, 5}, Arrays.copyOf(range.timestamps(), 4));
+    }
+
+    private static Points points(long[] t, double[] v) {
+        return new Points(t.length, t, new double[][] {v}, null);
+    }
+
+    private static Points roundTrip(Points points) {
+        byte[] block = GorillaCodec.encode(points, 0, points.size());
+        return GorillaCodec.decode(ByteBuffer.wrap(block), 0, block.length, points.size(),
+            points.columns().length, points.labels() != null);
+    }
+
+    private static long[] bits(double[] values) {
+        return Arrays.stream(values).mapToLong(Double::doubleToRawLongBits).toArray();
+    }
+}
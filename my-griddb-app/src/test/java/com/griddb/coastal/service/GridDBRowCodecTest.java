@@ -0,0 +1,131 @@
+package com.griddb.coastal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GridDBRowCodecTest {
+
+    private static final DateTimeFormatter FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    @Test
+    void parsesAndFormatsLeapDaysAndCenturyBoundaries() {
+        String[] timestamps = {
+            "2000-02-29T00:00:00.000Z", // divisible by 400: a leap year
+            "2000-03-01T00:00:00.000Z",
+            "2024-02-29T23:59:59.999Z",
+            "2024-03-01T00:00:00.000Z",
+            "2023-02-28T12:00:00.000Z",
+            "2023-03-01T00:00:00.001Z",
+            "1900-02-28T06:06:06.606Z", // divisible by 100 but not 400: no leap day
+            "1900-03-01T00:00:00.000Z",
+            "2100-03-01T00:00:00.000Z",
+            "2024-12-31T23:59:59.999Z",
+            "2025-01-01T00:00:00.000Z"
+        };
+        for (String timestamp : timestamps) {
+            assertRoundTrips(timestamp);
+        }
+    }
+
+    @Test
+    void parsesAndFormatsDatesBefore1970() {
+        String[] timestamps = {
+            "1969-12-31T23:59:59.999Z",
+            "1969-12-31T00:00:00.000Z",
+            "1970-01-01T00:00:00.000Z",
+            "1970-01-01T00:00:00.001Z",
+            "1968-02-29T18:30:00.000Z",
+            "1900-01-01T00:00:00.000Z",
+            "1854-07-01T00:00:00.000Z", // the oldest NOAA monthly means
+            "0001-01-01T00:00:00.000Z"
+        };
+        for (String timestamp : timestamps) {
+            assertRoundTrips(timestamp);
+        }
+    }
+
+    @Test
+    void parsesTimestampsWithoutMillis() {
+        assertEquals(Instant.parse("2024-02-29T12:34:56Z").toEpochMilli(), parse("2024-02-29T12:34:56Z"));
+        assertEquals(Instant.parse("1969-12-31T23:59:59Z").toEpochMilli(), parse("1969-12-31T23:59:59Z"));
+    }
+
+    @Test
+    void rejectsOtherShapes() {
+        String[] rejected = {
+            "",
+            "2024-02-29",
+            "2024-02-29 12:34:56Z",
+            "2024-02-29T12:34:56",
+            "2024-02-29T12:34:56.000",
+            "2024-02-29T12:34:56.0Z",
+            "2024-02-29T12:34:56.000000Z",
+            "2024-02-29T12:34:56,000Z",
+            "2024-02-29T12:34:56.000+00:00",
+            "2024-0a-29T12:34:56.000Z",
+            "2024-02-29T12:3-:56.000Z",
+            "2024-02-29T12:34:56.00xZ"
+        };
+        for (String text : rejected) {
+            assertEquals(Long.MIN_VALUE, parse(text), text);
+        }
+    }
+
+    @Test
+    void parsesAtAnOffset() {
+        char[] chars = "[\"2024-02-29T12:34:56.789Z\",".toCharArray();
+
+        assertEquals(Instant.parse("2024-02-29T12:34:56.789Z").toEpochMilli(), GridDBRowCodec.parseTimestamp(chars, 2, 24));
+    }
+
+    @Test
+    void agreesWithInstantOnRandomMillis() {
+        Random random = new Random(1970);
+        long min = Instant.parse("0001-01-01T00:00:00Z").toEpochMilli();
+        long max = Instant.parse("9999-12-31T23:59:59.999Z").toEpochMilli();
+        char[] buf = new char[24];
+        for (int i = 0; i < 100_000; i++) {
+            long millis = min + Math.floorMod(random.nextLong(), max - min + 1);
+            String expected = FORMAT.format(Instant.ofEpochMilli(millis));
+
+            int length = GridDBRowCodec.formatTimestamp(millis, buf);
+
+            assertEquals(expected, new String(buf, 0, length));
+            assertEquals(millis, GridDBRowCodec.parseTimestamp(buf, 0, length), expected);
+        }
+    }
+
+    @Test
+    void convertsEveryDayOfFourHundredYears() {
+        // One full Gregorian cycle on each side of the epoch
+        for (LocalDate date = LocalDate.of(1770, 1, 1); date.isBefore(LocalDate.of(2170, 1, 1)); date = date.plusDays(1)) {
+            long days = GridDBRowCodec.daysFromCivil(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+
+            assertEquals(date.toEpochDay(), days, date.toString());
+            assertEquals(date.getYear() * 10_000L + date.getMonthValue() * 100L + date.getDayOfMonth(),
+                GridDBRowCodec.civilFromDays(days), date.toString());
+        }
+    }
+
+    private static void assertRoundTrips(String timestamp) {
+        long expected = Instant.parse(timestamp).toEpochMilli();
+        assertEquals(expected, parse(timestamp), timestamp);
+
+        char[] buf = new char[24];
+        int length = GridDBRowCodec.formatTimestamp(expected, buf);
+        assertEquals(timestamp, new String(buf, 0, length));
+    }
+
+    private static long parse(String text) {
+        char[] chars = text.toCharArray();
+        return GridDBRowCodec.parseTimestamp(chars, 0, chars.length);
+    }
+}
@@ -0,0 +1,216 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.WaterLevelData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionJournalTest {
+
+    private static final int HEADER_BYTES = 8;
+
+    @TempDir
+    Path dir;
+
+    private IngestionJournal journal;
+
+    @AfterEach
+    void close() {
+        if (journal != null) journal.close();
+    }
+
+    @Test
+    void replaysUnacknowledgedBatchesAfterARestart() throws IOException {
+        journal = open(1 << 16);
+        List<WaterLevelData> waterLevels = List.of(waterLevel(0, 1.25), waterLevel(1, null));
+        List<MonthlyMeanData> monthlyMeans = List.of(monthlyMean(LocalDate.of(1969, 12, 1), 0.042));
+        long first = journal.appendWaterLevels(waterLevels);
+        long second = journal.appendMonthlyMeans(monthlyMeans);
+        reopen(1 << 16);
+
+        List<IngestionJournal.Entry> recovered = journal.takeRecovered();
+
+        assertEquals(2, recovered.size());
+        assertEquals(new IngestionJournal.Entry(first, IngestionJournal.WATER_LEVEL, waterLevels), recovered.get(0));
+        assertEquals(new IngestionJournal.Entry(second, IngestionJournal.MONTHLY_MEAN, monthlyMeans), recovered.get(1));
+        assertEquals(2, journal.unackedBatches());
+        assertTrue(journal.takeRecovered().isEmpty(), "recovered batches are handed out once");
+    }
+
+    @Test
+    void skipsAcknowledgedBatches() throws IOException {
+        journal = open(1 << 16);
+        long first = journal.appendWaterLevels(List.of(waterLevel(0, 1.0)));
+        long second = journal.appendWaterLevels(List.of(waterLevel(1, 2.0)));
+        long third = journal.appendWaterLevels(List.of(waterLevel(2, 3.0)));
+        journal.ack(first);
+        journal.ack(third);
+        reopen(1 << 16);
+
+        // The ack offset only moves past the lowest unacknowledged batch, so the third comes back too
+        assertEquals(List.of(second, third), offsets(journal.takeRecovered()));
+
+        journal.ack(second);
+        journal.ack(third);
+        reopen(1 << 16);
+
+        assertTrue(journal.takeRecovered().isEmpty());
+    }
+
+    @Test
+    void stopsAtATornRecordAndAppendsOverIt() throws IOException {
+        journal = open(1 << 16);
+        long first = journal.appendWaterLevels(List.of(waterLevel(0, 1.0)));
+        long second = journal.appendWaterLevels(List.of(waterLevel(1, 2.0)));
+        journal.appendWaterLevels(List.of(waterLevel(2, 3.0)));
+        journal.close();
+        flipByte(segments().get(0), second + HEADER_BYTES + 5);
+
+        journal = open(1 << 16);
+
+        assertEquals(List.of(first), offsets(journal.takeRecovered()));
+        long replacement = journal.appendWaterLevels(List.of(waterLevel(3, 4.0)));
+        assertEquals(second, replacement);
+        reopen(1 << 16);
+        assertEquals(List.of(first, second), offsets(journal.takeRecovered()));
+    }
+
+    @Test
+    void stopsAtATruncatedRecord() throws IOException {
+        journal = open(1 << 16);
+        long first = journal.appendWaterLevels(List.of(waterLevel(0, 1.0)));
+        long second = journal.appendWaterLevels(List.of(waterLevel(1, 2.0)));
+        journal.close();
+        // A length running past the end of the segment, as if the write stopped midway
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(second);
+            file.writeInt(1 << 20);
+        }
+
+        journal = open(1 << 16);
+
+        assertEquals(List.of(first), offsets(journal.takeRecovered()));
+    }
+
+    @Test
+    void retriesFailedBatchesOnce() throws IOException {
+        journal = open(1 << 16);
+        long stored = journal.appendWaterLevels(List.of(waterLevel(0, 1.0)));
+        long failed = journal.appendWaterLevels(List.of(waterLevel(1, 2.0)));
+        journal.ack(stored);
+
+        journal.fail(failed);
+
+        List<IngestionJournal.Entry> retried = journal.takeFailed();
+        assertEquals(List.of(failed), offsets(retried));
+        assertEquals(List.of(waterLevel(1, 2.0)), retried.get(0).rows());
+        assertTrue(journal.takeFailed().isEmpty(), "a retried batch is in flight until it fails again");
+
+        journal.ack(failed);
+        assertEquals(0, journal.unackedBatches());
+    }
+
+    @Test
+    void rotatesSegmentsAndDropsAcknowledgedOnes() throws IOException {
+        journal = open(1024);
+        long[] offsets = new long[30];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = journal.appendWaterLevels(List.of(waterLevel(i, 0.5 * i), waterLevel(i + 100, 0.5 * i)));
+        }
+        int rotated = segments().size();
+        assertTrue(rotated > 2, "expected several segments, got " + rotated);
+
+        for (int i = 0; i < offsets.length - 1; i++) {
+            journal.ack(offsets[i]);
+        }
+
+        // Everything below the last batch is done; only its segment is left
+        assertEquals(1, segments().size());
+        assertEquals(Long.toString(offsets[offsets.length - 1]), Files.readString(dir.resolve("ack")));
+        reopen(1024);
+        assertEquals(List.of(offsets[offsets.length - 1]), offsets(journal.takeRecovered()));
+
+        journal.ack(offsets[offsets.length - 1]);
+        long next = journal.appendWaterLevels(List.of(waterLevel(99, 0.0)));
+        assertTrue(next > offsets[offsets.length - 1]);
+    }
+
+    @Test
+    void keepsBatchesLargerThanASegment() throws IOException {
+        journal = open(1024);
+        List<WaterLevelData> rows = Stream.iterate(0, i -> i + 1).limit(200).map(i -> waterLevel(i, i * 0.001)).toList();
+
+        long offset = journal.appendWaterLevels(rows);
+        reopen(1024);
+
+        List<IngestionJournal.Entry> recovered = journal.takeRecovered();
+        assertEquals(List.of(offset), offsets(recovered));
+        assertEquals(rows, recovered.get(0).rows());
+    }
+
+    private IngestionJournal open(int segmentBytes) throws IOException {
+        IngestionJournal opened = new IngestionJournal();
+        ReflectionTestUtils.setField(opened, "enabled", true);
+        ReflectionTestUtils.setField(opened, "journalDir", dir.toString());
+        ReflectionTestUtils.setField(opened, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(opened, "fsync", false);
+        opened.open();
+        return opened;
+    }
+
+    private void reopen(int segmentBytes) throws IOException {
+        journal.close();
+        journal = open(segmentBytes);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    private static void flipByte(Path segment, long position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(position);
+            int b = file.read();
+            file.seek(position);
+            file.write(b ^ 0xFF);
+        }
+    }
+
+    private static List<Long> offsets(List<IngestionJournal.Entry> entries) {
+        return entries.stream().map(IngestionJournal.Entry::offset).toList();
+    }
+
+    private static WaterLevelData waterLevel(int index, Double level) {
+        return new WaterLevelData("8518750", "The Battery", LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(6L * index),
+            level, "MLLW", 40.7006, -74.0142, index % 2 == 0 ? "0,0,0,0" : null);
+    }
+
+    private static MonthlyMeanData monthlyMean(LocalDate month, double level) {
+        return MonthlyMeanData.builder()
+            .stationId("8518750")
+            .stationName("The Battery")
+            .month(month)
+            .meanSeaLevel(level)
+            .year(month.getYear())
+            .monthNumber(month.getMonthValue())
+            .latitude(40.7006)
+            .longitude(-74.0142)
+            .build();
+    }
+}
@@ -0,0 +1,174 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.MonthlyMeanData;
+import com.griddb.coastal.model.MonthlyMeanSeries;
+import com.griddb.coastal.model.SeaLevelTrend;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeaLevelTrendServiceTest {
+
+    private static final LocalDate FIRST = LocalDate.of(1950, 1, 1);
+
+    @Test
+    void matchesTheClosedFormFit() {
+        double[] levels = levels(900, 1950);
+        SeaLevelTrendService service = new SeaLevelTrendService();
+
+        service.accept(months(FIRST, levels));
+
+        assertMatches(reference(FIRST, levels), service.trend("8518750"));
+    }
+
+    @Test
+    void replacesACorrectedMonthsContribution() {
+        double[] levels = levels(240, 2000);
+        SeaLevelTrendService service = new SeaLevelTrendService();
+        service.accept(months(FIRST, levels));
+
+        // Corrections take the old values out of the sums before adding the new ones
+        double[] corrected = levels.clone();
+        corrected[0] += 0.5;
+        corrected[120] -= 0.25;
+        corrected[239] = 0.0;
+        service.accept(List.of(month(FIRST, corrected[0]), month(FIRST.plusMonths(120), corrected[120]),
+            month(FIRST.plusMonths(239), corrected[239])));
+        // and a month seen again unchanged counts once
+        service.accept(List.of(month(FIRST.plusMonths(7), levels[7])));
+
+        SeaLevelTrend trend = service.trend("8518750");
+        assertEquals(240, trend.getMonths());
+        assertMatches(reference(FIRST, corrected), trend);
+    }
+
+    @Test
+    void seedsFromStoredHistoryAndSkipsMissingMonths() {
+        double[] levels = levels(120, 2024);
+        double[] withGaps = levels.clone();
+        withGaps[10] = Double.NaN;
+        withGaps[11] = Double.NaN;
+        long[] t = new long[levels.length];
+        for (int i = 0; i < t.length; i++) t[i] = FIRST.plusMonths(i).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        SeaLevelTrendService service = new SeaLevelTrendService();
+
+        service.accept(MonthlyMeanSeries.builder()
+            .stationId("8518750")
+            .stationName("The Battery")
+            .size(t.length)
+            .months(t)
+            .meanSeaLevels(withGaps)
+            .build());
+
+        SeaLevelTrend trend = service.trend("8518750");
+        assertEquals(118, trend.getMonths());
+        assertEquals("The Battery", trend.getStationName());
+        assertEquals(FIRST, trend.getFirstMonth());
+        assertEquals(FIRST.plusMonths(119), trend.getLastMonth());
+
+        // Adding the two months afterwards gives the fit over all of them
+        service.accept(List.of(month(FIRST.plusMonths(10), levels[10]), month(FIRST.plusMonths(11), levels[11])));
+        assertMatches(reference(FIRST, levels), service.trend("8518750"));
+    }
+
+    @Test
+    void needsThreeMonths() {
+        SeaLevelTrendService service = new SeaLevelTrendService();
+        service.accept(List.of(month(FIRST, 0.1), month(FIRST.plusMonths(1), 0.2)));
+
+        assertNull(service.trend("8518750"));
+        assertNull(service.trend("unknown"));
+
+        service.accept(List.of(month(FIRST.plusMonths(2), 0.3)));
+        assertEquals(3, service.trend("8518750").getMonths());
+    }
+
+    @Test
+    void approximatesStudentsT() {
+        // Table values of the two-sided 95% quantile
+        assertEquals(3.182, SeaLevelTrendService.studentT95(3), 0.03);
+        assertEquals(2.228, SeaLevelTrendService.studentT95(10), 0.001);
+        assertEquals(2.042, SeaLevelTrendService.studentT95(30), 0.001);
+        assertEquals(1.984, SeaLevelTrendService.studentT95(100), 0.001);
+        assertEquals(1.962, SeaLevelTrendService.studentT95(1000), 0.001);
+    }
+
+    /**
+     * Two-pass least squares over centered x, against which the running sums are checked
+     */
+    private static SeaLevelTrend reference(LocalDate first, double[] levels) {
+        long epoch2000 = LocalDate.of(2000, 1, 1).toEpochDay();
+        int n = levels.length;
+        double[] x = new double[n];
+        double meanX = 0, meanY = 0;
+        for (int i = 0; i < n; i++) {
+            x[i] = (first.plusMonths(i).toEpochDay() - epoch2000) / 365.2425;
+            meanX += x[i] / n;
+            meanY += levels[i] / n;
+        }
+        double sxx = 0, sxy = 0, syy = 0;
+        for (int i = 0; i < n; i++) {
+            sxx += (x[i] - meanX) * (x[i] - meanX);
+            sxy += (x[i] - meanX) * (levels[i] - meanY);
+            syy += (levels[i] - meanY) * (levels[i] - meanY);
+        }
+        double slope = sxy / sxx;
+        double sse = 0;
+        for (int i = 0; i < n; i++) {
+            double residual = levels[i] - (meanY + slope * (x[i] - meanX));
+            sse += residual * residual;
+        }
+        double halfWidth = SeaLevelTrendService.studentT95(n - 2) * Math.sqrt(sse / (n - 2) / sxx);
+        return SeaLevelTrend.builder()
+            .months(n)
+            .slopeMmPerYear(slope * 1000)
+            .interceptMm((meanY - slope * meanX) * 1000)
+            .rSquared(1 - sse / syy)
+            .slopeLowMmPerYear((slope - halfWidth) * 1000)
+            .slopeHighMmPerYear((slope + halfWidth) * 1000)
+            .build();
+    }
+
+    private static void assertMatches(SeaLevelTrend expected, SeaLevelTrend actual) {
+        assertEquals(expected.getMonths(), actual.getMonths());
+        assertEquals(expected.getSlopeMmPerYear(), actual.getSlopeMmPerYear(), 1e-6);
+        assertEquals(expected.getInterceptMm(), actual.getInterceptMm(), 1e-6);
+        assertEquals(expected.getRSquared(), actual.getRSquared(), 1e-9);
+        assertEquals(expected.getSlopeLowMmPerYear(), actual.getSlopeLowMmPerYear(), 1e-6);
+        assertEquals(expected.getSlopeHighMmPerYear(), actual.getSlopeHighMmPerYear(), 1e-6);
+        assertEquals(0.95, actual.getConfidenceLevel());
+        assertTrue(actual.getSlopeLowMmPerYear() < actual.getSlopeMmPerYear());
+    }
+
+    /** About 3 mm/yr of rise plus an annual cycle and noise */
+    private static double[] levels(int months, long seed) {
+        Random random = new Random(seed);
+        double[] levels = new double[months];
+        for (int i = 0; i < months; i++) {
+            levels[i] = -0.15 + 0.003 * i / 12.0 + 0.08 * Math.sin(2 * Math.PI * i / 12.0) + random.nextGaussian() * 0.03;
+        }
+        return levels;
+    }
+
+    private static List<MonthlyMeanData> months(LocalDate first, double[] levels) {
+        List<MonthlyMeanData> months = new ArrayList<>();
+        for (int i = 0; i < levels.length; i++) months.add(month(first.plusMonths(i), levels[i]));
+        return months;
+    }
+
+    private static MonthlyMeanData month(LocalDate month, double level) {
+        return MonthlyMeanData.builder()
+            .stationId("8518750")
+            .month(month)
+            .meanSeaLevel(level)
+            .build();
+    }
+}
@@ -0,0 +1,201 @@
+package com.griddb.coastal.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SegmentFileTest {
+
+    private static final long STEP = 360_000L;
+
+    @TempDir
+    Path dir;
+
+    private SegmentFile file;
+
+    @AfterEach
+    void close() throws IOException {
+        if (file != null) file.close();
+    }
+
+    @Test
+    void appendsIntoThePartlyFilledLastBlock() throws IOException {
+        file = open(4);
+        write(range(0, 6), 1);
+
+        write(range(6, 8), 1);
+
+        SegmentFile.Rows rows = file.read(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertArrayEquals(range(0, 8), rows.timestamps());
+        assertArrayEquals(values(range(0, 8), 1), rows.columns()[0]);
+        // [0-3] kept and [4-5] rewritten as [4-7], rather than [6-7] added as a third block
+        assertEquals(List.of(0L, 4 * STEP), blockStarts());
+
+        write(range(8, 9), 1);
+        assertEquals(List.of(0L, 4 * STEP, 8 * STEP), blockStarts());
+    }
+
+    @Test
+    void rewritesTheBlocksAWriteOverlaps() throws IOException {
+        file = open(4);
+        write(range(0, 20), 1);
+
+        write(range(5, 12), -1);
+
+        SegmentFile.Rows rows = file.read(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertArrayEquals(range(0, 20), rows.timestamps());
+        for (int i = 0; i < 20; i++) {
+            double expected = (i >= 5 && i < 12 ? -1 : 1) * i;
+            assertEquals(expected, rows.columns()[0][i], "row " + i);
+        }
+    }
+
+    @Test
+    void fillsGapsBetweenBlocks() throws IOException {
+        file = open(4);
+        write(new long[] {0, STEP, 10 * STEP, 11 * STEP}, 1);
+        write(new long[] {20 * STEP, 21 * STEP}, 1);
+
+        write(new long[] {5 * STEP, 15 * STEP}, 1);
+
+        assertArrayEquals(new long[] {0, STEP, 5 * STEP, 10 * STEP, 11 * STEP, 15 * STEP, 20 * STEP, 21 * STEP},
+            file.read(Long.MIN_VALUE, Long.MAX_VALUE).timestamps());
+    }
+
+    @Test
+    void upsertsDuplicateTimestamps() throws IOException {
+        file = open(4);
+        write(range(0, 10), 1);
+
+        file.write(2, new long[] {3 * STEP, 9 * STEP}, new double[][] {{-3, -9}}, new String[] {"x", "y"}, Map.of());
+
+        SegmentFile.Rows rows = file.read(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(10, rows.size());
+        assertEquals(-3, rows.columns()[0][3]);
+        assertEquals(-9, rows.columns()[0][9]);
+        assertEquals("x", rows.labels()[3]);
+        assertEquals("y", rows.labels()[9]);
+        assertEquals("flag", rows.labels()[4]);
+    }
+
+    @Test
+    void readsAHalfOpenRange() throws IOException {
+        file = open(4);
+        write(range(0, 20), 1);
+
+        SegmentFile.Rows rows = file.read(3 * STEP, 9 * STEP);
+
+        // Arrays may be longer than the rows read
+        assertEquals(6, rows.size());
+        assertArrayEquals(range(3, 9), Arrays.copyOf(rows.timestamps(), rows.size()));
+    }
+
+    @Test
+    void reopensWithAttributesAndLabels() throws IOException {
+        file = open(4);
+        write(range(0, 10), 1);
+        file.write(1, new long[] {10 * STEP}, new double[][] {{10}}, new String[] {null}, Map.of("stationName", "The Battery"));
+        file.close();
+
+        file = open(4);
+
+        SegmentFile.Rows rows = file.read(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertArrayEquals(range(0, 11), rows.timestamps());
+        assertEquals("flag", rows.labels()[0]);
+        assertEquals("", rows.labels()[10]);
+        assertEquals("The Battery", file.attributes().get("stationName"));
+    }
+
+    @Test
+    void rejectsMoreThanMaxLabels() throws IOException {
+        file = open(1024);
+        int size = GorillaCodec.MAX_LABELS;
+        String[] labels = new String[size];
+        for (int i = 0; i < size; i++) labels[i] = "flag-" + i;
+        file.write(size, range(0, size), new double[][] {new double[size]}, labels, Map.of());
+
+        assertArrayEquals(labels, file.read(Long.MIN_VALUE, Long.MAX_VALUE).labels());
+        assertThrows(IllegalStateException.class, () -> file.write(1, new long[] {size * STEP},
+            new double[][] {{0}}, new String[] {"one too many"}, Map.of()));
+    }
+
+    @Test
+    void compactsAndReopensFromTheIndex() throws IOException {
+        file = open(256);
+        int size = 20_000;
+        long[] t = range(0, size);
+        Random random = new Random(7);
+        double[] last = null;
+        // Random values barely compress, so each full rewrite leaves ~160 KB of dead blocks
+        for (int round = 0; round < 12; round++) {
+            last = random.doubles(size).toArray();
+            file.write(size, t, new double[][] {last}, labels(size), Map.of("round", String.valueOf(round)));
+        }
+        assertFalse(Files.exists(dir.resolve("series.0.seg")), "the first generation is dropped");
+        assertEquals(1, segments().size());
+        file.close();
+
+        file = open(256);
+
+        SegmentFile.Rows rows = file.read(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertArrayEquals(t, rows.timestamps());
+        assertArrayEquals(last, rows.columns()[0]);
+        assertEquals("11", file.attributes().get("round"));
+
+        write(range(size, size + 10), 1);
+        assertEquals(size + 10, file.read(Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+
+    private SegmentFile open(int blockPoints) throws IOException {
+        return SegmentFile.open(dir, "series", 1, true, blockPoints, false);
+    }
+
+    /**
+     * Writes one row per timestamp with value {@code sign * index} and label "flag"
+     */
+    private void write(long[] t, int sign) throws IOException {
+        file.write(t.length, t, new double[][] {values(t, sign)}, labels(t.length), Map.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> blockStarts() {
+        return List.copyOf(((Map<Long, ?>) ReflectionTestUtils.getField(file, "blocks")).keySet());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).toList();
+        }
+    }
+
+    private static long[] range(int from, int to) {
+        long[] t = new long[to - from];
+        for (int i = 0; i < t.length; i++) t[i] = (from + i) * STEP;
+        return t;
+    }
+
+    private static double[] values(long[] t, int sign) {
+        return Arrays.stream(t).mapToDouble(timestamp -> sign * (double) (timestamp / STEP)).toArray();
+    }
+
+    private static String[] labels(int size) {
+        String[] labels = new String[size];
+        Arrays.fill(labels, "flag");
+        return labels;
+    }
+}
@@ -0,0 +1,75 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.StationMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StationRegistryTest {
+
+    private static final String CONFIGURED = "8518750, The Battery, NY, 40.7006, -74.0142, true";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsTheActiveFlagAcrossARestart() {
+        StationRegistry registry = registry("configured");
+        ReflectionTestUtils.invokeMethod(registry, "save", List.of(
+            station("9414290", "San Francisco", "CA", true),
+            station("8447930", "Woods Hole", "MA", false)));
+
+        StationRegistry restarted = registry("configured");
+
+        assertTrue(restarted.get("9414290").getIsActive());
+        assertFalse(restarted.get("8447930").getIsActive());
+    }
+
+    @Test
+    void monitorsOnlyActiveStationsWhenMonitoringAll() throws Exception {
+        Files.writeString(dir.resolve("stations.json"), """
+            {"count": 3, "stations": [
+              {"id": "9414290", "name": "San Francisco", "state": "CA", "lat": 37.8, "lng": -122.5},
+              {"id": "8447930", "name": "Woods Hole", "state": "MA", "lat": 41.5, "lng": -70.7, "isActive": false},
+              {"id": "8518750", "name": "The Battery", "state": "NY", "lat": 40.7, "lng": -74.0, "isActive": false}
+            ]}""");
+
+        StationRegistry registry = registry("all");
+
+        // A configured station is monitored even when NOAA flags it inactive
+        assertEquals(List.of("8518750", "9414290"),
+            registry.monitoredStations().stream().map(StationMetadata::getStationId).toList());
+        assertEquals(List.of("8518750", "9414290"),
+            registry.snapshot().active().stream().map(StationMetadata::getStationId).toList());
+        assertFalse(registry.get("8447930").getIsActive(), "inactive stations are still known");
+    }
+
+    private StationRegistry registry(String monitor) {
+        StationRegistry registry = new StationRegistry();
+        ReflectionTestUtils.setField(registry, "stationsConfig", CONFIGURED);
+        ReflectionTestUtils.setField(registry, "monitor", monitor);
+        ReflectionTestUtils.setField(registry, "refreshHours", 0L);
+        ReflectionTestUtils.setField(registry, "snapshotFile", dir.resolve("stations.json").toString());
+        registry.init();
+        return registry;
+    }
+
+    private static StationMetadata station(String id, String name, String state, boolean active) {
+        return StationMetadata.builder()
+            .stationId(id)
+            .stationName(name)
+            .state(state)
+            .latitude(40.0)
+            .longitude(-70.0)
+            .isActive(active)
+            .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.SurgeAlert;
+import com.griddb.coastal.model.WaterLevelData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SurgeDetectorTest {
+
+    private static final String STATION = "8518750";
+
+    private final List<Object> events = new ArrayList<>();
+
+    private SurgeDetector detector;
+
+    private LocalDateTime clock = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        detector = new SurgeDetector();
+        ReflectionTestUtils.setField(detector, "eventPublisher", (ApplicationEventPublisher) events::add);
+        ReflectionTestUtils.setField(detector, "enabled", true);
+        // One phase bin, so every reading is compared with the same mean and deviation
+        ReflectionTestUtils.setField(detector, "phaseBins", 1);
+        ReflectionTestUtils.setField(detector, "sigma", 3.0);
+        ReflectionTestUtils.setField(detector, "minResidual", 0.3);
+        ReflectionTestUtils.setField(detector, "minSamples", 20);
+        ReflectionTestUtils.setField(detector, "confirmReadings", 3);
+        // A long window, so the few readings under test barely move the statistics
+        ReflectionTestUtils.setField(detector, "window", 1000);
+        ReflectionTestUtils.setField(detector, "historySize", 500);
+
+        // Mean 1.0 m, standard deviation 0.1 m
+        List<WaterLevelData> baseline = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) baseline.add(reading(i % 2 == 0 ? 0.9 : 1.1));
+        detector.train(baseline);
+    }
+
+    @Test
+    void raisesAfterTheConfirmationStreak() {
+        detector.accept(readings(1.6, 1.6));
+        assertTrue(events.isEmpty(), "two readings do not confirm");
+
+        detector.accept(readings(1.6));
+
+        assertEquals(1, events.size());
+        SurgeAlert alert = (SurgeAlert) events.get(0);
+        assertEquals("RAISED", alert.getState());
+        assertEquals("HIGH", alert.getDirection());
+        assertEquals(STATION, alert.getStationId());
+        assertEquals(1.6, alert.getWaterLevel());
+        assertEquals(0.6, alert.getResidual(), 0.01);
+        assertTrue(alert.getSigmas() > 5, "sigmas " + alert.getSigmas());
+        assertEquals(List.of(STATION), detector.activeStations());
+        assertEquals(List.of(alert), detector.recentAlerts(List.of(STATION), 10));
+    }
+
+    @Test
+    void aBrokenStreakStartsOver() {
+        detector.accept(readings(1.6, 1.6, 1.0, 1.6, 1.6));
+        assertTrue(events.isEmpty());
+
+        detector.accept(readings(1.6));
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void raisesOnDrawdowns() {
+        // 0.25 m is under both thresholds
+        detector.accept(readings(1.25, 1.25, 1.25, 1.25));
+        detector.accept(readings(0.6, 0.6, 0.6));
+
+        assertEquals(1, events.size());
+        SurgeAlert alert = (SurgeAlert) events.get(0);
+        assertEquals("RAISED", alert.getState());
+        assertEquals("LOW", alert.getDirection());
+    }
+
+    @Test
+    void clearsOnlyWithinHalfTheThresholds() {
+        detector.accept(readings(1.6, 1.6, 1.6));
+        assertEquals(1, events.size());
+
+        // Below the raising thresholds but above half of both: still surging
+        detector.accept(readings(1.2, 1.2, 1.2, 1.2, 1.2, 1.2));
+        assertEquals(1, events.size());
+        assertEquals(List.of(STATION), detector.activeStations());
+
+        // Within half the minimum residual, but only two readings so far
+        detector.accept(readings(1.1, 1.1));
+        assertEquals(1, events.size());
+
+        detector.accept(readings(1.1));
+
+        assertEquals(2, events.size());
+        SurgeAlert cleared = (SurgeAlert) events.get(1);
+        assertEquals("CLEARED", cleared.getState());
+        assertTrue(detector.activeStations().isEmpty());
+        assertEquals(List.of(cleared, events.get(0)), detector.recentAlerts(null, 10));
+    }
+
+    @Test
+    void doesNotAlertWhileTraining() {
+        detector.train(readings(1.6, 1.6, 1.6, 1.6));
+
+        assertTrue(events.isEmpty());
+        assertTrue(detector.activeStations().isEmpty());
+    }
+
+    @Test
+    void waitsForEnoughSamples() {
+        List<WaterLevelData> other = new ArrayList<>();
+        for (int i = 0; i < 19; i++) other.add(reading("9414290", i % 2 == 0 ? 0.9 : 1.1));
+        for (int i = 0; i < 3; i++) other.add(reading("9414290", 3.0));
+
+        detector.accept(other);
+
+        // The first high reading meets 19 samples and is not checked, so the streak stops at two
+        assertTrue(events.isEmpty());
+    }
+
+    private List<WaterLevelData> readings(double... levels) {
+        List<WaterLevelData> readings = new ArrayList<>();
+        for (double level : levels) readings.add(reading(level));
+        return readings;
+    }
+
+    private WaterLevelData reading(double level) {
+        return reading(STATION, level);
+    }
+
+    private WaterLevelData reading(String stationId, double level) {
+        clock = clock.plusMinutes(6);
+        return WaterLevelData.builder()
+            .stationId(stationId)
+            .stationName("Station " + stationId)
+            .timestamp(clock)
+            .waterLevel(level)
+            .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.griddb.coastal.service;
+
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.model.WaterLevelRollupSeries;
+import com.griddb.coastal.model.WaterLevelSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WaterLevelRollupServiceTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final long HOUR = RollupResolution.HOURLY.bucketMillis();
+
+    private final StubStorage storage = new StubStorage();
+
+    private WaterLevelRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new WaterLevelRollupService();
+        ReflectionTestUtils.setField(service, "storageService", storage);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxQueryRows", 20_000);
+        ReflectionTestUtils.setField(service, "concurrency", 2);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void storingDoesNotWaitForTheRollups() throws Exception {
+        // The rollup read is held until tearDown
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+            () -> service.onWaterLevelsStored(stored(row("8518750", NOON))));
+
+        assertEquals(millis(NOON) + "-" + (millis(NOON) + HOUR), storage.reads.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void coalescesHoursStoredWhileAStationIsUpdating() throws Exception {
+        service.onWaterLevelsStored(stored(row("8518750", NOON)));
+        assertEquals(millis(NOON) + "-" + (millis(NOON) + HOUR), storage.reads.poll(5, TimeUnit.SECONDS));
+
+        // Three batches land while the first pass is held; their hours form one run
+        service.onWaterLevelsStored(stored(row("8518750", NOON.plusHours(2))));
+        service.onWaterLevelsStored(stored(row("8518750", NOON.plusHours(1)), row("8518750", NOON.plusMinutes(90))));
+        service.onWaterLevelsStored(stored(row("8518750", NOON.plusHours(1))));
+        storage.release.countDown();
+
+        assertEquals((millis(NOON) + HOUR) + "-" + (millis(NOON) + 3 * HOUR), storage.reads.poll(5, TimeUnit.SECONDS));
+        assertTrue(storage.dailyReads.await(5, TimeUnit.SECONDS));
+        assertNull(storage.reads.poll(200, TimeUnit.MILLISECONDS), "no further passes");
+    }
+
+    @Test
+    void updatesStationsIndependently() throws Exception {
+        service.onWaterLevelsStored(stored(row("8518750", NOON)));
+        storage.reads.poll(5, TimeUnit.SECONDS);
+
+        // The first station is held on the first thread; the second runs on the other
+        service.onWaterLevelsStored(stored(row("9414290", NOON.plusHours(5))));
+
+        assertEquals((millis(NOON) + 5 * HOUR) + "-" + (millis(NOON) + 6 * HOUR), storage.reads.poll(5, TimeUnit.SECONDS));
+    }
+
+    private static WaterLevelsStoredEvent stored(WaterLevelData... rows) {
+        return new WaterLevelsStoredEvent(List.of(rows));
+    }
+
+    private static WaterLevelData row(String stationId, LocalDateTime timestamp) {
+        return WaterLevelData.builder()
+            .stationId(stationId)
+            .timestamp(timestamp)
+            .waterLevel(1.25)
+            .build();
+    }
+
+    private static long millis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static final class StubStorage extends StorageService {
+        final BlockingQueue<String> reads = new LinkedBlockingQueue<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch dailyReads = new CountDownLatch(2);
+
+        @Override
+        public WaterLevelSeries loadWaterLevelRange(String stationId, long fromMillis, long toMillis) throws Exception {
+            reads.add(fromMillis + "-" + toMillis);
+            // Holds the first station only, so the others show the threads are independent
+            if (stationId.equals("8518750")) release.await();
+            return WaterLevelSeries.builder()
+                .stationId(stationId)
+                .size(0)
+                .timestamps(new long[0])
+                .waterLevels(new double[0])
+                .flags(new String[0])
+                .build();
+        }
+
+        @Override
+        public WaterLevelRollupSeries queryRollups(String stationId, RollupResolution resolution,
+                                                   long fromMillis, long toMillis) {
+            dailyReads.countDown();
+            return WaterLevelRollupSeries.builder()
+                .stationId(stationId)
+                .size(0)
+                .buckets(new long[0])
+                .minLevels(new double[0])
+                .maxLevels(new double[0])
+                .meanLevels(new double[0])
+                .counts(new int[0])
+                .build();
+        }
+
+        @Override
+        public void storeRollups(RollupResolution resolution, WaterLevelRollupSeries rollups) {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.griddb.coastal.bench;
+
+import com.griddb.coastal.service.DashboardSnapshotService;
+import com.griddb.coastal.service.GridDBBatchWriter;
+import com.griddb.coastal.service.GridDBSchemaRegistry;
+import com.griddb.coastal.service.GridDBService;
+import com.griddb.coastal.service.HotWindowCache;
+import com.griddb.coastal.service.HttpTransport;
+import com.griddb.coastal.service.NOAADataService;
+import com.griddb.coastal.service.SeaLevelTrendService;
+import com.griddb.coastal.service.StationRegistry;
+import com.griddb.coastal.service.StorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The slice of the app the benchmarks exercise, wired by Spring as in production
+ * but without the scheduler, web layer or network: the {@link HttpClient} is a
+ * {@link FixtureHttpClient}, and metrics go to a {@link SimpleMeterRegistry} as in
+ * the app without an exporter. Settings come from the app's application.properties,
+ * with the hosts pointed at the fixtures, rate limiting, the hot window and the
+ * station list download off, plus any overrides.
+ */
+public final class BenchContext {
+
+    public static final String GRIDDB_URL = "http://griddb.fixture/griddb/v2/bench/dbs/bench";
+    public static final String NOAA_URL = "http://noaa.fixture/api/datagetter";
+
+    private BenchContext() {
+    }
+
+    public static AnnotationConfigApplicationContext start(FixtureHttpClient client, Map<String, Object> overrides)
+            throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("griddb.rest.url", GRIDDB_URL);
+        properties.put("griddb.api.key", "bench");
+        properties.put("noaa.api.base.url", NOAA_URL);
+        properties.put("http.client.rate.limits", "");
+        properties.put("cache.hot.window.enabled", "false");
+        properties.put("stations.registry.refresh.hours", "0");
+        properties.put("stations.registry.snapshot.file", "");
+        properties.putAll(overrides);
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("bench", properties));
+        context.getEnvironment().getPropertySources().addLast(new ResourcePropertySource("classpath:application.properties"));
+        context.registerBean(HttpClient.class, () -> client);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(HttpTransport.class, StationRegistry.class, NOAADataService.class,
+            GridDBSchemaRegistry.class, GridDBBatchWriter.class, GridDBService.class, HotWindowCache.class,
+            SeaLevelTrendService.class, StorageService.class, DashboardSnapshotService.class);
+        context.refresh();
+        return context;
+    }
+}
@@ -0,0 +1,68 @@
+package com.griddb.coastal.bench;
+
+import com.griddb.coastal.service.DashboardSnapshotService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the {@code /api/dashboard-data} payload: for every configured station the
+ * last hour of readings and two years of monthly means are queried and decoded, then
+ * written into one JSON document with its ETag. The hot window is off, so every
+ * query goes to the (fixture) engine, as on a cold start.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DashboardBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int stations;
+
+    private AnnotationConfigApplicationContext context;
+    private DashboardSnapshotService dashboardSnapshotService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        long now = System.currentTimeMillis();
+        String stationId = Fixtures.stationId(0);
+        FixtureHttpClient client = new FixtureHttpClient()
+            .route("coastal_water_level/rows", Fixtures.gridDBWaterLevelRows(stationId, 10, now))
+            .route("coastal_monthly_mean/rows", Fixtures.gridDBMonthlyMeanRows(stationId, 24, now));
+        context = BenchContext.start(client, Map.of("noaa.stations", Fixtures.stationsConfig(stations)));
+        dashboardSnapshotService = context.getBean(DashboardSnapshotService.class);
+
+        String body = new String(getDashboardData().body(), StandardCharsets.UTF_8);
+        if (!body.contains("\"degradedStations\":0")) {
+            throw new IllegalStateException("Dashboard payload has degraded stations");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DashboardSnapshotService.Snapshot getDashboardData() throws Exception {
+        return dashboardSnapshotService.rebuild();
+    }
+}
@@ -0,0 +1,154 @@
+package com.griddb.coastal.bench;
+
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.service.GridDBRowCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic but realistically shaped data: 6-minute readings of a mixed semidiurnal
+ * tide plus noise, rounded to the millimetre like NOAA's, in the wire formats of the
+ * NOAA datagetter and the GridDB WebAPI.
+ */
+public final class Fixtures {
+
+    public static final long READING_MILLIS = 360_000L;
+    public static final int READINGS_PER_DAY = 240;
+
+    private static final DateTimeFormatter NOAA_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private Fixtures() {
+    }
+
+    public static String stationId(int index) {
+        return String.valueOf(8_500_000 + index);
+    }
+
+    /**
+     * A {@code noaa.stations} value with {@code count} stations
+     */
+    public static String stationsConfig(int count) {
+        StringBuilder config = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) config.append(';');
+            config.append(stationId(i)).append(", Station ").append(i).append(", NY,")
+                .append(40 + i % 10 * 0.1).append(',').append(-74 - i % 10 * 0.1).append(",true");
+        }
+        return config.toString();
+    }
+
+    /**
+     * The start of the 6-minute reading slot containing {@code epochMillis}
+     */
+    public static long slot(long epochMillis) {
+        return Math.floorDiv(epochMillis, READING_MILLIS) * READING_MILLIS;
+    }
+
+    public static double level(long epochMillis, Random noise) {
+        double hours = epochMillis / 3_600_000.0;
+        double tide = 1.1 * Math.sin(2 * Math.PI * hours / 12.42) + 0.25 * Math.sin(2 * Math.PI * hours / 12.0)
+            + 0.15 * Math.sin(2 * Math.PI * hours / 25.82);
+        return Math.round((tide + 0.02 * noise.nextGaussian()) * 1000) / 1000.0;
+    }
+
+    /**
+     * A NOAA water_level response with {@code readings} readings ending at {@code endMillis}
+     */
+    public static byte[] noaaWaterLevels(String stationId, int readings, long endMillis) {
+        Random noise = new Random(readings);
+        StringBuilder json = new StringBuilder(readings * 64 + 128);
+        json.append("{\"metadata\":{\"id\":\"").append(stationId)
+            .append("\",\"name\":\"Station\",\"lat\":\"40.7012\",\"lon\":\"-74.0137\"},\"data\":[");
+        long start = slot(endMillis) - (readings - 1) * READING_MILLIS;
+        for (int i = 0; i < readings; i++) {
+            long t = start + i * READING_MILLIS;
+            if (i > 0) json.append(',');
+            json.append("{\"t\":\"")
+                .append(LocalDateTime.ofEpochSecond(t / 1000, 0, ZoneOffset.UTC).format(NOAA_TIME_FORMAT))
+                .append("\",\"v\":\"").append(String.format(Locale.ROOT, "%.3f", level(t, noise)))
+                .append("\",\"s\":\"0.003\",\"f\":\"").append(i % 97 == 0 ? "0,0,1,0" : "0,0,0,0")
+                .append("\",\"q\":\"p\"}");
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A GridDB row acquisition response for a water level container: {@code rows} readings,
+     * newest first, ending at {@code endMillis}
+     */
+    public static byte[] gridDBWaterLevelRows(String stationId, int rows, long endMillis) {
+        Random noise = new Random(rows);
+        char[] timestamp = new char[24];
+        StringBuilder json = new StringBuilder(rows * 110 + 512);
+        json.append("{\"columns\":[")
+            .append("{\"name\":\"timestamp\",\"type\":\"TIMESTAMP\"},{\"name\":\"station_id\",\"type\":\"STRING\"},")
+            .append("{\"name\":\"station_name\",\"type\":\"STRING\"},{\"name\":\"water_level\",\"type\":\"DOUBLE\"},")
+            .append("{\"name\":\"datum\",\"type\":\"STRING\"},{\"name\":\"latitude\",\"type\":\"DOUBLE\"},")
+            .append("{\"name\":\"longitude\",\"type\":\"DOUBLE\"},{\"name\":\"flags\",\"type\":\"STRING\"}],\"rows\":[");
+        long newest = slot(endMillis);
+        for (int i = 0; i < rows; i++) {
+            long t = newest - i * READING_MILLIS;
+            if (i > 0) json.append(',');
+            json.append("[\"").append(timestamp, 0, GridDBRowCodec.formatTimestamp(t, timestamp))
+                .append("\",\"").append(stationId).append("\",\"Station\",").append(level(t, noise))
+                .append(",\"MLLW\",40.7012,-74.0137,\"").append(i % 97 == 0 ? "0,0,1,0" : "0,0,0,0").append("\"]");
+        }
+        json.append("],\"offset\":0,\"limit\":").append(rows).append(",\"total\":").append(rows).append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A GridDB row acquisition response for a monthly mean container: {@code months}
+     * means, newest first, up to the month containing {@code endMillis}
+     */
+    public static byte[] gridDBMonthlyMeanRows(String stationId, int months, long endMillis) {
+        char[] timestamp = new char[24];
+        LocalDateTime month = LocalDateTime.ofEpochSecond(endMillis / 1000, 0, ZoneOffset.UTC)
+            .withDayOfMonth(1).toLocalDate().atStartOfDay();
+        StringBuilder json = new StringBuilder(months * 100 + 512);
+        json.append("{\"columns\":[")
+            .append("{\"name\":\"month\",\"type\":\"TIMESTAMP\"},{\"name\":\"station_id\",\"type\":\"STRING\"},")
+            .append("{\"name\":\"station_name\",\"type\":\"STRING\"},{\"name\":\"mean_sea_level\",\"type\":\"DOUBLE\"},")
+            .append("{\"name\":\"year\",\"type\":\"INTEGER\"},{\"name\":\"month_number\",\"type\":\"INTEGER\"},")
+            .append("{\"name\":\"latitude\",\"type\":\"DOUBLE\"},{\"name\":\"longitude\",\"type\":\"DOUBLE\"}],\"rows\":[");
+        for (int i = 0; i < months; i++) {
+            LocalDateTime m = month.minusMonths(i);
+            if (i > 0) json.append(',');
+            json.append("[\"").append(timestamp, 0, GridDBRowCodec.formatTimestamp(m.toInstant(ZoneOffset.UTC).toEpochMilli(), timestamp))
+                .append("\",\"").append(stationId).append("\",\"Station\",")
+                .append(Math.round((0.1 + 0.003 * (months - i) / 12.0 + 0.05 * Math.sin(m.getMonthValue())) * 1000) / 1000.0)
+                .append(',').append(m.getYear()).append(',').append(m.getMonthValue()).append(",40.7012,-74.0137]");
+        }
+        json.append("],\"offset\":0,\"limit\":").append(months).append(",\"total\":").append(months).append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@code days} of readings for each of {@code stations} stations, ending at {@code endMillis}
+     */
+    public static List<WaterLevelData> waterLevels(int stations, int days, long endMillis) {
+        int readings = days * READINGS_PER_DAY;
+        long start = slot(endMillis) - (readings - 1) * READING_MILLIS;
+        List<WaterLevelData> rows = new ArrayList<>(stations * readings);
+        for (int s = 0; s < stations; s++) {
+            Random noise = new Random(s);
+            String stationId = stationId(s);
+            String stationName = "Station " + s;
+            for (int i = 0; i < readings; i++) {
+                long t = start + i * READING_MILLIS;
+                rows.add(new WaterLevelData(stationId, stationName,
+                    LocalDateTime.ofEpochSecond(t / 1000, 0, ZoneOffset.UTC), level(t, noise), "MLLW",
+                    40.7012, -74.0137, i % 97 == 0 ? "0,0,1,0" : "0,0,0,0"));
+            }
+        }
+        return rows;
+    }
+}
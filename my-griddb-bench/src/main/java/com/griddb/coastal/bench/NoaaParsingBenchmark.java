@@ -0,0 +1,75 @@
+package com.griddb.coastal.bench;
+
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.service.NOAADataService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code NOAADataService.requestWaterLevels}: reading and parsing a NOAA water_level
+ * response of 1 day, 30 days or 5 years of 6-minute readings into rows.
+ * NOAA serves at most 31 days per request; the 5-year case is the parse cost of a
+ * backfill's worth of responses in one go.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NoaaParsingBenchmark {
+
+    @Param({"1", "30", "1826"})
+    public int days;
+
+    private AnnotationConfigApplicationContext context;
+    private NOAADataService noaaDataService;
+    private String stationId;
+    private LocalDateTime begin;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stationId = Fixtures.stationId(0);
+        int readings = days * Fixtures.READINGS_PER_DAY;
+        FixtureHttpClient client = new FixtureHttpClient()
+            .route("product=water_level", Fixtures.noaaWaterLevels(stationId, readings, System.currentTimeMillis()));
+        context = BenchContext.start(client, Map.of("noaa.stations", Fixtures.stationsConfig(1)));
+        noaaDataService = context.getBean(NOAADataService.class);
+        end = LocalDateTime.now(ZoneOffset.UTC);
+        begin = end.minusDays(days);
+
+        int parsed = requestWaterLevels().size();
+        if (parsed != readings) {
+            throw new IllegalStateException("Parsed " + parsed + " of " + readings + " readings");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<WaterLevelData> requestWaterLevels() throws Exception {
+        return noaaDataService.requestWaterLevels(stationId, begin, end);
+    }
+}
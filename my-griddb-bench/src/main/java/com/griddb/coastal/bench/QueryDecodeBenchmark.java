@@ -0,0 +1,71 @@
+package com.griddb.coastal.bench;
+
+import com.griddb.coastal.model.WaterLevelSeries;
+import com.griddb.coastal.service.StorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a station's recent readings back from GridDB (what used to be
+ * {@code queryLatestWaterLevels}): the row query is built, the response streamed
+ * through the row decoder into a {@link WaterLevelSeries} and put in time order.
+ * The fixture returns what GridDB would for the window, up to
+ * {@code griddb.query.max.rows}, so the 5-year case is capped like in production.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryDecodeBenchmark {
+
+    private static final int MAX_QUERY_ROWS = 20_000;
+
+    @Param({"1", "30", "1826"})
+    public int days;
+
+    private AnnotationConfigApplicationContext context;
+    private StorageService storageService;
+    private String stationId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stationId = Fixtures.stationId(0);
+        int rows = Math.min(MAX_QUERY_ROWS, days * Fixtures.READINGS_PER_DAY);
+        FixtureHttpClient client = new FixtureHttpClient()
+            .route("/rows", Fixtures.gridDBWaterLevelRows(stationId, rows, System.currentTimeMillis()));
+        context = BenchContext.start(client, Map.of("griddb.query.max.rows", String.valueOf(MAX_QUERY_ROWS)));
+        storageService = context.getBean(StorageService.class);
+
+        int decoded = loadWaterLevelSeries().getSize();
+        if (decoded != rows) {
+            throw new IllegalStateException("Decoded " + decoded + " of " + rows + " rows");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public WaterLevelSeries loadWaterLevelSeries() throws Exception {
+        return storageService.loadWaterLevelSeries(stationId, days * 24);
+    }
+}
@@ -0,0 +1,71 @@
+package com.griddb.coastal.bench;
+
+import com.griddb.coastal.model.WaterLevelData;
+import com.griddb.coastal.service.GridDBService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GridDBService.storeWaterLevelData}: grouping readings by container and
+ * serializing them into batched PUT bodies. The fixture client accepts every chunk
+ * without sending it, so this is the encoding and batching cost alone.
+ *
+ * {@code fixture} is stations/days: one station over 1 day, 30 days and 5 years, and
+ * a day of 50 and 500 stations as one ingestion cycle would store.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class StoreSerializationBenchmark {
+
+    @Param({"1/1", "1/30", "1/1826", "50/1", "500/1"})
+    public String fixture;
+
+    @Param({"shared", "per-station"})
+    public String layout;
+
+    private AnnotationConfigApplicationContext context;
+    private GridDBService gridDBService;
+    private List<WaterLevelData> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String[] parts = fixture.split("/");
+        rows = Fixtures.waterLevels(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), System.currentTimeMillis());
+        context = BenchContext.start(new FixtureHttpClient(), Map.of("griddb.storage.layout", layout));
+        gridDBService = context.getBean(GridDBService.class);
+
+        if (!storeWaterLevelData()) {
+            throw new IllegalStateException("Store failed");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean storeWaterLevelData() {
+        return gridDBService.storeWaterLevelData(rows);
+    }
+}
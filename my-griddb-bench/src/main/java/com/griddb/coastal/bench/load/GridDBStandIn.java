@@ -0,0 +1,246 @@
+package com.griddb.coastal.bench.load;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.griddb.coastal.bench.Fixtures;
+import com.griddb.coastal.service.GridDBRowCodec;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for the GridDB Cloud WebAPI: container creation, row PUTs, row queries and
+ * SQL. Written rows are parsed in full but not kept; each container remembers per
+ * station only the time range and number of rows written, and queries are answered
+ * with generated rows over that range. That keeps the stand-in's heap flat however
+ * many rows the app pushes, so heap figures are the app's own.
+ */
+final class GridDBStandIn extends StandInServer {
+
+    private static final Pattern STATION_CONDITION = Pattern.compile("station_id = '([^']*)'");
+    private static final Pattern LOWER_BOUND = Pattern.compile(">= TIMESTAMP\\('([^']+)'\\)");
+    private static final Pattern UPPER_BOUND = Pattern.compile("< TIMESTAMP\\('([^']+)'\\)");
+    private static final byte[] EMPTY_SQL_RESULT =
+        "[{\"columns\":[{\"name\":\"timestamp\",\"type\":\"TIMESTAMP\"}],\"results\":[]}]".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Container> containers = new ConcurrentHashMap<>();
+
+    final AtomicLong waterLevelRows = new AtomicLong();
+    final AtomicLong otherRows = new AtomicLong();
+    final AtomicLong rowQueries = new AtomicLong();
+    volatile long lastWaterLevelWriteNanos;
+
+    private static final class Range {
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        long rows;
+    }
+
+    private static final class Container {
+        final List<String> names = new ArrayList<>();
+        final List<String> types = new ArrayList<>();
+        final Map<String, Range> stations = new ConcurrentHashMap<>();
+        final long cadenceMillis;
+        final boolean waterLevels;
+        int timeColumn = -1;
+        int stationColumn = -1;
+
+        Container(String name, JsonNode schema) {
+            for (JsonNode column : schema.path("columns")) {
+                String columnName = column.path("name").asText();
+                String type = column.path("type").asText();
+                if (timeColumn < 0 && "TIMESTAMP".equals(type)) timeColumn = names.size();
+                if ("station_id".equals(columnName)) stationColumn = names.size();
+                names.add(columnName);
+                types.add(type);
+            }
+            waterLevels = names.contains("water_level");
+            cadenceMillis = name.contains("_daily_") ? 86_400_000L
+                : name.contains("_hourly_") ? 3_600_000L : Fixtures.READING_MILLIS;
+        }
+
+        boolean monthly() {
+            return names.contains("mean_sea_level");
+        }
+    }
+
+    GridDBStandIn(long latencyMs, double errorRate) throws IOException {
+        super("griddb-stand-in", latencyMs, errorRate);
+    }
+
+    String restUrl() {
+        return baseUrl() + "/griddb/v2/standin/dbs/standin";
+    }
+
+    @Override
+    void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.endsWith("/containers") && "POST".equals(method)) {
+            JsonNode schema = objectMapper.readTree(exchange.getRequestBody());
+            String name = schema.path("container_name").asText();
+            containers.computeIfAbsent(name, n -> new Container(n, schema));
+            respond(exchange, 201, new byte[0]);
+        } else if (path.endsWith("/rows")) {
+            String name = path.substring(path.lastIndexOf("/containers/") + 12, path.length() - 5);
+            Container container = containers.get(name);
+            if (container == null) {
+                exchange.getRequestBody().readAllBytes();
+                respond(exchange, 404, ("{\"errorMessage\":\"Container not found: " + name + "\"}").getBytes(StandardCharsets.UTF_8));
+            } else if ("PUT".equals(method)) {
+                long rows = putRows(container, exchange.getRequestBody());
+                respond(exchange, 200, ("{\"count\":" + rows + "}").getBytes(StandardCharsets.UTF_8));
+            } else {
+                rowQueries.incrementAndGet();
+                respond(exchange, 200, queryRows(container, objectMapper.readTree(exchange.getRequestBody())));
+            }
+        } else if (path.endsWith("/sql/dml/query")) {
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, 200, EMPTY_SQL_RESULT);
+        } else {
+            respond(exchange, 404, new byte[0]);
+        }
+    }
+
+    private long putRows(Container container, InputStream body) throws IOException {
+        long rows = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) throw new IOException("Expected an array of rows");
+            while (parser.nextToken() == JsonToken.START_ARRAY) {
+                long timestamp = Long.MIN_VALUE;
+                String station = "";
+                int column = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (column == container.timeColumn && parser.currentToken() == JsonToken.VALUE_STRING) {
+                        timestamp = GridDBRowCodec.parseTimestamp(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else if (column == container.stationColumn) {
+                        station = parser.getValueAsString("");
+                    } else {
+                        parser.skipChildren();
+                    }
+                    column++;
+                }
+                Range range = container.stations.computeIfAbsent(station, s -> new Range());
+                synchronized (range) {
+                    range.first = Math.min(range.first, timestamp);
+                    range.last = Math.max(range.last, timestamp);
+                    range.rows++;
+                }
+                rows++;
+            }
+        }
+        if (container.waterLevels) {
+            waterLevelRows.addAndGet(rows);
+            lastWaterLevelWriteNanos = System.nanoTime();
+        } else {
+            otherRows.addAndGet(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Generated rows over the written range of the station, filtered by the condition's
+     * time bounds, in the requested order and up to the limit
+     */
+    private byte[] queryRows(Container container, JsonNode query) {
+        String condition = query.path("condition").asText("");
+        int limit = query.path("limit").asInt(1000);
+        boolean descending = query.path("sort").asText("").endsWith("desc");
+
+        Matcher stationMatch = STATION_CONDITION.matcher(condition);
+        String station = stationMatch.find() ? stationMatch.group(1)
+            : container.stations.keySet().stream().findFirst().orElse("");
+        Range range = container.stations.get(station);
+
+        List<Long> times = new ArrayList<>();
+        if (range != null && container.timeColumn >= 0) {
+            long from = range.first;
+            long to = range.last;
+            Matcher lower = LOWER_BOUND.matcher(condition);
+            if (lower.find()) from = Math.max(from, parseTimestamp(lower.group(1)));
+            Matcher upper = UPPER_BOUND.matcher(condition);
+            if (upper.find()) to = Math.min(to, parseTimestamp(upper.group(1)) - 1);
+
+            if (container.monthly()) {
+                LocalDate month = LocalDate.ofEpochDay(Math.floorDiv(descending ? to : from, 86_400_000L)).withDayOfMonth(1);
+                if (!descending && epochMillis(month) < from) month = month.plusMonths(1);
+                for (; times.size() < limit; month = descending ? month.minusMonths(1) : month.plusMonths(1)) {
+                    long t = epochMillis(month);
+                    if (t < from || t > to) break;
+                    times.add(t);
+                }
+            } else {
+                long step = container.cadenceMillis;
+                long first = -Math.floorDiv(-from, step) * step;
+                long last = Math.floorDiv(to, step) * step;
+                if (descending) {
+                    for (long t = last; t >= first && times.size() < limit; t -= step) times.add(t);
+                } else {
+                    for (long t = first; t <= last && times.size() < limit; t += step) times.add(t);
+                }
+            }
+        }
+
+        Random noise = new Random(station.hashCode());
+        char[] timestamp = new char[24];
+        StringBuilder json = new StringBuilder(times.size() * 110 + 512);
+        json.append("{\"columns\":[");
+        for (int c = 0; c < container.names.size(); c++) {
+            if (c > 0) json.append(',');
+            json.append("{\"name\":\"").append(container.names.get(c)).append("\",\"type\":\"").append(container.types.get(c)).append("\"}");
+        }
+        json.append("],\"rows\":[");
+        for (int i = 0; i < times.size(); i++) {
+            long t = times.get(i);
+            double level = Fixtures.level(t, noise);
+            if (i > 0) json.append(',');
+            json.append('[');
+            for (int c = 0; c < container.names.size(); c++) {
+                if (c > 0) json.append(',');
+                switch (container.names.get(c)) {
+                    case "timestamp", "bucket", "month", "last_updated" ->
+                        json.append('"').append(timestamp, 0, GridDBRowCodec.formatTimestamp(t, timestamp)).append('"');
+                    case "station_id" -> json.append('"').append(station).append('"');
+                    case "station_name" -> json.append("\"Station\"");
+                    case "datum" -> json.append("\"MLLW\"");
+                    case "flags" -> json.append("\"0,0,0,0\"");
+                    case "water_level", "mean_level" -> json.append(level);
+                    case "min_level" -> json.append(level - 0.05);
+                    case "max_level" -> json.append(level + 0.05);
+                    case "mean_sea_level" -> json.append(0.1 + 0.05 * Math.sin(t / 2.6e9));
+                    case "latitude" -> json.append(40.7012);
+                    case "longitude" -> json.append(-74.0137);
+                    case "year" -> json.append(LocalDate.ofEpochDay(t / 86_400_000L).getYear());
+                    case "month_number" -> json.append(LocalDate.ofEpochDay(t / 86_400_000L).getMonthValue());
+                    case "count" -> json.append(container.cadenceMillis / Fixtures.READING_MILLIS);
+                    default -> json.append("null");
+                }
+            }
+            json.append(']');
+        }
+        json.append("],\"offset\":0,\"limit\":").append(limit).append(",\"total\":").append(times.size()).append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long epochMillis(LocalDate day) {
+        return day.toEpochDay() * 86_400_000L;
+    }
+
+    private static long parseTimestamp(String text) {
+        return GridDBRowCodec.parseTimestamp(text.toCharArray(), 0, text.length());
+    }
+}
@@ -0,0 +1,62 @@
+package com.griddb.coastal.bench.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap and GC behaviour over a phase: heap use is sampled every 50 ms for the peak,
+ * GC counts and times are taken as deltas, and the live heap is measured after a full
+ * GC at the end. The stand-ins run in the same JVM, so their allocations are
+ * included; they keep no per-row state.
+ */
+final class JvmMonitor implements AutoCloseable {
+
+    record Phase(long peakHeapBytes, long liveHeapBytes, long gcCount, long gcMillis) {
+
+        String describe() {
+            return String.format("heap peak %d MB, live %d MB, %d GCs / %d ms",
+                peakHeapBytes >> 20, liveHeapBytes >> 20, gcCount, gcMillis);
+        }
+    }
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "heap-sampler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile long peak;
+    private long gcCountAtStart;
+    private long gcMillisAtStart;
+
+    JvmMonitor() {
+        sampler.scheduleAtFixedRate(() -> peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed()),
+            0, 50, TimeUnit.MILLISECONDS);
+    }
+
+    void startPhase() {
+        peak = memory.getHeapMemoryUsage().getUsed();
+        gcCountAtStart = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+        gcMillisAtStart = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    Phase endPhase() {
+        long gcCount = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum() - gcCountAtStart;
+        long gcMillis = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum() - gcMillisAtStart;
+        long peakHeap = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+        System.gc();
+        return new Phase(peakHeap, memory.getHeapMemoryUsage().getUsed(), gcCount, gcMillis);
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package com.griddb.coastal.bench.load;
+
+import java.util.Arrays;
+
+/**
+ * Request latencies of one endpoint, kept in full so percentiles are exact
+ */
+final class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int size;
+    private long errors;
+
+    synchronized void record(long latencyNanos, boolean ok) {
+        if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+        nanos[size++] = latencyNanos;
+        if (!ok) errors++;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    synchronized long errors() {
+        return errors;
+    }
+
+    /**
+     * The {@code p}-th percentile (0-100) in milliseconds, or NaN without samples
+     */
+    synchronized double percentileMillis(double p) {
+        if (size == 0) return Double.NaN;
+        long[] sorted = Arrays.copyOf(nanos, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, rank))] / 1e6;
+    }
+}
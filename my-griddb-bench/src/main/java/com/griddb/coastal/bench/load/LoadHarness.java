@@ -0,0 +1,314 @@
+package com.griddb.coastal.bench.load;
+
+import com.griddb.coastal.CoastalMonitorApplication;
+import com.griddb.coastal.bench.Fixtures;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load run of the whole app against local NOAA and GridDB stand-ins, for
+ * each of a list of station counts:
+ * <ol>
+ *   <li>startup, which ingests each new station's last 7 days and 5 years of monthly
+ *   means, until the write-behind buffer has drained into the GridDB stand-in;</li>
+ *   <li>{@code cycles} scheduler runs, triggered through {@code /api/trigger-collection};</li>
+ *   <li>{@code api.clients} clients calling the read endpoints for {@code api.seconds}.</li>
+ * </ol>
+ * and reports rows/s ingested, p50/p99 latency per endpoint, and heap and GC figures
+ * per phase.
+ *
+ * <pre>
+ * java -Xmx4g -cp target/benchmarks.jar com.griddb.coastal.bench.load.LoadHarness \
+ *     --stations=3,30,300,3000 --noaa.latency.ms=80 --griddb.error.rate=0.01 --out=load.csv
+ * </pre>
+ *
+ * Options (defaults in {@link Options}): stations, cycles, cycle.interval.ms,
+ * api.clients, api.seconds, noaa.latency.ms, noaa.error.rate, noaa.speedup,
+ * griddb.latency.ms, griddb.error.rate, drain.timeout.s and out (CSV file to append
+ * to). Any other {@code --name=value} is passed to the app, e.g.
+ * {@code --ingestion.concurrency=32} or {@code --storage.engine=embedded}.
+ */
+public final class LoadHarness {
+
+    private static final String CSV_HEADER = "stations,phase,name,requests,errors,rows,seconds,rows_per_s,"
+        + "p50_ms,p99_ms,heap_peak_mb,heap_live_mb,gc_count,gc_ms";
+
+    private final Options options;
+    private final JvmMonitor jvm;
+    private final PrintWriter csv;
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    private LoadHarness(Options options, JvmMonitor jvm, PrintWriter csv) {
+        this.options = options;
+        this.jvm = jvm;
+        this.csv = csv;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        PrintWriter csv = null;
+        if (options.out != null) {
+            Path out = Paths.get(options.out);
+            boolean fresh = !Files.exists(out);
+            csv = new PrintWriter(Files.newBufferedWriter(out, StandardOpenOption.CREATE, StandardOpenOption.APPEND), true);
+            if (fresh) csv.println(CSV_HEADER);
+        }
+
+        try (JvmMonitor jvm = new JvmMonitor()) {
+            LoadHarness harness = new LoadHarness(options, jvm, csv);
+            for (int stations : options.stations) {
+                harness.run(stations);
+            }
+        } finally {
+            if (csv != null) csv.close();
+        }
+        System.exit(0);
+    }
+
+    private void run(int stations) throws Exception {
+        System.out.printf("%n== %d stations ==%n", stations);
+        Path dir = Files.createTempDirectory("coastal-load-");
+        try (NoaaStandIn noaa = new NoaaStandIn(stations, options.noaaLatencyMs, options.noaaErrorRate, options.noaaSpeedup);
+             GridDBStandIn griddb = new GridDBStandIn(options.griddbLatencyMs, options.griddbErrorRate)) {
+
+            jvm.startPhase();
+            long start = System.nanoTime();
+            long served = noaa.waterLevelReadings.get();
+            Map<String, Object> properties = appProperties(stations, noaa, griddb, dir);
+            ConfigurableApplicationContext app = new SpringApplicationBuilder(CoastalMonitorApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .initializers(context -> context.getEnvironment().getPropertySources()
+                    .addFirst(new MapPropertySource("load-harness", properties)))
+                .run();
+            try {
+                String baseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+                reportIngest(stations, "startup", griddb, start, awaitDrained(noaa, griddb, served, 0, stations));
+
+                for (int cycle = 1; cycle <= options.cycles; cycle++) {
+                    Thread.sleep(options.cycleIntervalMs);
+                    jvm.startPhase();
+                    start = System.nanoTime();
+                    served = noaa.waterLevelReadings.get();
+                    long stored = griddb.waterLevelRows.get();
+                    send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/trigger-collection"))
+                        .POST(HttpRequest.BodyPublishers.noBody()));
+                    // Each fetch starts at the station's watermark, which the app has already stored
+                    reportIngest(stations, "cycle " + cycle, griddb, start,
+                        awaitDrained(noaa, griddb, served, stored, stations) - stored);
+                }
+
+                runApiLoad(stations, baseUrl);
+            } finally {
+                app.close();
+            }
+            System.out.printf("stand-ins: NOAA %d requests (%d failed on purpose), GridDB %d requests (%d failed on purpose)%n",
+                noaa.requests.get(), noaa.injectedErrors.get(), griddb.requests.get(), griddb.injectedErrors.get());
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private Map<String, Object> appProperties(int stations, NoaaStandIn noaa, GridDBStandIn griddb, Path dir) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", "0");
+        properties.put("noaa.api.base.url", noaa.dataGetterUrl());
+        properties.put("noaa.api.metadata.url", noaa.metadataUrl());
+        properties.put("noaa.stations", Fixtures.stationsConfig(stations));
+        properties.put("griddb.rest.url", griddb.restUrl());
+        properties.put("griddb.api.key", "stand-in");
+        properties.put("http.client.version", "HTTP_1_1");
+        properties.put("http.client.rate.limits", "");
+        // The harness drives the cycles itself
+        properties.put("scheduler.water.level.cron", "-");
+        properties.put("scheduler.monthly.mean.cron", "-");
+        properties.put("ingestion.watermark.file", dir.resolve("watermarks.properties").toString());
+        properties.put("ingestion.journal.dir", dir.resolve("journal").toString());
+        properties.put("backfill.checkpoint.dir", dir.resolve("backfill").toString());
+        properties.put("storage.embedded.dir", dir.resolve("store").toString());
+        properties.put("stations.registry.snapshot.file", dir.resolve("stations.json").toString());
+        properties.putAll(options.appProperties);
+        return properties;
+    }
+
+    /**
+     * Waits until the GridDB stand-in has every reading NOAA served since {@code servedBefore}
+     * (less one already-stored watermark reading per station when {@code storedBefore} > 0),
+     * or until no rows have arrived for a few seconds
+     *
+     * @return water level rows stored in total
+     */
+    private long awaitDrained(NoaaStandIn noaa, GridDBStandIn griddb, long servedBefore, long storedBefore,
+                              int stations) throws InterruptedException {
+        long expected = noaa.waterLevelReadings.get() - servedBefore - (storedBefore > 0 ? stations : 0);
+        long deadline = System.nanoTime() + options.drainTimeoutSeconds * 1_000_000_000L;
+        long last = -1;
+        long quietSince = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            long stored = griddb.waterLevelRows.get();
+            if (stored - storedBefore >= expected) return stored;
+            if (stored != last) {
+                last = stored;
+                quietSince = System.nanoTime();
+            } else if (System.nanoTime() - quietSince > 5_000_000_000L) {
+                System.out.printf("  (gave up waiting: %d of %d readings stored)%n", stored - storedBefore, expected);
+                return stored;
+            }
+            Thread.sleep(20);
+        }
+        return griddb.waterLevelRows.get();
+    }
+
+    private void reportIngest(int stations, String phase, GridDBStandIn griddb, long startNanos, long rows) {
+        double seconds = Math.max(griddb.lastWaterLevelWriteNanos - startNanos, 1) / 1e9;
+        JvmMonitor.Phase heap = jvm.endPhase();
+        System.out.printf(Locale.ROOT, "ingest %-9s %9d rows in %7.2f s = %9.0f rows/s; %s%n",
+            phase, rows, seconds, rows / seconds, heap.describe());
+        csvLine(stations, "ingest", phase, 0, 0, rows, seconds, rows / seconds, Double.NaN, Double.NaN, heap);
+    }
+
+    private void runApiLoad(int stations, String baseUrl) throws InterruptedException {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        List<String> endpoints = List.of("dashboard-data", "stations", "water-levels 24h", "water-levels 30d", "monthly-trends");
+        endpoints.forEach(name -> recorders.put(name, new LatencyRecorder()));
+
+        jvm.startPhase();
+        long deadline = System.nanoTime() + options.apiSeconds * 1_000_000_000L;
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < options.apiClients; c++) {
+            int offset = c;
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    String name = endpoints.get(i % endpoints.size());
+                    String station = Fixtures.stationId(random.nextInt(stations));
+                    String path = switch (name) {
+                        case "dashboard-data" -> "/api/dashboard-data";
+                        case "stations" -> "/api/stations";
+                        case "water-levels 24h" -> "/api/water-levels/" + station + "?hours=24";
+                        case "water-levels 30d" -> "/api/water-levels/" + station + "?hours=720";
+                        default -> "/api/monthly-trends/" + station;
+                    };
+                    long begin = System.nanoTime();
+                    boolean ok = send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+                    recorders.get(name).record(System.nanoTime() - begin, ok);
+                }
+            }, "api-client-" + c);
+            thread.start();
+            clients.add(thread);
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+        JvmMonitor.Phase heap = jvm.endPhase();
+
+        System.out.printf("api    %d clients for %d s; %s%n", options.apiClients, options.apiSeconds, heap.describe());
+        System.out.printf("  %-18s %9s %7s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            double p50 = recorder.percentileMillis(50);
+            double p99 = recorder.percentileMillis(99);
+            System.out.printf(Locale.ROOT, "  %-18s %9d %7d %9.1f %9.2f %9.2f%n", entry.getKey(), recorder.count(),
+                recorder.errors(), recorder.count() / (double) options.apiSeconds, p50, p99);
+            csvLine(stations, "api", entry.getKey(), recorder.count(), recorder.errors(), 0, options.apiSeconds,
+                Double.NaN, p50, p99, heap);
+        }
+    }
+
+    /**
+     * @return true on a 2xx response
+     */
+    private boolean send(HttpRequest.Builder request) {
+        try {
+            HttpResponse<byte[]> response = client.send(request.timeout(Duration.ofSeconds(60)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void csvLine(int stations, String phase, String name, long requests, long errors, long rows,
+                         double seconds, double rowsPerSecond, double p50, double p99, JvmMonitor.Phase heap) {
+        if (csv == null) return;
+        csv.printf(Locale.ROOT, "%d,%s,%s,%d,%d,%d,%.3f,%.1f,%.3f,%.3f,%d,%d,%d,%d%n", stations, phase, name,
+            requests, errors, rows, seconds, rowsPerSecond, p50, p99, heap.peakHeapBytes() >> 20,
+            heap.liveHeapBytes() >> 20, heap.gcCount(), heap.gcMillis());
+    }
+
+    /**
+     * Harness settings; everything not recognised is handed to the app
+     */
+    static final class Options {
+        List<Integer> stations = List.of(3, 30, 300, 3000);
+        int cycles = 3;
+        long cycleIntervalMs = 2000;
+        int apiClients = 16;
+        int apiSeconds = 30;
+        long noaaLatencyMs = 50;
+        double noaaErrorRate = 0;
+        double noaaSpeedup = 600;
+        long griddbLatencyMs = 20;
+        double griddbErrorRate = 0;
+        long drainTimeoutSeconds = 600;
+        String out;
+        final Map<String, Object> appProperties = new HashMap<>();
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String value = arg.substring(eq + 1);
+                switch (arg.substring(2, eq)) {
+                    case "stations" -> options.stations = Stream.of(value.split(",")).map(s -> Integer.parseInt(s.trim())).toList();
+                    case "cycles" -> options.cycles = Integer.parseInt(value);
+                    case "cycle.interval.ms" -> options.cycleIntervalMs = Long.parseLong(value);
+                    case "api.clients" -> options.apiClients = Integer.parseInt(value);
+                    case "api.seconds" -> options.apiSeconds = Integer.parseInt(value);
+                    case "noaa.latency.ms" -> options.noaaLatencyMs = Long.parseLong(value);
+                    case "noaa.error.rate" -> options.noaaErrorRate = Double.parseDouble(value);
+                    case "noaa.speedup" -> options.noaaSpeedup = Double.parseDouble(value);
+                    case "griddb.latency.ms" -> options.griddbLatencyMs = Long.parseLong(value);
+                    case "griddb.error.rate" -> options.griddbErrorRate = Double.parseDouble(value);
+                    case "drain.timeout.s" -> options.drainTimeoutSeconds = Long.parseLong(value);
+                    case "out" -> options.out = value;
+                    default -> options.appProperties.put(arg.substring(2, eq), value);
+                }
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.griddb.coastal.bench.load;
+
+import com.griddb.coastal.bench.Fixtures;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the NOAA CO-OPS datagetter ({@code /api/datagetter}, water_level and
+ * monthly_mean products) and the metadata API's station list ({@code /mdapi/stations.json}).
+ *
+ * Readings are generated on the fly for any station. The stand-in runs a clock that
+ * goes {@code speedup} times faster than real time from when it started, and serves
+ * 6-minute readings up to that clock, so every ingestion cycle finds new data
+ * ({@code speedup} 600 gives each station a new reading every 0.6 s).
+ */
+final class NoaaStandIn extends StandInServer {
+
+    private static final DateTimeFormatter DATE_TIME_PARAM = DateTimeFormatter.ofPattern("yyyyMMdd HH:mm");
+    private static final DateTimeFormatter DATE_PARAM = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter READING_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int MAX_DAYS_PER_REQUEST = 31;
+
+    private final int stations;
+    private final double speedup;
+    private final long startedAt = System.currentTimeMillis();
+
+    final AtomicLong waterLevelReadings = new AtomicLong();
+    final AtomicLong monthlyMeans = new AtomicLong();
+
+    NoaaStandIn(int stations, long latencyMs, double errorRate, double speedup) throws IOException {
+        super("noaa-stand-in", latencyMs, errorRate);
+        this.stations = stations;
+        this.speedup = speedup;
+    }
+
+    String dataGetterUrl() {
+        return baseUrl() + "/api/datagetter";
+    }
+
+    String metadataUrl() {
+        return baseUrl() + "/mdapi/stations.json";
+    }
+
+    /**
+     * The stand-in's accelerated "now", in epoch millis
+     */
+    long now() {
+        long real = System.currentTimeMillis();
+        return startedAt + (long) ((real - startedAt) * speedup);
+    }
+
+    @Override
+    void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/datagetter")) {
+            Map<String, String> parameters = queryParameters(exchange);
+            String product = parameters.getOrDefault("product", "");
+            String station = parameters.getOrDefault("station", "");
+            byte[] body = switch (product) {
+                case "water_level" -> waterLevels(station, parameters);
+                case "monthly_mean" -> monthlyMeans(station, parameters);
+                default -> "{\"error\":{\"message\":\"No data was found\"}}".getBytes(StandardCharsets.UTF_8);
+            };
+            respond(exchange, 200, body);
+        } else if (path.endsWith("/stations.json")) {
+            respond(exchange, 200, stationList());
+        } else {
+            respond(exchange, 404, new byte[0]);
+        }
+    }
+
+    private byte[] waterLevels(String station, Map<String, String> parameters) {
+        long now = Fixtures.slot(now());
+        long begin;
+        if ("latest".equals(parameters.get("date"))) {
+            begin = now;
+        } else {
+            begin = LocalDateTime.parse(parameters.get("begin_date"), DATE_TIME_PARAM).toInstant(ZoneOffset.UTC).toEpochMilli();
+            begin = Math.max(Fixtures.slot(begin + Fixtures.READING_MILLIS - 1), now - MAX_DAYS_PER_REQUEST * 86_400_000L);
+        }
+
+        Random noise = new Random(station.hashCode() ^ begin);
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"metadata\":{\"id\":\"").append(station)
+            .append("\",\"name\":\"Station\",\"lat\":\"40.7012\",\"lon\":\"-74.0137\"},\"data\":[");
+        int count = 0;
+        for (long t = begin; t <= now; t += Fixtures.READING_MILLIS) {
+            if (count++ > 0) json.append(',');
+            json.append("{\"t\":\"").append(LocalDateTime.ofEpochSecond(t / 1000, 0, ZoneOffset.UTC).format(READING_TIME))
+                .append("\",\"v\":\"").append(String.format(Locale.ROOT, "%.3f", Fixtures.level(t, noise)))
+                .append("\",\"s\":\"0.003\",\"f\":\"0,0,0,0\",\"q\":\"p\"}");
+        }
+        json.append("]}");
+        waterLevelReadings.addAndGet(count);
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] monthlyMeans(String station, Map<String, String> parameters) {
+        LocalDate end = LocalDate.ofEpochDay(Math.floorDiv(now(), 86_400_000L)).withDayOfMonth(1);
+        LocalDate month = LocalDate.parse(parameters.get("begin_date"), DATE_PARAM).withDayOfMonth(1);
+
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"data\":[");
+        int count = 0;
+        for (; !month.isAfter(end); month = month.plusMonths(1)) {
+            if (count++ > 0) json.append(',');
+            double msl = 0.1 + 0.003 * (month.getYear() - 2000) + 0.05 * Math.sin(month.getMonthValue());
+            json.append("{\"year\":\"").append(month.getYear()).append("\",\"month\":\"").append(month.getMonthValue())
+                .append("\",\"MSL\":\"").append(String.format(Locale.ROOT, "%.3f", msl)).append("\"}");
+        }
+        json.append("]}");
+        monthlyMeans.addAndGet(count);
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] stationList() {
+        StringBuilder json = new StringBuilder(stations * 96 + 32);
+        json.append("{\"count\":").append(stations).append(",\"stations\":[");
+        for (int i = 0; i < stations; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"").append(Fixtures.stationId(i)).append("\",\"name\":\"Station ").append(i)
+                .append("\",\"state\":\"NY\",\"lat\":40.7012,\"lng\":-74.0137}");
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}